@@ -15,7 +15,6 @@ allprojects {
 
 subprojects {
     apply(plugin = "java")
-    apply(plugin = "maven-publish")
     apply(plugin = "org.jetbrains.dokka")
 
     java {
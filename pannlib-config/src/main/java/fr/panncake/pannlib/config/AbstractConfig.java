@@ -2,36 +2,106 @@ package fr.panncake.pannlib.config;
 
 import fr.panncake.pannlib.config.annotations.ConfigPath;
 import fr.panncake.pannlib.config.annotations.DefaultValue;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.yaml.snakeyaml.DumperOptions;
 import org.yaml.snakeyaml.LoaderOptions;
 import org.yaml.snakeyaml.Yaml;
 import org.yaml.snakeyaml.constructor.SafeConstructor;
 import org.yaml.snakeyaml.representer.Representer;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.Writer;
 import java.lang.reflect.Field;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Collections;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 @Getter
 public abstract class AbstractConfig {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(AbstractConfig.class);
+    private static final ClassValue<List<BoundField>> BOUND_FIELDS = new ClassValue<>() {
+        @Override
+        protected List<BoundField> computeValue(Class<?> type) {
+            List<BoundField> fields = new ArrayList<>();
+            for (Field field : type.getDeclaredFields()) {
+                ConfigPath path = field.getAnnotation(ConfigPath.class);
+                if (path == null) continue;
+                field.setAccessible(true);
+                DefaultValue defaultValue = field.getAnnotation(DefaultValue.class);
+                fields.add(new BoundField(field, path.value(), splitPath(path.value()),
+                        defaultValue != null ? defaultValue.value() : null));
+            }
+            return List.copyOf(fields);
+        }
+    };
+
+    private static final ClassValue<ConfigBinder<?>> BINDERS = new ClassValue<>() {
+        @Override
+        protected ConfigBinder<?> computeValue(Class<?> type) {
+            String name = type.getName();
+            int simpleStart = name.lastIndexOf('.') + 1;
+            String binderName = name.substring(0, simpleStart) + name.substring(simpleStart).replace('$', '_') + "_ConfigBinder";
+            try {
+                return (ConfigBinder<?>) Class.forName(binderName, true, type.getClassLoader()).getDeclaredConstructor().newInstance();
+            } catch (ClassNotFoundException e) {
+                return null;
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Failed to create config binder " + binderName, e);
+            }
+        }
+    };
+
+    static final ThreadLocal<ParsedTreeCache> LOADING_CACHE = new ThreadLocal<>();
+    private static final int MAX_FILE_CODE_POINTS = 64 * 1024 * 1024;
+
     private final Path filePath;
-    private Map<String, Object> configMap;
+    @Getter(AccessLevel.NONE)
+    private final ParsedTreeCache treeCache;
+    @Getter(AccessLevel.NONE)
+    private volatile ConfigSnapshot snapshot = ConfigSnapshot.EMPTY;
     private final Yaml yaml;
+    @Getter(AccessLevel.NONE)
+    private final Map<String, List<Consumer<ConfigChange>>> changeListeners = new ConcurrentHashMap<>();
+    @Getter(AccessLevel.PACKAGE)
+    private volatile long watchDebounceMillis;
+    @Getter(AccessLevel.NONE)
+    private volatile FileTime lastSeenModified;
+    @Getter(AccessLevel.NONE)
+    private volatile long writeBehindMillis;
+    @Getter(AccessLevel.NONE)
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    @Getter(AccessLevel.NONE)
+    private final Map<String, Object> pendingWrites = new LinkedHashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final Map<String, Object> writesDuringReload = new LinkedHashMap<>();
+    @Getter(AccessLevel.NONE)
+    private int reloading;
+    @Getter(AccessLevel.NONE)
+    private final Queue<ConfigChange> pendingChanges = new ConcurrentLinkedQueue<>();
+    @Getter(AccessLevel.NONE)
+    private final AtomicBoolean dispatching = new AtomicBoolean();
 
     public AbstractConfig(@NonNull Path filePath) {
         this.filePath = filePath;
+        this.treeCache = LOADING_CACHE.get();
 
         LoaderOptions loaderOptions = new LoaderOptions();
+        loaderOptions.setCodePointLimit(MAX_FILE_CODE_POINTS);
         DumperOptions dumperOptions = new DumperOptions();
         dumperOptions.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
         dumperOptions.setPrettyFlow(true);
@@ -42,46 +112,130 @@ public abstract class AbstractConfig {
     }
 
     public void reload() {
-        load();
-        checkDefaults();
-        save();
+        reloadSnapshot();
+        dispatchChanges();
+    }
+
+    private void reloadSnapshot() {
+        synchronized (this) {
+            reloading++;
+            pendingWrites.forEach(this::recordReloadWrite);
+        }
+        boolean exists;
+        boolean defaultsAdded;
+        ConfigSnapshot next;
+        try {
+            exists = Files.exists(filePath);
+            Map<String, Object> loaded = load();
+            defaultsAdded = checkDefaults(loaded);
+            next = ConfigSnapshot.of(loaded);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                finishReload();
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            for (Map.Entry<String, Object> write : writesDuringReload.entrySet()) {
+                next = next.with(splitPath(write.getKey()), write.getValue());
+            }
+            finishReload();
+            publish(snapshot, next, null);
+        }
+        if (defaultsAdded || !exists) {
+            save();
+        }
+    }
+
+    private void recordReloadWrite(String path, Object value) {
+        writesDuringReload.remove(path);
+        writesDuringReload.put(path, value);
+    }
+
+    private void finishReload() {
+        if (--reloading == 0) {
+            writesDuringReload.clear();
+        }
+    }
+
+    public Map<String, Object> getConfigMap() {
+        return snapshot.tree();
+    }
+
+    public void watch() {
+        watch(Duration.ofMillis(250));
+    }
+
+    public void watch(@NonNull Duration debounce) {
+        this.watchDebounceMillis = debounce.toMillis();
+        ConfigWatcher.get().register(this);
+    }
+
+    public void unwatch() {
+        ConfigWatcher.get().unregister(this);
+    }
+
+    public void onChange(@NonNull String path, @NonNull Consumer<ConfigChange> listener) {
+        changeListeners.computeIfAbsent(path, p -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    void reloadIfChanged() throws IOException {
+        if (Files.notExists(filePath) || Files.getLastModifiedTime(filePath).equals(lastSeenModified)) {
+            return;
+        }
+        reloadSnapshot();
+        ConfigScheduler.dispatch(this::dispatchChanges);
     }
 
     @SuppressWarnings("unchecked")
-    private void load() {
+    private Map<String, Object> load() {
         try {
             if (Files.notExists(filePath.getParent())) Files.createDirectories(filePath.getParent());
 
             if (Files.exists(filePath)) {
-                try (InputStream in = Files.newInputStream(filePath)) {
-                    Object loaded = yaml.load(in);
-                    if (loaded instanceof Map<?, ?> map) {
-                        this.configMap = (Map<String, Object>) map;
-                    } else {
-                        this.configMap = new LinkedHashMap<>();
+                FileTime modified = Files.getLastModifiedTime(filePath);
+                byte[] content = Files.readAllBytes(filePath);
+                Object loaded = treeCache != null ? treeCache.read(filePath, modified.toMillis(), content) : null;
+                if (loaded == null) {
+                    synchronized (yaml) {
+                        loaded = yaml.load(new ByteArrayInputStream(content));
+                    }
+                    if (treeCache != null) {
+                        treeCache.write(filePath, modified.toMillis(), content, loaded);
                     }
                 }
-            } else {
-                this.configMap = new LinkedHashMap<>();
+                lastSeenModified = modified;
+                if (loaded instanceof Map<?, ?> map) {
+                    return (Map<String, Object>) map;
+                }
             }
+            return new LinkedHashMap<>();
         } catch (IOException e) {
             throw new RuntimeException("Failed to load config " + filePath, e);
         }
     }
 
     @SuppressWarnings("unchecked")
-    private void checkDefaults() {
-        Field[] fields = this.getClass().getDeclaredFields();
+    private boolean checkDefaults(Map<String, Object> root) {
+        ConfigBinder<?> binder = BINDERS.get(getClass());
+        if (binder != null) {
+            boolean defaultsAdded = false;
+            for (ConfigBinder.Key key : binder.keys()) {
+                defaultsAdded |= applyDefault(root, key.keys(), key.defaultValue());
+            }
+            return defaultsAdded;
+        }
 
-        for (Field field : fields) {
-            if (!field.isAnnotationPresent(ConfigPath.class)) continue;
+        boolean defaultsAdded = false;
 
-            String[] keys = field.getAnnotation(ConfigPath.class).value().split("\\.");
-            Map<String, Object> currentMap = configMap;
+        for (BoundField boundField : BOUND_FIELDS.get(getClass())) {
+            Field field = boundField.field();
+            String[] keys = boundField.keys();
+            Map<String, Object> currentMap = root;
 
             for (int i = 0; i < keys.length - 1; i++) {
                 String key = keys[i];
-                currentMap.putIfAbsent(key, new LinkedHashMap<String, Object>());
                 Object next = currentMap.get(key);
                 if (next instanceof Map<?, ?> map) {
                     currentMap = (Map<String, Object>) map;
@@ -89,67 +243,258 @@ public abstract class AbstractConfig {
                     Map<String, Object> newMap = new LinkedHashMap<>();
                     currentMap.put(key, newMap);
                     currentMap = newMap;
+                    defaultsAdded = true;
                 }
             }
 
             String lastKey = keys[keys.length - 1];
             Object rawValue = currentMap.get(lastKey);
 
-            if (rawValue == null && field.isAnnotationPresent(DefaultValue.class)) {
-                rawValue = field.getAnnotation(DefaultValue.class).value();
+            if (rawValue == null && boundField.defaultValue() != null) {
+                rawValue = boundField.defaultValue();
+                defaultsAdded = true;
             }
 
             Object value = convertToFieldType(field, rawValue);
 
+            if (!currentMap.containsKey(lastKey)) {
+                defaultsAdded = true;
+            }
             currentMap.put(lastKey, value);
+        }
+        return defaultsAdded;
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean applyDefault(Map<String, Object> root, String[] keys, Object defaultValue) {
+        boolean defaultsAdded = false;
+        Map<String, Object> currentMap = root;
+        for (int i = 0; i < keys.length - 1; i++) {
+            if (currentMap.get(keys[i]) instanceof Map<?, ?> map) {
+                currentMap = (Map<String, Object>) map;
+            } else {
+                Map<String, Object> newMap = new LinkedHashMap<>();
+                currentMap.put(keys[i], newMap);
+                currentMap = newMap;
+                defaultsAdded = true;
+            }
+        }
+        String lastKey = keys[keys.length - 1];
+        if (!currentMap.containsKey(lastKey) || currentMap.get(lastKey) == null && defaultValue != null) {
+            currentMap.put(lastKey, defaultValue);
+            defaultsAdded = true;
+        }
+        return defaultsAdded;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void publish(ConfigSnapshot previous, ConfigSnapshot next, String[] changedKeys) {
+        ConfigBinder<AbstractConfig> binder = (ConfigBinder<AbstractConfig>) BINDERS.get(getClass());
+        if (binder != null) {
+            binder.bind(this, next::value);
+            this.snapshot = next;
+            queueChanges(previous, next, changedKeys);
+            return;
+        }
+        for (BoundField boundField : BOUND_FIELDS.get(getClass())) {
+            ConfigSnapshot.Entry entry = next.get(boundField.path());
             try {
-                field.setAccessible(true);
-                field.set(this, value);
+                boundField.field().set(this, convertToFieldType(boundField.field(), entry != null ? entry.value() : null));
             } catch (IllegalAccessException e) {
-                throw new RuntimeException("Failed to set config field " + field.getName(), e);
+                throw new RuntimeException("Failed to set config field " + boundField.field().getName(), e);
+            }
+        }
+        this.snapshot = next;
+        queueChanges(previous, next, changedKeys);
+    }
+
+    private void queueChanges(ConfigSnapshot previous, ConfigSnapshot current, String[] changedKeys) {
+        if (changeListeners.isEmpty() || previous == ConfigSnapshot.EMPTY) return;
+
+        Set<String> paths = new LinkedHashSet<>();
+        if (changedKeys == null) {
+            previous.entries().forEach((path, entry) -> { if (entry.leaf()) paths.add(path); });
+            current.entries().forEach((path, entry) -> { if (entry.leaf()) paths.add(path); });
+        } else {
+            StringBuilder ancestor = new StringBuilder();
+            for (int i = 0; i < changedKeys.length - 1; i++) {
+                if (i > 0) ancestor.append('.');
+                paths.add(ancestor.append(changedKeys[i]).toString());
+            }
+            String path = String.join(".", changedKeys);
+            previous.collectLeaves(path, paths);
+            current.collectLeaves(path, paths);
+        }
+        for (String path : paths) {
+            Object oldValue = leafValue(previous, path);
+            Object newValue = leafValue(current, path);
+            if (Objects.equals(oldValue, newValue)) continue;
+
+            pendingChanges.add(new ConfigChange(path, oldValue, newValue));
+        }
+    }
+
+    private void dispatchChanges() {
+        while (!pendingChanges.isEmpty() && dispatching.compareAndSet(false, true)) {
+            try {
+                ConfigChange change;
+                while ((change = pendingChanges.poll()) != null) {
+                    deliver(change);
+                }
+            } finally {
+                dispatching.set(false);
             }
         }
     }
 
+    private void deliver(ConfigChange change) {
+        String path = change.path();
+        changeListeners.forEach((watched, listeners) -> {
+            if (!path.equals(watched) && !path.startsWith(watched + ".")) return;
+            for (Consumer<ConfigChange> listener : listeners) {
+                try {
+                    listener.accept(change);
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Change listener for {} in config {} failed", watched, filePath, e);
+                }
+            }
+        });
+    }
+
+    private static Object leafValue(ConfigSnapshot snapshot, String path) {
+        ConfigSnapshot.Entry entry = snapshot.get(path);
+        return entry != null && entry.leaf() ? entry.value() : null;
+    }
+
+    private static String[] splitPath(String path) {
+        List<String> keys = new ArrayList<>();
+        int start = 0;
+        for (int dot = path.indexOf('.'); dot >= 0; dot = path.indexOf('.', start)) {
+            keys.add(path.substring(start, dot));
+            start = dot + 1;
+        }
+        keys.add(path.substring(start));
+        return keys.toArray(String[]::new);
+    }
+
     public void save() {
-        try (Writer writer = Files.newBufferedWriter(filePath)) {
-            yaml.dump(configMap, writer);
+        Path temp = filePath.resolveSibling(filePath.getFileName() + ".tmp");
+        synchronized (yaml) {
+            writeAtomically(temp);
+        }
+    }
+
+    private void writeAtomically(Path temp) {
+        try {
+            try (Writer writer = Files.newBufferedWriter(temp)) {
+                yaml.dump(snapshot.tree(), writer);
+            }
+            try {
+                Files.move(temp, filePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, filePath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            lastSeenModified = Files.getLastModifiedTime(filePath);
         } catch (IOException e) {
             throw new RuntimeException("Failed to save config " + filePath, e);
         }
     }
 
-    @SuppressWarnings("unchecked")
-    public <T> T getValue(String path) {
-        String[] keys = path.split("\\.");
-        Map<String, Object> currentMap = configMap;
-        Object value = null;
-
-        for (int i = 0; i < keys.length; i++) {
-            value = currentMap.get(keys[i]);
-            if (i < keys.length - 1) {
-                if (value instanceof Map<?, ?> map) {
-                    currentMap = (Map<String, Object>) map;
-                } else {
-                    return null;
+    public void setWriteBehind(Duration delay) {
+        this.writeBehindMillis = delay != null ? delay.toMillis() : 0;
+        if (writeBehindMillis <= 0) {
+            flush();
+        }
+    }
+
+    public synchronized boolean isDirty() {
+        return !pendingWrites.isEmpty();
+    }
+
+    public void flush() {
+        Map<String, Object> written;
+        synchronized (this) {
+            if (!dirty.compareAndSet(true, false)) return;
+            written = new LinkedHashMap<>(pendingWrites);
+        }
+        saveWrites(written);
+    }
+
+    private void saveWrites(Map<String, Object> written) {
+        try {
+            save();
+        } catch (RuntimeException e) {
+            dirty.set(true);
+            throw e;
+        }
+        synchronized (this) {
+            written.forEach(pendingWrites::remove);
+        }
+    }
+
+    private void markDirty(String path, Object value) {
+        if (writeBehindMillis <= 0) {
+            Map<String, Object> written = new HashMap<>();
+            written.put(path, value);
+            saveWrites(written);
+            return;
+        }
+        if (dirty.compareAndSet(false, true)) {
+            ConfigScheduler.schedule(() -> {
+                try {
+                    flush();
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Deferred save of config {} failed", filePath, e);
                 }
-            }
+            }, writeBehindMillis);
         }
-        return (T) value;
     }
 
     @SuppressWarnings("unchecked")
-    public void setValue(String path, Object value) {
-        String[] keys = path.split("\\.");
-        Map<String, Object> currentMap = configMap;
+    public <T> T getValue(String path) {
+        ConfigSnapshot.Entry entry = snapshot.get(path);
+        return entry != null ? (T) entry.value() : null;
+    }
 
-        for (int i = 0; i < keys.length - 1; i++) {
-            currentMap.putIfAbsent(keys[i], new LinkedHashMap<String, Object>());
-            currentMap = (Map<String, Object>) currentMap.get(keys[i]);
-        }
+    public String getString(String path, String def) {
+        ConfigSnapshot.Entry entry = snapshot.get(path);
+        return entry != null && entry.leaf() && entry.value() != null ? entry.value().toString() : def;
+    }
+
+    public int getInt(String path, int def) {
+        ConfigSnapshot.Entry entry = snapshot.get(path);
+        return entry != null && entry.numeric() ? (int) entry.longValue() : def;
+    }
+
+    public long getLong(String path, long def) {
+        ConfigSnapshot.Entry entry = snapshot.get(path);
+        return entry != null && entry.numeric() ? entry.longValue() : def;
+    }
+
+    public double getDouble(String path, double def) {
+        ConfigSnapshot.Entry entry = snapshot.get(path);
+        return entry != null && entry.numeric() ? entry.doubleValue() : def;
+    }
 
-        currentMap.put(keys[keys.length - 1], value);
-        save();
+    public boolean getBoolean(String path, boolean def) {
+        ConfigSnapshot.Entry entry = snapshot.get(path);
+        return entry != null && (entry.value() instanceof Boolean || entry.value() instanceof String)
+                ? entry.booleanValue() : def;
+    }
+
+    public void setValue(String path, Object value) {
+        String[] keys = splitPath(path);
+        synchronized (this) {
+            ConfigSnapshot previous = snapshot;
+            publish(previous, previous.with(keys, value), keys);
+            pendingWrites.remove(path);
+            pendingWrites.put(path, value);
+            if (reloading > 0) {
+                recordReloadWrite(path, value);
+            }
+        }
+        dispatchChanges();
+        markDirty(path, value);
     }
 
     private Object convertToFieldType(Field field, Object value) {
@@ -185,4 +530,7 @@ public abstract class AbstractConfig {
             return null;
         }
     }
+
+    private record BoundField(Field field, String path, String[] keys, String defaultValue) {
+    }
 }
@@ -0,0 +1,14 @@
+package fr.panncake.pannlib.config;
+
+import java.util.List;
+import java.util.function.Function;
+
+public interface ConfigBinder<T extends AbstractConfig> {
+
+    List<Key> keys();
+
+    void bind(T config, Function<String, Object> values);
+
+    record Key(String path, String[] keys, Object defaultValue) {
+    }
+}
@@ -0,0 +1,4 @@
+package fr.panncake.pannlib.config;
+
+public record ConfigChange(String path, Object oldValue, Object newValue) {
+}
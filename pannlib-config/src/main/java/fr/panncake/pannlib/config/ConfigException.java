@@ -0,0 +1,18 @@
+package fr.panncake.pannlib.config;
+
+import lombok.Getter;
+
+@Getter
+public class ConfigException extends RuntimeException {
+    private final String path;
+
+    public ConfigException(String path, String message) {
+        super(path + ": " + message);
+        this.path = path;
+    }
+
+    public ConfigException(String path, String message, Throwable cause) {
+        super(path + ": " + message, cause);
+        this.path = path;
+    }
+}
@@ -0,0 +1,155 @@
+package fr.panncake.pannlib.config;
+
+import lombok.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+public final class ConfigRegistry {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConfigRegistry.class);
+    private static final String CACHE_DIRECTORY = ".cache";
+    private final Path directory;
+    private final ParsedTreeCache cache;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final List<PathMatcher> lazyPatterns = new CopyOnWriteArrayList<>();
+
+    public ConfigRegistry(@NonNull Path directory) {
+        this(directory, true);
+    }
+
+    public ConfigRegistry(@NonNull Path directory, boolean binaryCache) {
+        this.directory = directory;
+        this.cache = binaryCache ? new ParsedTreeCache(directory, directory.resolve(CACHE_DIRECTORY)) : null;
+    }
+
+    public <T extends AbstractConfig> ConfigRegistry register(@NonNull String name, @NonNull Function<Path, T> factory) {
+        entries.put(name, new Entry(name, factory, false));
+        return this;
+    }
+
+    public <T extends AbstractConfig> ConfigRegistry registerLazy(@NonNull String name, @NonNull Function<Path, T> factory) {
+        entries.put(name, new Entry(name, factory, true));
+        return this;
+    }
+
+    public ConfigRegistry lazy(@NonNull String glob) {
+        lazyPatterns.add(FileSystems.getDefault().getPathMatcher("glob:" + glob));
+        return this;
+    }
+
+    public void loadAll() {
+        discover();
+        List<Entry> eager = entries.values().stream().filter(entry -> !entry.lazy && entry.instance == null).toList();
+        if (eager.isEmpty()) return;
+
+        long start = System.nanoTime();
+        int threads = Math.min(eager.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "PannConfig-Loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<AbstractConfig>> futures = new ArrayList<>(eager.size());
+            for (Entry entry : eager) {
+                futures.add(executor.submit(entry::get));
+            }
+            ConfigException failure = null;
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    futures.get(i).get();
+                } catch (ExecutionException e) {
+                    ConfigException error = new ConfigException(eager.get(i).name, "failed to load", e.getCause());
+                    if (failure == null) failure = error;
+                    else failure.addSuppressed(error);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ConfigException(eager.get(i).name, "interrupted while loading", e);
+                }
+            }
+            if (failure != null) throw failure;
+        } finally {
+            executor.shutdown();
+        }
+        LOGGER.info("Loaded {} config(s) from {} in {} ms ({} deferred)", eager.size(), directory,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                entries.values().stream().filter(entry -> entry.instance == null).count());
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T extends AbstractConfig> T get(@NonNull String name) {
+        Entry entry = entries.get(name);
+        if (entry == null) {
+            throw new ConfigException(name, "no config registered or discovered under this name");
+        }
+        return (T) entry.get();
+    }
+
+    public boolean isLoaded(@NonNull String name) {
+        Entry entry = entries.get(name);
+        return entry != null && entry.instance != null;
+    }
+
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    private void discover() {
+        if (Files.notExists(directory)) return;
+        Path cacheDirectory = directory.resolve(CACHE_DIRECTORY);
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.filter(Files::isRegularFile)
+                    .filter(file -> !file.startsWith(cacheDirectory))
+                    .filter(file -> {
+                        String fileName = file.getFileName().toString();
+                        return fileName.endsWith(".yml") || fileName.endsWith(".yaml");
+                    })
+                    .forEach(file -> {
+                        Path relative = directory.relativize(file);
+                        String name = relative.toString().replace(file.getFileSystem().getSeparator(), "/");
+                        boolean lazy = lazyPatterns.stream().anyMatch(pattern -> pattern.matches(relative));
+                        entries.putIfAbsent(name, new Entry(name, YamlConfig::new, lazy));
+                    });
+        } catch (IOException e) {
+            throw new ConfigException(directory.toString(), "failed to scan config directory", e);
+        }
+    }
+
+    private final class Entry {
+        private final String name;
+        private final Function<Path, ? extends AbstractConfig> factory;
+        private final boolean lazy;
+        private volatile AbstractConfig instance;
+
+        Entry(String name, Function<Path, ? extends AbstractConfig> factory, boolean lazy) {
+            this.name = name;
+            this.factory = factory;
+            this.lazy = lazy;
+        }
+
+        AbstractConfig get() {
+            AbstractConfig config = instance;
+            if (config != null) return config;
+            synchronized (this) {
+                if (instance == null) {
+                    AbstractConfig.LOADING_CACHE.set(cache);
+                    try {
+                        instance = factory.apply(directory.resolve(name));
+                    } finally {
+                        AbstractConfig.LOADING_CACHE.remove();
+                    }
+                }
+                return instance;
+            }
+        }
+    }
+}
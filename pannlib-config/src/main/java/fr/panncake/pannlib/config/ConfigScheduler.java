@@ -0,0 +1,31 @@
+package fr.panncake.pannlib.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+final class ConfigScheduler {
+    private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "PannConfig-Worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final ExecutorService EVENTS = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "PannConfig-Events");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ConfigScheduler() {
+    }
+
+    static ScheduledFuture<?> schedule(Runnable task, long delayMillis) {
+        return EXECUTOR.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    static void dispatch(Runnable task) {
+        EVENTS.execute(task);
+    }
+}
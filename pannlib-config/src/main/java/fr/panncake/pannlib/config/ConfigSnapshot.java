@@ -0,0 +1,156 @@
+package fr.panncake.pannlib.config;
+
+import java.util.*;
+
+final class ConfigSnapshot {
+    static final ConfigSnapshot EMPTY = new ConfigSnapshot(Map.of(), Map.of());
+    private final Map<String, Object> tree;
+    private final Map<String, Entry> entries;
+
+    private ConfigSnapshot(Map<String, Object> tree, Map<String, Entry> entries) {
+        this.tree = tree;
+        this.entries = entries;
+    }
+
+    @SuppressWarnings("unchecked")
+    static ConfigSnapshot of(Map<String, Object> root) {
+        Map<String, Object> tree = (Map<String, Object>) freeze(root);
+        Map<String, Entry> entries = new HashMap<>();
+        index("", tree, entries);
+        return new ConfigSnapshot(tree, entries);
+    }
+
+    ConfigSnapshot with(String[] keys, Object value) {
+        Object frozen = freeze(value);
+        Map<String, Object> root = with(tree, keys, 0, frozen);
+        Map<String, Entry> next = new HashMap<>(entries);
+        String path = String.join(".", keys);
+        Entry previous = entries.get(path);
+        if (previous != null && !previous.leaf()) {
+            unindex(path + ".", (Map<?, ?>) previous.value(), next);
+        }
+        Map<?, ?> section = root;
+        StringBuilder ancestor = new StringBuilder();
+        for (int i = 0; i < keys.length - 1; i++) {
+            if (i > 0) ancestor.append('.');
+            section = (Map<?, ?>) section.get(keys[i]);
+            next.put(ancestor.append(keys[i]).toString(), Entry.of(section, section.isEmpty()));
+        }
+        boolean isSection = frozen instanceof Map<?, ?> map && !map.isEmpty();
+        next.put(path, Entry.of(frozen, !isSection));
+        if (isSection) {
+            index(path + ".", (Map<?, ?>) frozen, next);
+        }
+        return new ConfigSnapshot(root, next);
+    }
+
+    void collectLeaves(String path, Set<String> into) {
+        Entry entry = entries.get(path);
+        if (entry == null) return;
+        if (entry.leaf()) {
+            into.add(path);
+            return;
+        }
+        ((Map<?, ?>) entry.value()).keySet().forEach(key -> collectLeaves(path + "." + key, into));
+    }
+
+    Map<String, Object> tree() {
+        return tree;
+    }
+
+    Entry get(String path) {
+        return entries.get(path);
+    }
+
+    Object value(String path) {
+        Entry entry = entries.get(path);
+        return entry != null ? entry.value() : null;
+    }
+
+    Map<String, Entry> entries() {
+        return entries;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> with(Map<String, Object> map, String[] keys, int depth, Object value) {
+        Map<String, Object> copy = new LinkedHashMap<>(map);
+        if (depth == keys.length - 1) {
+            copy.put(keys[depth], value);
+        } else {
+            Object child = map.get(keys[depth]);
+            copy.put(keys[depth], with(child instanceof Map<?, ?> m ? (Map<String, Object>) m : Map.of(), keys, depth + 1, value));
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+
+    private static Object freeze(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<String, Object> copy = new LinkedHashMap<>();
+            map.forEach((k, v) -> copy.put(String.valueOf(k), freeze(v)));
+            return Collections.unmodifiableMap(copy);
+        }
+        if (value instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>(list.size());
+            list.forEach(v -> copy.add(freeze(v)));
+            return Collections.unmodifiableList(copy);
+        }
+        return value;
+    }
+
+    private static void unindex(String prefix, Map<?, ?> map, Map<String, Entry> from) {
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            String path = prefix + entry.getKey();
+            from.remove(path);
+            if (entry.getValue() instanceof Map<?, ?> child) {
+                unindex(path + ".", child, from);
+            }
+        }
+    }
+
+    private static void index(String prefix, Map<?, ?> map, Map<String, Entry> into) {
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            String path = prefix + entry.getKey();
+            Object value = entry.getValue();
+            boolean section = value instanceof Map<?, ?> child && !child.isEmpty();
+            into.put(path, Entry.of(value, !section));
+            if (section) {
+                index(path + ".", (Map<?, ?>) value, into);
+            }
+        }
+    }
+
+    record Entry(Object value, boolean leaf, boolean numeric, long longValue, double doubleValue, boolean booleanValue) {
+        static Entry of(Object value, boolean leaf) {
+            if (value instanceof Number n) {
+                return new Entry(value, leaf, true, n.longValue(), n.doubleValue(), n.longValue() != 0);
+            }
+            if (value instanceof Boolean b) {
+                return new Entry(value, leaf, false, b ? 1 : 0, b ? 1 : 0, b);
+            }
+            if (value instanceof String s) {
+                boolean bool = Boolean.parseBoolean(s);
+                if (!looksNumeric(s)) {
+                    return new Entry(value, leaf, false, 0, 0, bool);
+                }
+                try {
+                    long l = Long.parseLong(s);
+                    return new Entry(value, leaf, true, l, l, bool);
+                } catch (NumberFormatException ignored) {
+                }
+                try {
+                    double d = Double.parseDouble(s);
+                    return new Entry(value, leaf, true, (long) d, d, bool);
+                } catch (NumberFormatException e) {
+                    return new Entry(value, leaf, false, 0, 0, bool);
+                }
+            }
+            return new Entry(value, leaf, false, 0, 0, false);
+        }
+
+        private static boolean looksNumeric(String s) {
+            if (s.isEmpty() || s.length() > 64) return false;
+            char first = s.charAt(0);
+            return Character.isDigit(first) || first == '-' || first == '+' || first == '.';
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package fr.panncake.pannlib.config;
+
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.function.Function;
+
+public final class ConfigValues {
+
+    private ConfigValues() {
+    }
+
+    public static int toInt(Object raw, String path) {
+        return (int) toLong(raw, path);
+    }
+
+    public static long toLong(Object raw, String path) {
+        if (raw == null) return 0;
+        if (raw instanceof Number n) return n.longValue();
+        try {
+            return Long.parseLong(raw.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new ConfigException(path, "expected an integer but got '" + raw + "'");
+        }
+    }
+
+    public static double toDouble(Object raw, String path) {
+        if (raw == null) return 0;
+        if (raw instanceof Number n) return n.doubleValue();
+        try {
+            return Double.parseDouble(raw.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new ConfigException(path, "expected a number but got '" + raw + "'");
+        }
+    }
+
+    public static boolean toBoolean(Object raw, String path) {
+        if (raw == null) return false;
+        if (raw instanceof Boolean b) return b;
+        String s = raw.toString().trim();
+        if (s.equalsIgnoreCase("true")) return true;
+        if (s.equalsIgnoreCase("false")) return false;
+        throw new ConfigException(path, "expected true or false but got '" + raw + "'");
+    }
+
+    public static String toStr(Object raw) {
+        return raw == null ? null : raw.toString();
+    }
+
+    public static Duration toDuration(Object raw, String path) {
+        if (raw == null || raw instanceof Duration) return (Duration) raw;
+        if (raw instanceof Number n) return Duration.ofSeconds(n.longValue());
+
+        String s = raw.toString().trim().toLowerCase(Locale.ROOT);
+        try {
+            if (s.startsWith("p")) return Duration.parse(s.toUpperCase(Locale.ROOT));
+            int split = 0;
+            while (split < s.length() && (Character.isDigit(s.charAt(split)) || s.charAt(split) == '-')) split++;
+            long amount = Long.parseLong(s.substring(0, split));
+            return switch (s.substring(split).trim()) {
+                case "ms" -> Duration.ofMillis(amount);
+                case "", "s" -> Duration.ofSeconds(amount);
+                case "m" -> Duration.ofMinutes(amount);
+                case "h" -> Duration.ofHours(amount);
+                case "d" -> Duration.ofDays(amount);
+                default -> throw new ConfigException(path, "unknown duration unit in '" + raw + "'");
+            };
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new ConfigException(path, "expected a duration like 30s, 5m or PT1H but got '" + raw + "'");
+        }
+    }
+
+    public static <E extends Enum<E>> E toEnum(Object raw, Function<String, E> valueOf, String path) {
+        if (raw == null) return null;
+        try {
+            return valueOf.apply(raw.toString().trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new ConfigException(path, "unknown constant '" + raw + "'");
+        }
+    }
+
+    public static <T> List<T> toList(Object raw, Function<Object, T> element) {
+        if (raw == null) return null;
+        if (!(raw instanceof List<?> list)) {
+            return List.of(element.apply(raw));
+        }
+        List<T> result = new ArrayList<>(list.size());
+        for (Object item : list) {
+            result.add(element.apply(item));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    public static <T> Map<String, T> toMap(Object raw, Function<Object, T> value, String path) {
+        if (raw == null) return null;
+        Map<String, T> result = new LinkedHashMap<>();
+        section(raw, path).forEach((k, v) -> result.put(k, value.apply(v)));
+        return Collections.unmodifiableMap(result);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> section(Object raw, String path) {
+        if (raw instanceof Map<?, ?> map) return (Map<String, Object>) map;
+        throw new ConfigException(path, "expected a section but got '" + raw + "'");
+    }
+
+    public static Object at(Map<String, Object> section, String... keys) {
+        Object current = section;
+        for (String key : keys) {
+            if (!(current instanceof Map<?, ?> map)) return null;
+            current = map.get(key);
+        }
+        return current;
+    }
+}
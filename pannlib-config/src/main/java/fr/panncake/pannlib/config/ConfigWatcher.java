@@ -0,0 +1,109 @@
+package fr.panncake.pannlib.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+
+final class ConfigWatcher {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConfigWatcher.class);
+    private static ConfigWatcher instance;
+    private final WatchService watchService;
+    private final Map<Path, WatchKey> directories = new ConcurrentHashMap<>();
+    private final Map<Path, Set<AbstractConfig>> configs = new ConcurrentHashMap<>();
+    private final Map<AbstractConfig, ScheduledFuture<?>> pending = new ConcurrentHashMap<>();
+
+    private ConfigWatcher() throws IOException {
+        this.watchService = FileSystems.getDefault().newWatchService();
+        Thread thread = new Thread(this::run, "PannConfig-Watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    static synchronized ConfigWatcher get() {
+        if (instance == null) {
+            try {
+                instance = new ConfigWatcher();
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to start config watcher", e);
+            }
+        }
+        return instance;
+    }
+
+    synchronized void register(AbstractConfig config) {
+        Path file = normalize(config.getFilePath());
+        Path directory = file.getParent();
+        if (!directories.containsKey(directory)) {
+            try {
+                directories.put(directory, directory.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY));
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to watch " + directory, e);
+            }
+        }
+        configs.computeIfAbsent(file, f -> ConcurrentHashMap.newKeySet()).add(config);
+    }
+
+    synchronized void unregister(AbstractConfig config) {
+        Path file = normalize(config.getFilePath());
+        Set<AbstractConfig> watched = configs.get(file);
+        if (watched != null && watched.remove(config) && watched.isEmpty()) {
+            configs.remove(file);
+            if (configs.keySet().stream().noneMatch(f -> f.getParent().equals(file.getParent()))) {
+                WatchKey key = directories.remove(file.getParent());
+                if (key != null) key.cancel();
+            }
+        }
+        ScheduledFuture<?> scheduled = pending.remove(config);
+        if (scheduled != null) scheduled.cancel(false);
+    }
+
+    private void run() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path directory = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    configs.forEach((file, watched) -> {
+                        if (file.getParent().equals(directory)) watched.forEach(this::schedule);
+                    });
+                    continue;
+                }
+                Set<AbstractConfig> watched = configs.get(directory.resolve((Path) event.context()));
+                if (watched != null) watched.forEach(this::schedule);
+            }
+            if (!key.reset()) {
+                directories.remove(directory);
+            }
+        }
+    }
+
+    private void schedule(AbstractConfig config) {
+        pending.compute(config, (c, previous) -> {
+            if (previous != null) previous.cancel(false);
+            return ConfigScheduler.schedule(() -> {
+                pending.remove(c);
+                try {
+                    c.reloadIfChanged();
+                } catch (Exception e) {
+                    LOGGER.warn("Failed to reload config {}, keeping previous values", c.getFilePath(), e);
+                }
+            }, c.getWatchDebounceMillis());
+        });
+    }
+
+    private static Path normalize(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+}
@@ -0,0 +1,188 @@
+package fr.panncake.pannlib.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.zip.CRC32C;
+
+final class ParsedTreeCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParsedTreeCache.class);
+    private static final int MAGIC = 0x50434647;
+    private static final byte VERSION = 1;
+    private static final byte NULL = 0, STRING = 1, INT = 2, LONG = 3, DOUBLE = 4, BOOLEAN = 5, BIG_INTEGER = 6,
+            DATE = 7, BYTES = 8, MAP = 9, LIST = 10, SET = 11;
+    private final Path root;
+    private final Path directory;
+
+    ParsedTreeCache(Path root, Path directory) {
+        this.root = root.toAbsolutePath().normalize();
+        this.directory = directory;
+    }
+
+    Object read(Path file, long modified, byte[] content) {
+        Path cached = cacheFile(file);
+        if (Files.notExists(cached)) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cached)))) {
+            if (in.readInt() != MAGIC || in.readByte() != VERSION || in.readLong() != modified
+                    || in.readLong() != content.length || in.readLong() != hash(content)) {
+                return null;
+            }
+            return readValue(in);
+        } catch (IOException e) {
+            LOGGER.debug("Ignoring unreadable config cache {}", cached, e);
+            return null;
+        }
+    }
+
+    void write(Path file, long modified, byte[] content, Object tree) {
+        Path cached = cacheFile(file);
+        Path temp = cached.resolveSibling(cached.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(cached.getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeByte(VERSION);
+                out.writeLong(modified);
+                out.writeLong(content.length);
+                out.writeLong(hash(content));
+                writeValue(out, tree);
+            }
+            try {
+                Files.move(temp, cached, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, cached, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | IllegalArgumentException | StackOverflowError e) {
+            LOGGER.debug("Could not cache parsed config {}", file, e);
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private Path cacheFile(Path file) {
+        Path absolute = file.toAbsolutePath().normalize();
+        String name = absolute.startsWith(root)
+                ? root.relativize(absolute).toString().replace(File.separatorChar, '_')
+                : Integer.toHexString(absolute.toString().hashCode()) + "_" + absolute.getFileName();
+        return directory.resolve(name + ".bin");
+    }
+
+    private static long hash(byte[] content) {
+        CRC32C crc = new CRC32C();
+        crc.update(content);
+        return crc.getValue();
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String s) {
+            out.writeByte(STRING);
+            writeString(out, s);
+        } else if (value instanceof Integer i) {
+            out.writeByte(INT);
+            out.writeInt(i);
+        } else if (value instanceof Long l) {
+            out.writeByte(LONG);
+            out.writeLong(l);
+        } else if (value instanceof Double d) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(d);
+        } else if (value instanceof Boolean b) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean(b);
+        } else if (value instanceof BigInteger big) {
+            out.writeByte(BIG_INTEGER);
+            writeString(out, big.toString());
+        } else if (value instanceof Date date) {
+            out.writeByte(DATE);
+            out.writeLong(date.getTime());
+        } else if (value instanceof byte[] bytes) {
+            out.writeByte(BYTES);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        } else if (value instanceof Map<?, ?> map) {
+            out.writeByte(MAP);
+            out.writeInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeValue(out, entry.getKey());
+                writeValue(out, entry.getValue());
+            }
+        } else if (value instanceof Collection<?> collection) {
+            out.writeByte(value instanceof Set<?> ? SET : LIST);
+            out.writeInt(collection.size());
+            for (Object item : collection) {
+                writeValue(out, item);
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported value type " + value.getClass().getName());
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(in);
+            case INT:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case DOUBLE:
+                return in.readDouble();
+            case BOOLEAN:
+                return in.readBoolean();
+            case BIG_INTEGER:
+                return new BigInteger(readString(in));
+            case DATE:
+                return new Date(in.readLong());
+            case BYTES: {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                return bytes;
+            }
+            case MAP: {
+                int size = in.readInt();
+                Map<Object, Object> map = new LinkedHashMap<>(Math.max(16, size * 4 / 3 + 1));
+                for (int i = 0; i < size; i++) {
+                    map.put(readValue(in), readValue(in));
+                }
+                return map;
+            }
+            case LIST, SET: {
+                int size = in.readInt();
+                Collection<Object> collection = tag == SET ? new LinkedHashSet<>() : new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    collection.add(readValue(in));
+                }
+                return collection;
+            }
+            default:
+                throw new IOException("Unknown cache tag " + tag);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,12 @@
+package fr.panncake.pannlib.config;
+
+import lombok.NonNull;
+
+import java.nio.file.Path;
+
+public final class YamlConfig extends AbstractConfig {
+
+    public YamlConfig(@NonNull Path filePath) {
+        super(filePath);
+    }
+}
@@ -0,0 +1,391 @@
+package fr.panncake.pannlib.config.processor;
+
+import fr.panncake.pannlib.config.ConfigException;
+import fr.panncake.pannlib.config.ConfigValues;
+import fr.panncake.pannlib.config.annotations.ConfigPath;
+import fr.panncake.pannlib.config.annotations.ConfigSection;
+import fr.panncake.pannlib.config.annotations.DefaultValue;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+@SupportedAnnotationTypes("fr.panncake.pannlib.config.annotations.ConfigPath")
+public class ConfigBinderProcessor extends AbstractProcessor {
+    private static final String ABSTRACT_CONFIG = "fr.panncake.pannlib.config.AbstractConfig";
+    private static final String BINDER_SUFFIX = "_ConfigBinder";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement abstractConfig = processingEnv.getElementUtils().getTypeElement(ABSTRACT_CONFIG);
+        Map<TypeElement, List<VariableElement>> configs = new LinkedHashMap<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(ConfigPath.class)) {
+            if (element.getKind() != ElementKind.FIELD) continue;
+            TypeElement owner = (TypeElement) element.getEnclosingElement();
+            if (processingEnv.getTypeUtils().isSubtype(owner.asType(), abstractConfig.asType())) {
+                configs.computeIfAbsent(owner, o -> new ArrayList<>()).add((VariableElement) element);
+            }
+        }
+        configs.forEach((config, fields) -> new Generator(config).write(fields));
+        return false;
+    }
+
+    private final class Generator {
+        private final TypeElement config;
+        private final StringBuilder readers = new StringBuilder();
+        private final Set<TypeElement> generatedReaders = new HashSet<>();
+        private final Map<TypeElement, List<Member>> members = new HashMap<>();
+        private int variables;
+        private int sectionDepth;
+        private boolean failed;
+        private boolean reflective;
+
+        Generator(TypeElement config) {
+            this.config = config;
+        }
+
+        void write(List<VariableElement> fields) {
+            StringBuilder keys = new StringBuilder();
+            StringBuilder reads = new StringBuilder();
+            StringBuilder assigns = new StringBuilder();
+
+            for (VariableElement field : fields) {
+                if (!checkField(field, false)) continue;
+                String path = field.getAnnotation(ConfigPath.class).value();
+                DefaultValue defaultValue = field.getAnnotation(DefaultValue.class);
+                String fallback = defaultValue != null ? defaultLiteral(field.asType(), defaultValue.value(), path, field) : null;
+                collectKeys(field.asType(), path, fallback, keys, new HashSet<>());
+
+                int index = variables++;
+                reads.append("        Object r").append(index).append(" = values.apply(").append(literal(path)).append(");\n");
+                if (fallback != null) {
+                    reads.append("        if (r").append(index).append(" == null) r").append(index).append(" = ").append(fallback).append(";\n");
+                }
+                String conversion = convert(field.asType(), "r" + index, literal(path), field);
+                reads.append("        ").append(field.asType()).append(" v").append(index).append(" = ").append(conversion).append(";\n");
+                assigns.append("        config.").append(field.getSimpleName()).append(" = v").append(index).append(";\n");
+            }
+            if (failed || reflective) return;
+
+            String packageName = processingEnv.getElementUtils().getPackageOf(config).getQualifiedName().toString();
+            String binaryName = processingEnv.getElementUtils().getBinaryName(config).toString();
+            String binderName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1))
+                    .replace('$', '_') + BINDER_SUFFIX;
+            String configType = config.getQualifiedName().toString();
+
+            StringBuilder source = new StringBuilder();
+            if (!packageName.isEmpty()) {
+                source.append("package ").append(packageName).append(";\n\n");
+            }
+            source.append("import fr.panncake.pannlib.config.ConfigBinder;\n")
+                    .append("import fr.panncake.pannlib.config.ConfigValues;\n\n")
+                    .append("import java.util.List;\n")
+                    .append("import java.util.Map;\n")
+                    .append("import java.util.function.Function;\n\n")
+                    .append("@javax.annotation.processing.Generated(\"").append(ConfigBinderProcessor.class.getName()).append("\")\n")
+                    .append("public final class ").append(binderName).append(" implements ConfigBinder<").append(configType).append("> {\n")
+                    .append("    private static final List<Key> KEYS = List.of(\n")
+                    .append(keys.length() > 0 ? keys.substring(0, keys.length() - 2) + "\n" : "")
+                    .append("    );\n\n")
+                    .append("    @Override\n")
+                    .append("    public List<Key> keys() {\n")
+                    .append("        return KEYS;\n")
+                    .append("    }\n\n")
+                    .append("    @Override\n")
+                    .append("    public void bind(").append(configType).append(" config, Function<String, Object> values) {\n")
+                    .append(reads)
+                    .append(assigns)
+                    .append("    }\n")
+                    .append(readers)
+                    .append("}\n");
+
+            String qualifiedName = packageName.isEmpty() ? binderName : packageName + "." + binderName;
+            try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, config).openWriter()) {
+                writer.write(source.toString());
+            } catch (IOException e) {
+                error(config, "Failed to write config binder: " + e.getMessage());
+            }
+        }
+
+        private void collectKeys(TypeMirror type, String path, String fallback, StringBuilder keys, Set<TypeElement> visiting) {
+            TypeElement section = sectionType(type);
+            if (section == null || fallback != null || !visiting.add(section)) {
+                keys.append("            new Key(").append(literal(path)).append(", new String[]{");
+                String[] parts = path.split("\\.");
+                for (int i = 0; i < parts.length; i++) {
+                    keys.append(i > 0 ? ", " : "").append(literal(parts[i]));
+                }
+                keys.append("}, ").append(fallback != null ? fallback : "null").append("),\n");
+                return;
+            }
+            for (Member member : members(section)) {
+                collectKeys(member.type(), path + "." + member.key(), member.fallback(), keys, visiting);
+            }
+            visiting.remove(section);
+        }
+
+        private String convert(TypeMirror type, String raw, String path, Element at) {
+            switch (type.getKind()) {
+                case INT:
+                    return "ConfigValues.toInt(" + raw + ", " + path + ")";
+                case LONG:
+                    return "ConfigValues.toLong(" + raw + ", " + path + ")";
+                case SHORT:
+                    return "(short) ConfigValues.toLong(" + raw + ", " + path + ")";
+                case BYTE:
+                    return "(byte) ConfigValues.toLong(" + raw + ", " + path + ")";
+                case DOUBLE:
+                    return "ConfigValues.toDouble(" + raw + ", " + path + ")";
+                case FLOAT:
+                    return "(float) ConfigValues.toDouble(" + raw + ", " + path + ")";
+                case BOOLEAN:
+                    return "ConfigValues.toBoolean(" + raw + ", " + path + ")";
+                case DECLARED:
+                    break;
+                default:
+                    return unsupported(type, at);
+            }
+
+            DeclaredType declared = (DeclaredType) type;
+            TypeElement element = (TypeElement) declared.asElement();
+            List<? extends TypeMirror> arguments = declared.getTypeArguments();
+            switch (element.getQualifiedName().toString()) {
+                case "java.lang.Integer":
+                    return nullSafe(raw, "(Integer) ConfigValues.toInt(" + raw + ", " + path + ")");
+                case "java.lang.Long":
+                    return nullSafe(raw, "(Long) ConfigValues.toLong(" + raw + ", " + path + ")");
+                case "java.lang.Double":
+                    return nullSafe(raw, "(Double) ConfigValues.toDouble(" + raw + ", " + path + ")");
+                case "java.lang.Float":
+                    return nullSafe(raw, "(Float) (float) ConfigValues.toDouble(" + raw + ", " + path + ")");
+                case "java.lang.Boolean":
+                    return nullSafe(raw, "(Boolean) ConfigValues.toBoolean(" + raw + ", " + path + ")");
+                case "java.lang.String":
+                    return "ConfigValues.toStr(" + raw + ")";
+                case "java.lang.Object":
+                    return raw;
+                case "java.time.Duration":
+                    return "ConfigValues.toDuration(" + raw + ", " + path + ")";
+                case "java.util.List":
+                case "java.util.Collection": {
+                    if (arguments.size() != 1 || arguments.get(0).getKind() != TypeKind.DECLARED) {
+                        return unsupported(type, at);
+                    }
+                    String variable = "e" + variables++;
+                    String element0 = convert(arguments.get(0), variable, path, at);
+                    return "ConfigValues.<" + arguments.get(0) + ">toList(" + raw + ", " + variable + " -> " + element0 + ")";
+                }
+                case "java.util.Map": {
+                    if (arguments.size() != 2 || !arguments.get(0).toString().equals("java.lang.String")
+                            || arguments.get(1).getKind() != TypeKind.DECLARED) {
+                        return unsupported(type, at);
+                    }
+                    String variable = "e" + variables++;
+                    String value = convert(arguments.get(1), variable, path, at);
+                    return "ConfigValues.<" + arguments.get(1) + ">toMap(" + raw + ", " + variable + " -> " + value + ", " + path + ")";
+                }
+                default:
+                    break;
+            }
+            if (element.getKind() == ElementKind.ENUM) {
+                return "ConfigValues.toEnum(" + raw + ", " + element.getQualifiedName() + "::valueOf, " + path + ")";
+            }
+            if (sectionType(type) != null) {
+                return nullSafe(raw, reader(element) + "(ConfigValues.section(" + raw + ", " + path + "), " + path + ")");
+            }
+            return unsupported(type, at);
+        }
+
+        private String reader(TypeElement type) {
+            String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+            String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+            String name = "read" + (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)).replace('$', '_');
+            if (!generatedReaders.add(type)) {
+                return name;
+            }
+
+            sectionDepth++;
+            StringBuilder body = new StringBuilder();
+            List<String> values = new ArrayList<>();
+            List<Member> members = members(type);
+            for (Member member : members) {
+                int index = variables++;
+                String path = "path + " + literal("." + member.key());
+                body.append("        Object r").append(index).append(" = ConfigValues.at(section");
+                for (String part : member.key().split("\\.")) {
+                    body.append(", ").append(literal(part));
+                }
+                body.append(");\n");
+                if (member.fallback() != null) {
+                    body.append("        if (r").append(index).append(" == null) r").append(index).append(" = ").append(member.fallback()).append(";\n");
+                }
+                body.append("        ").append(member.type()).append(" v").append(index).append(" = ")
+                        .append(convert(member.type(), "r" + index, path, member.element())).append(";\n");
+                values.add("v" + index);
+            }
+
+            String typeName = type.getQualifiedName().toString();
+            readers.append("\n    private static ").append(typeName).append(" ").append(name)
+                    .append("(Map<String, Object> section, String path) {\n").append(body);
+            if (type.getKind() == ElementKind.RECORD) {
+                readers.append("        return new ").append(typeName).append("(").append(String.join(", ", values)).append(");\n");
+            } else {
+                readers.append("        ").append(typeName).append(" value = new ").append(typeName).append("();\n");
+                for (int i = 0; i < members.size(); i++) {
+                    readers.append("        value.").append(members.get(i).element().getSimpleName()).append(" = ").append(values.get(i)).append(";\n");
+                }
+                readers.append("        return value;\n");
+            }
+            readers.append("    }\n");
+            sectionDepth--;
+            return name;
+        }
+
+        private List<Member> members(TypeElement type) {
+            List<Member> cached = members.get(type);
+            if (cached != null) return cached;
+
+            List<Member> members = new ArrayList<>();
+            Map<String, VariableElement> fields = new LinkedHashMap<>();
+            for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+                if (!field.getModifiers().contains(Modifier.STATIC) && !field.getModifiers().contains(Modifier.TRANSIENT)) {
+                    fields.put(field.getSimpleName().toString(), field);
+                }
+            }
+            if (type.getKind() == ElementKind.RECORD) {
+                for (RecordComponentElement component : type.getRecordComponents()) {
+                    members.add(member(fields.get(component.getSimpleName().toString()), component.asType()));
+                }
+            } else {
+                for (VariableElement field : fields.values()) {
+                    if (checkField(field, true)) members.add(member(field, field.asType()));
+                }
+            }
+            this.members.put(type, members);
+            return members;
+        }
+
+        private Member member(VariableElement field, TypeMirror type) {
+            ConfigPath path = field.getAnnotation(ConfigPath.class);
+            String key = path != null ? path.value() : field.getSimpleName().toString();
+            DefaultValue defaultValue = field.getAnnotation(DefaultValue.class);
+            String fallback = defaultValue != null ? defaultLiteral(type, defaultValue.value(), key, field) : null;
+            return new Member(field, type, key, fallback);
+        }
+
+        private TypeElement sectionType(TypeMirror type) {
+            if (type.getKind() != TypeKind.DECLARED) return null;
+            TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+            if (element.getKind() == ElementKind.RECORD || element.getAnnotation(ConfigSection.class) != null) {
+                return element;
+            }
+            return null;
+        }
+
+        private boolean checkField(VariableElement field, boolean sectionMember) {
+            Set<Modifier> modifiers = field.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.FINAL)) {
+                if (sectionMember) {
+                    error(field, "Config field " + field.getSimpleName() + " must not be private or final to be bound");
+                } else {
+                    fallBack(field, "Config field " + field.getSimpleName() + " is private or final");
+                }
+                return false;
+            }
+            return true;
+        }
+
+        private String defaultLiteral(TypeMirror type, String value, String path, Element at) {
+            String kind = type.getKind().isPrimitive() ? type.getKind().name()
+                    : type.getKind() == TypeKind.DECLARED ? ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString() : "";
+            try {
+                switch (kind) {
+                    case "INT", "SHORT", "BYTE", "java.lang.Integer":
+                        return String.valueOf(ConfigValues.toInt(value, path));
+                    case "LONG", "java.lang.Long":
+                        return ConfigValues.toLong(value, path) + "L";
+                    case "DOUBLE", "java.lang.Double":
+                        return ConfigValues.toDouble(value, path) + "d";
+                    case "FLOAT", "java.lang.Float":
+                        return (float) ConfigValues.toDouble(value, path) + "f";
+                    case "BOOLEAN", "java.lang.Boolean":
+                        return String.valueOf(ConfigValues.toBoolean(value, path));
+                    case "java.time.Duration":
+                        ConfigValues.toDuration(value, path);
+                        return literal(value);
+                    default:
+                        break;
+                }
+            } catch (ConfigException e) {
+                error(at, "Invalid default value: " + e.getMessage());
+                return "null";
+            }
+            if (type.getKind() == TypeKind.DECLARED && ((DeclaredType) type).asElement().getKind() == ElementKind.ENUM) {
+                String constant = value.trim().toUpperCase(Locale.ROOT).replace('-', '_');
+                boolean known = ((DeclaredType) type).asElement().getEnclosedElements().stream()
+                        .anyMatch(e -> e.getKind() == ElementKind.ENUM_CONSTANT && e.getSimpleName().contentEquals(constant));
+                if (!known) {
+                    error(at, "Invalid default value: " + path + ": unknown constant '" + value + "'");
+                }
+            }
+            return literal(value);
+        }
+
+        private String unsupported(TypeMirror type, Element at) {
+            if (sectionDepth > 0) {
+                error(at, "Unsupported config type " + type);
+            } else {
+                fallBack(at, "Unsupported config type " + type);
+            }
+            return "null";
+        }
+
+        private void fallBack(Element at, String reason) {
+            reflective = true;
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                    reason + ", " + config.getSimpleName() + " will be bound by reflection", at);
+        }
+
+        private void error(Element at, String message) {
+            failed = true;
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, at);
+        }
+    }
+
+    private static String nullSafe(String raw, String expression) {
+        return "(" + raw + " == null ? null : " + expression + ")";
+    }
+
+    private static String literal(String value) {
+        StringBuilder builder = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> builder.append("\\\"");
+                case '\\' -> builder.append("\\\\");
+                case '\n' -> builder.append("\\n");
+                case '\r' -> builder.append("\\r");
+                case '\t' -> builder.append("\\t");
+                default -> builder.append(c);
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+    private record Member(VariableElement element, TypeMirror type, String key, String fallback) {
+    }
+}
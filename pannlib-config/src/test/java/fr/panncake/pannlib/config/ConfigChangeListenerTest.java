@@ -0,0 +1,90 @@
+package fr.panncake.pannlib.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigChangeListenerTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void setValueNotifiesListenersOfTheChangedPathAndItsSections() {
+        YamlConfig config = new YamlConfig(directory.resolve("game.yml"));
+        config.setValue("arena.size", 10);
+        List<ConfigChange> exact = new CopyOnWriteArrayList<>();
+        List<ConfigChange> section = new CopyOnWriteArrayList<>();
+        config.onChange("arena.size", exact::add);
+        config.onChange("arena", section::add);
+
+        config.setValue("arena.size", 20);
+        config.setValue("lobby.size", 5);
+
+        assertEquals(List.of(new ConfigChange("arena.size", 10, 20)), exact);
+        assertEquals(exact, section);
+    }
+
+    @Test
+    void listenersRunOutsideTheConfigLock() throws Exception {
+        YamlConfig config = new YamlConfig(directory.resolve("game.yml"));
+        config.setValue("motd", "hello");
+        config.onChange("motd", change -> {
+            Thread writer = new Thread(() -> config.setValue("seen", change.newValue()));
+            writer.start();
+            try {
+                writer.join(5_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        config.setValue("motd", "welcome");
+
+        assertEquals("welcome", config.getValue("seen"));
+    }
+
+    @Test
+    void aFailingListenerDoesNotStopTheOthers() {
+        YamlConfig config = new YamlConfig(directory.resolve("game.yml"));
+        config.setValue("motd", "hello");
+        List<Object> received = new CopyOnWriteArrayList<>();
+        config.onChange("motd", change -> {
+            throw new IllegalStateException("boom");
+        });
+        config.onChange("motd", change -> received.add(change.newValue()));
+
+        config.setValue("motd", "welcome");
+
+        assertEquals(List.of("welcome"), received);
+    }
+
+    @Test
+    void watchedFilesReloadAndNotifyOnExternalEdits() throws Exception {
+        Path file = directory.resolve("game.yml");
+        YamlConfig config = new YamlConfig(file);
+        config.setValue("motd", "hello");
+        CountDownLatch changed = new CountDownLatch(1);
+        config.onChange("motd", change -> {
+            if ("edited".equals(change.newValue())) changed.countDown();
+        });
+        config.watch(Duration.ofMillis(20));
+        try {
+            Thread.sleep(50);
+            Files.writeString(file, "motd: edited\n");
+
+            assertTrue(changed.await(10, TimeUnit.SECONDS));
+            assertEquals("edited", config.getString("motd", null));
+        } finally {
+            config.unwatch();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package fr.panncake.pannlib.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigReadTest {
+    @TempDir
+    Path directory;
+
+    private YamlConfig load(String yaml) throws IOException {
+        Path file = directory.resolve("game.yml");
+        Files.writeString(file, yaml);
+        return new YamlConfig(file);
+    }
+
+    @Test
+    void typedGettersReadNestedPaths() throws IOException {
+        YamlConfig config = load("""
+                arena:
+                  size: 32
+                  ratio: 1.5
+                  ranked: true
+                  name: Colosseum
+                  port: "25565"
+                  tags: [pvp, ffa]
+                """);
+
+        assertEquals(32, config.getInt("arena.size", 0));
+        assertEquals(32L, config.getLong("arena.size", 0));
+        assertEquals(1.5, config.getDouble("arena.ratio", 0));
+        assertTrue(config.getBoolean("arena.ranked", false));
+        assertEquals("Colosseum", config.getString("arena.name", null));
+        assertEquals(25565, config.getInt("arena.port", 0));
+        assertEquals(List.of("pvp", "ffa"), config.getValue("arena.tags"));
+    }
+
+    @Test
+    void missingOrMistypedPathsFallBackToTheDefault() throws IOException {
+        YamlConfig config = load("""
+                arena:
+                  name: Colosseum
+                """);
+
+        assertEquals(7, config.getInt("arena.missing", 7));
+        assertEquals(7, config.getInt("arena.name", 7));
+        assertEquals("none", config.getString("arena", "none"));
+        assertEquals("none", config.getString("arena.name.deeper", "none"));
+        assertNull(config.getValue("lobby.size"));
+    }
+
+    @Test
+    void sectionsAreReturnedAsReadOnlyMaps() throws IOException {
+        YamlConfig config = load("""
+                arena:
+                  size: 32
+                """);
+
+        Map<String, Object> arena = config.getValue("arena");
+        assertEquals(Map.of("size", 32), arena);
+        assertThrows(UnsupportedOperationException.class, () -> arena.put("size", 64));
+    }
+
+    @Test
+    void setValueIsVisibleThroughEveryGetterAndTheFile() throws IOException {
+        YamlConfig config = load("arena: {}\n");
+
+        config.setValue("arena.size", 64);
+        config.setValue("lobby.spawn.x", 12.5);
+
+        assertEquals(64, config.getInt("arena.size", 0));
+        assertEquals(12.5, config.getDouble("lobby.spawn.x", 0));
+        assertEquals(Map.of("x", 12.5), config.getValue("lobby.spawn"));
+        assertEquals(64, new YamlConfig(config.getFilePath()).getInt("arena.size", 0));
+    }
+
+    @Test
+    void replacingASectionDropsItsOldKeys() throws IOException {
+        YamlConfig config = load("""
+                arena:
+                  size: 32
+                  name: Colosseum
+                """);
+
+        config.setValue("arena", Map.of("size", 16));
+
+        assertEquals(16, config.getInt("arena.size", 0));
+        assertNull(config.getValue("arena.name"));
+    }
+}
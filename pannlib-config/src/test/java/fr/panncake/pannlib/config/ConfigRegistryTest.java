@@ -0,0 +1,93 @@
+package fr.panncake.pannlib.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigRegistryTest {
+    @TempDir
+    Path directory;
+
+    private void write(String name, String yaml) throws IOException {
+        Path file = directory.resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, yaml);
+    }
+
+    @Test
+    void discoversEveryYamlFileUnderTheDirectory() throws IOException {
+        write("game.yml", "motd: hello\n");
+        write("arenas/colosseum.yaml", "size: 32\n");
+        write("notes.txt", "ignored");
+
+        ConfigRegistry registry = new ConfigRegistry(directory);
+        registry.loadAll();
+
+        assertEquals(Set.of("game.yml", "arenas/colosseum.yaml"), registry.getNames());
+        assertTrue(registry.isLoaded("game.yml"));
+        assertEquals("hello", registry.<YamlConfig>get("game.yml").getString("motd", null));
+        assertEquals(32, registry.<YamlConfig>get("arenas/colosseum.yaml").getInt("size", 0));
+    }
+
+    @Test
+    void lazyConfigsLoadOnFirstGet() throws IOException {
+        write("game.yml", "motd: hello\n");
+        write("worlds/nether.yml", "seed: 42\n");
+
+        ConfigRegistry registry = new ConfigRegistry(directory).lazy("worlds/**");
+        registry.loadAll();
+
+        assertTrue(registry.isLoaded("game.yml"));
+        assertFalse(registry.isLoaded("worlds/nether.yml"));
+        assertEquals(42, registry.<YamlConfig>get("worlds/nether.yml").getInt("seed", 0));
+        assertTrue(registry.isLoaded("worlds/nether.yml"));
+    }
+
+    @Test
+    void registeredFactoriesAreLoadedOnce() throws IOException {
+        write("game.yml", "motd: hello\n");
+
+        ConfigRegistry registry = new ConfigRegistry(directory).register("game.yml", YamlConfig::new);
+        registry.loadAll();
+        YamlConfig config = registry.get("game.yml");
+
+        assertSame(config, registry.get("game.yml"));
+        assertEquals(Set.of("game.yml"), registry.getNames());
+    }
+
+    @Test
+    void loadFailuresNameTheConfig() {
+        ConfigRegistry registry = new ConfigRegistry(directory, false)
+                .register("broken.yml", file -> {
+                    throw new IllegalStateException("boom");
+                });
+
+        ConfigException e = assertThrows(ConfigException.class, registry::loadAll);
+        assertEquals("broken.yml", e.getPath());
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertThrows(ConfigException.class, () -> registry.get("missing.yml"));
+    }
+
+    @Test
+    void parsedTreesAreCachedUntilTheFileChanges() throws IOException {
+        write("game.yml", "motd: hello\n");
+        new ConfigRegistry(directory).loadAll();
+
+        assertTrue(Files.exists(directory.resolve(".cache/game.yml.bin")));
+        ConfigRegistry cached = new ConfigRegistry(directory);
+        cached.loadAll();
+        assertEquals(Set.of("game.yml"), cached.getNames());
+        assertEquals("hello", cached.<YamlConfig>get("game.yml").getString("motd", null));
+
+        write("game.yml", "motd: edited\n");
+        ConfigRegistry edited = new ConfigRegistry(directory);
+        edited.loadAll();
+        assertEquals("edited", edited.<YamlConfig>get("game.yml").getString("motd", null));
+    }
+}
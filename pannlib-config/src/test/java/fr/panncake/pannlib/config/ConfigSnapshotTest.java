@@ -0,0 +1,100 @@
+package fr.panncake.pannlib.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigSnapshotTest {
+    @TempDir
+    Path directory;
+
+    private static ConfigSnapshot base() {
+        Map<String, Object> arena = new LinkedHashMap<>();
+        arena.put("size", 32);
+        arena.put("spawn", new LinkedHashMap<>(Map.of("x", 1, "y", 2)));
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("arena", arena);
+        root.put("motd", "hello");
+        root.put("empty", new LinkedHashMap<>());
+        return ConfigSnapshot.of(root);
+    }
+
+    private static void assertSameIndex(ConfigSnapshot updated) {
+        assertEquals(ConfigSnapshot.of(updated.tree()).entries(), updated.entries());
+    }
+
+    @Test
+    void incrementalUpdatesMatchAFullReindex() {
+        ConfigSnapshot base = base();
+
+        assertSameIndex(base.with(new String[]{"arena", "size"}, 64));
+        assertSameIndex(base.with(new String[]{"arena", "spawn"}, 5));
+        assertSameIndex(base.with(new String[]{"motd"}, Map.of("line", "welcome")));
+        assertSameIndex(base.with(new String[]{"lobby", "spawn", "x"}, 3));
+        assertSameIndex(base.with(new String[]{"empty", "key"}, "value"));
+        assertSameIndex(base.with(new String[]{"arena"}, Map.of()));
+        assertSameIndex(base.with(new String[]{"motd", "nested"}, 1));
+    }
+
+    @Test
+    void updatesLeaveThePreviousSnapshotUntouched() {
+        ConfigSnapshot base = base();
+        base.with(new String[]{"arena", "spawn", "x"}, 9);
+
+        assertEquals(1, base.value("arena.spawn.x"));
+        assertEquals(Map.of("x", 1, "y", 2), base.value("arena.spawn"));
+    }
+
+    @Test
+    void replacingASectionReportsEveryRemovedLeaf() {
+        YamlConfig config = new YamlConfig(directory.resolve("game.yml"));
+        config.setValue("arena.spawn", Map.of("x", 1, "y", 2));
+        config.setValue("motd", "hello");
+        List<ConfigChange> changes = new CopyOnWriteArrayList<>();
+        config.onChange("arena", changes::add);
+        config.onChange("motd", changes::add);
+
+        config.setValue("arena.spawn", 7);
+        config.setValue("motd.line", "welcome");
+
+        assertEquals(Set.of(
+                new ConfigChange("arena.spawn.x", 1, null),
+                new ConfigChange("arena.spawn.y", 2, null),
+                new ConfigChange("arena.spawn", null, 7),
+                new ConfigChange("motd", "hello", null),
+                new ConfigChange("motd.line", null, "welcome")), new HashSet<>(changes));
+        assertEquals(5, changes.size());
+    }
+
+    @Test
+    void readersNeverSeeAHalfAppliedUpdate() throws Exception {
+        YamlConfig config = new YamlConfig(directory.resolve("game.yml"));
+        config.setValue("pos", Map.of("x", 0, "y", 0));
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                Map<String, Object> pos = config.getValue("pos");
+                if (!Objects.equals(pos.get("x"), pos.get("y"))) {
+                    failure.set("torn read " + pos);
+                }
+            }
+        });
+        reader.start();
+        for (int i = 1; i <= 200; i++) {
+            config.setValue("pos", Map.of("x", i, "y", i));
+        }
+        running.set(false);
+        reader.join();
+
+        assertNull(failure.get());
+        assertEquals(200, config.getInt("pos.x", 0));
+    }
+}
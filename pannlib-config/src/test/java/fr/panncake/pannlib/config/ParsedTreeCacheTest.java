@@ -0,0 +1,74 @@
+package fr.panncake.pannlib.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParsedTreeCacheTest {
+    private static final byte[] CONTENT = "motd: hello\n".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path directory;
+
+    private ParsedTreeCache cache() {
+        return new ParsedTreeCache(directory, directory.resolve(".cache"));
+    }
+
+    @Test
+    void treesRoundTripWithTheirTypes() {
+        Map<String, Object> tree = new LinkedHashMap<>();
+        tree.put("string", "hello");
+        tree.put("int", 32);
+        tree.put("long", 5_000_000_000L);
+        tree.put("double", 1.5);
+        tree.put("boolean", true);
+        tree.put("big", new BigInteger("123456789012345678901234567890"));
+        tree.put("date", new Date(1_700_000_000_000L));
+        tree.put("null", null);
+        tree.put("list", List.of("a", 1));
+        tree.put("set", new LinkedHashSet<>(List.of("x", "y")));
+        tree.put("section", Map.of("size", 16));
+        Path file = directory.resolve("game.yml");
+
+        cache().write(file, 1000, CONTENT, tree);
+        Object read = cache().read(file, 1000, CONTENT);
+
+        assertEquals(tree, read);
+        assertInstanceOf(Set.class, ((Map<?, ?>) read).get("set"));
+        assertInstanceOf(Long.class, ((Map<?, ?>) read).get("long"));
+    }
+
+    @Test
+    void staleEntriesAreIgnored() {
+        Path file = directory.resolve("game.yml");
+        cache().write(file, 1000, CONTENT, Map.of("motd", "hello"));
+
+        assertNull(cache().read(file, 2000, CONTENT));
+        assertNull(cache().read(file, 1000, "motd: edited\n".getBytes(StandardCharsets.UTF_8)));
+        assertNull(cache().read(directory.resolve("other.yml"), 1000, CONTENT));
+    }
+
+    @Test
+    void corruptOrUnsupportedEntriesAreIgnored() throws IOException {
+        Path file = directory.resolve("game.yml");
+        cache().write(file, 1000, CONTENT, Map.of("motd", "hello"));
+        Path cached = directory.resolve(".cache/game.yml.bin");
+        byte[] bytes = Files.readAllBytes(cached);
+        Files.write(cached, Arrays.copyOf(bytes, bytes.length - 3));
+
+        assertNull(cache().read(file, 1000, CONTENT));
+
+        Files.delete(cached);
+        cache().write(file, 1000, CONTENT, Map.of("motd", new Object()));
+        assertFalse(Files.exists(cached));
+        assertFalse(Files.exists(directory.resolve(".cache/game.yml.bin.tmp")));
+    }
+}
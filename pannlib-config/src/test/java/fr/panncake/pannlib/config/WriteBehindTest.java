@@ -0,0 +1,112 @@
+package fr.panncake.pannlib.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBehindTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void changesAreSavedOnFlush() throws IOException {
+        Path file = directory.resolve("game.yml");
+        YamlConfig config = new YamlConfig(file);
+        config.setWriteBehind(Duration.ofMinutes(1));
+
+        config.setValue("arena.size", 48);
+
+        assertTrue(config.isDirty());
+        assertEquals(48, config.getInt("arena.size", 0));
+        assertFalse(Files.readString(file).contains("48"));
+
+        config.flush();
+
+        assertFalse(config.isDirty());
+        assertEquals(48, new YamlConfig(file).getInt("arena.size", 0));
+        assertFalse(Files.exists(directory.resolve("game.yml.tmp")));
+    }
+
+    @Test
+    void burstsAreCoalescedIntoOneDeferredSave() throws Exception {
+        Path file = directory.resolve("game.yml");
+        YamlConfig config = new YamlConfig(file);
+        config.setWriteBehind(Duration.ofMillis(50));
+
+        for (int i = 1; i <= 100; i++) {
+            config.setValue("counter", i);
+        }
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (config.isDirty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(config.isDirty());
+        assertEquals(100, new YamlConfig(file).getInt("counter", 0));
+    }
+
+    @Test
+    void reloadKeepsPendingChanges() throws IOException {
+        Path file = directory.resolve("game.yml");
+        YamlConfig config = new YamlConfig(file);
+        config.setValue("motd", "hello");
+        config.setWriteBehind(Duration.ofMinutes(1));
+        config.setValue("arena.size", 48);
+
+        Files.writeString(file, "motd: edited\narena:\n  size: 16\n");
+        config.reload();
+
+        assertEquals("edited", config.getString("motd", null));
+        assertEquals(48, config.getInt("arena.size", 0));
+        assertTrue(config.isDirty());
+
+        config.flush();
+        YamlConfig reread = new YamlConfig(file);
+        assertEquals("edited", reread.getString("motd", null));
+        assertEquals(48, reread.getInt("arena.size", 0));
+    }
+
+    @Test
+    void concurrentReloadsDoNotDropWrites() throws Exception {
+        Path file = directory.resolve("game.yml");
+        YamlConfig config = new YamlConfig(file);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        Thread reloader = new Thread(() -> {
+            while (writing.get()) {
+                config.reload();
+            }
+        });
+        reloader.start();
+        try {
+            for (int i = 1; i <= 300; i++) {
+                config.setValue("counter", i);
+            }
+        } finally {
+            writing.set(false);
+            reloader.join();
+        }
+
+        assertEquals(300, config.getInt("counter", 0));
+        assertEquals(300, new YamlConfig(file).getInt("counter", 0));
+    }
+
+    @Test
+    void disablingWriteBehindFlushesImmediately() throws IOException {
+        Path file = directory.resolve("game.yml");
+        YamlConfig config = new YamlConfig(file);
+        config.setWriteBehind(Duration.ofMinutes(1));
+        config.setValue("arena.size", 48);
+
+        config.setWriteBehind(null);
+
+        assertFalse(config.isDirty());
+        assertEquals(48, new YamlConfig(file).getInt("arena.size", 0));
+    }
+}
@@ -0,0 +1,281 @@
+package fr.panncake.pannlib.config.processor;
+
+import fr.panncake.pannlib.config.AbstractConfig;
+import fr.panncake.pannlib.config.ConfigException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.yaml.snakeyaml.Yaml;
+
+import javax.tools.*;
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigBinderProcessorTest {
+    private static final String GAME_CONFIG = """
+            package game;
+
+            import fr.panncake.pannlib.config.AbstractConfig;
+            import fr.panncake.pannlib.config.annotations.ConfigPath;
+            import fr.panncake.pannlib.config.annotations.ConfigSection;
+            import fr.panncake.pannlib.config.annotations.DefaultValue;
+
+            import java.nio.file.Path;
+            import java.time.Duration;
+            import java.util.List;
+            import java.util.Map;
+
+            public class GameConfig extends AbstractConfig {
+                public enum Mode { SOLO, TEAM }
+
+                public record Spawn(double x, double y, @DefaultValue("world") String world) {}
+
+                @ConfigSection
+                public static class Arena {
+                    public int size;
+                    @DefaultValue("team")
+                    public Mode mode;
+                    public Spawn spawn;
+                }
+
+                @ConfigPath("arena")
+                public Arena arena;
+                @ConfigPath("timeout")
+                @DefaultValue("30s")
+                public Duration timeout;
+                @ConfigPath("maps")
+                public List<String> maps;
+                @ConfigPath("limits")
+                public Map<String, Integer> limits;
+                @ConfigPath("max-players")
+                @DefaultValue("16")
+                public int maxPlayers;
+
+                public GameConfig(Path file) {
+                    super(file);
+                }
+            }
+            """;
+
+    @TempDir
+    Path directory;
+
+    private record Compilation(boolean success, List<Diagnostic<? extends JavaFileObject>> diagnostics, Path classes) {
+        String errors() {
+            return diagnostics.stream()
+                    .filter(d -> d.getKind() == Diagnostic.Kind.ERROR)
+                    .map(d -> d.getMessage(Locale.ROOT))
+                    .collect(Collectors.joining("\n"));
+        }
+    }
+
+    private Compilation compile(String className, String source) throws Exception {
+        Path sources = directory.resolve("src");
+        Path classes = directory.resolve("classes");
+        Path file = sources.resolve(className.replace('.', '/') + ".java");
+        Files.createDirectories(file.getParent());
+        Files.createDirectories(classes);
+        Files.writeString(file, source);
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager files = compiler.getStandardFileManager(diagnostics, Locale.ROOT, null)) {
+            List<String> options = List.of("-parameters",
+                    "-classpath", classpath(),
+                    "-d", classes.toString(),
+                    "-s", classes.toString());
+            JavaCompiler.CompilationTask task = compiler.getTask(null, files, diagnostics, options, null,
+                    files.getJavaFileObjects(file));
+            task.setProcessors(List.of(new ConfigBinderProcessor()));
+            return new Compilation(task.call(), diagnostics.getDiagnostics(), classes);
+        }
+    }
+
+    private static String classpath() throws URISyntaxException {
+        StringBuilder classpath = new StringBuilder();
+        for (Class<?> type : List.of(AbstractConfig.class, Yaml.class, Logger.class)) {
+            if (!classpath.isEmpty()) classpath.append(File.pathSeparator);
+            classpath.append(Path.of(type.getProtectionDomain().getCodeSource().getLocation().toURI()));
+        }
+        return classpath.toString();
+    }
+
+    private Object load(Compilation compilation, Path configFile) throws Exception {
+        return load(compilation, "game.GameConfig", configFile);
+    }
+
+    private Object load(Compilation compilation, String className, Path configFile) throws Exception {
+        assertTrue(compilation.success(), compilation.errors());
+        URLClassLoader loader = new URLClassLoader(new URL[]{compilation.classes().toUri().toURL()}, getClass().getClassLoader());
+        return loader.loadClass(className).getConstructor(Path.class).newInstance(configFile);
+    }
+
+    private static Object field(Object target, String name) throws ReflectiveOperationException {
+        return target.getClass().getField(name).get(target);
+    }
+
+    @Test
+    void generatesABinderForAnnotatedConfigs() throws Exception {
+        Compilation compilation = compile("game.GameConfig", GAME_CONFIG);
+
+        assertTrue(compilation.success(), compilation.errors());
+        assertTrue(Files.exists(compilation.classes().resolve("game/GameConfig_ConfigBinder.java")));
+        assertTrue(Files.exists(compilation.classes().resolve("game/GameConfig_ConfigBinder.class")));
+    }
+
+    @Test
+    void bindsSectionsRecordsCollectionsAndEnums() throws Exception {
+        Path file = directory.resolve("game.yml");
+        Files.writeString(file, """
+                arena:
+                  size: 32
+                  mode: solo
+                  spawn:
+                    x: 1.5
+                    y: 64
+                timeout: 5m
+                maps: [castle, "42"]
+                limits:
+                  chat: 3
+                  build: "8"
+                """);
+
+        Object config = load(compile("game.GameConfig", GAME_CONFIG), file);
+
+        Object arena = field(config, "arena");
+        assertEquals(32, field(arena, "size"));
+        assertEquals("SOLO", field(arena, "mode").toString());
+        Object spawn = field(arena, "spawn");
+        assertEquals(1.5, spawn.getClass().getMethod("x").invoke(spawn));
+        assertEquals(64.0, spawn.getClass().getMethod("y").invoke(spawn));
+        assertEquals("world", spawn.getClass().getMethod("world").invoke(spawn));
+        assertEquals(Duration.ofMinutes(5), field(config, "timeout"));
+        assertEquals(List.of("castle", "42"), field(config, "maps"));
+        assertEquals(Map.of("chat", 3, "build", 8), field(config, "limits"));
+        assertEquals(16, field(config, "maxPlayers"));
+    }
+
+    @Test
+    void missingKeysAreFilledWithDefaults() throws Exception {
+        Path file = directory.resolve("game.yml");
+
+        Object config = load(compile("game.GameConfig", GAME_CONFIG), file);
+
+        assertEquals(Duration.ofSeconds(30), field(config, "timeout"));
+        assertEquals(16, field(config, "maxPlayers"));
+        assertEquals("TEAM", field(field(config, "arena"), "mode").toString());
+        String written = Files.readString(file);
+        assertTrue(written.contains("max-players: 16"), written);
+        assertTrue(written.contains("timeout: 30s"), written);
+    }
+
+    @Test
+    void conversionErrorsNameTheOffendingPath() throws Exception {
+        Path file = directory.resolve("game.yml");
+        Files.writeString(file, """
+                arena:
+                  size: huge
+                """);
+        Compilation compilation = compile("game.GameConfig", GAME_CONFIG);
+
+        InvocationTargetException e = assertThrows(InvocationTargetException.class, () -> load(compilation, file));
+        ConfigException cause = assertInstanceOf(ConfigException.class, e.getCause());
+        assertTrue(cause.getMessage().contains("arena.size"), cause.getMessage());
+    }
+
+    @Test
+    void privateFieldsAndUnsupportedTypesFallBackToReflection() throws Exception {
+        Compilation compilation = compile("game.LegacyConfig", """
+                package game;
+
+                import fr.panncake.pannlib.config.AbstractConfig;
+                import fr.panncake.pannlib.config.annotations.ConfigPath;
+                import fr.panncake.pannlib.config.annotations.DefaultValue;
+
+                import java.nio.file.Path;
+                import java.util.List;
+
+                public class LegacyConfig extends AbstractConfig {
+                    @ConfigPath("arena.size")
+                    @DefaultValue("32")
+                    private int arenaSize;
+                    @ConfigPath("maps")
+                    public List maps;
+
+                    public LegacyConfig(Path file) {
+                        super(file);
+                    }
+
+                    public int arenaSize() {
+                        return arenaSize;
+                    }
+                }
+                """);
+
+        assertTrue(compilation.success(), compilation.errors());
+        assertFalse(Files.exists(compilation.classes().resolve("game/LegacyConfig_ConfigBinder.java")));
+        String notes = compilation.diagnostics().stream()
+                .filter(d -> d.getKind() == Diagnostic.Kind.NOTE)
+                .map(d -> d.getMessage(Locale.ROOT))
+                .collect(Collectors.joining("\n"));
+        assertTrue(notes.contains("arenaSize is private or final, LegacyConfig will be bound by reflection"), notes);
+
+        Path file = directory.resolve("legacy.yml");
+        Files.writeString(file, "maps: [castle]\n");
+        Object config = load(compilation, "game.LegacyConfig", file);
+        assertEquals(32, config.getClass().getMethod("arenaSize").invoke(config));
+        assertEquals(List.of("castle"), field(config, "maps"));
+    }
+
+    @Test
+    void invalidConfigsFailToCompile() throws Exception {
+        Compilation compilation = compile("game.BrokenConfig", """
+                package game;
+
+                import fr.panncake.pannlib.config.AbstractConfig;
+                import fr.panncake.pannlib.config.annotations.ConfigPath;
+                import fr.panncake.pannlib.config.annotations.ConfigSection;
+                import fr.panncake.pannlib.config.annotations.DefaultValue;
+
+                import java.nio.file.Path;
+                import java.util.concurrent.atomic.AtomicInteger;
+
+                public class BrokenConfig extends AbstractConfig {
+                    @ConfigSection
+                    public static class Arena {
+                        private int hidden;
+                        public AtomicInteger counter;
+                    }
+
+                    @ConfigPath("arena")
+                    public Arena arena;
+                    @ConfigPath("size")
+                    @DefaultValue("big")
+                    public int size;
+
+                    public BrokenConfig(Path file) {
+                        super(file);
+                    }
+                }
+                """);
+
+        assertFalse(compilation.success());
+        String errors = compilation.errors();
+        assertTrue(errors.contains("hidden must not be private or final"), errors);
+        assertTrue(errors.contains("Unsupported config type java.util.concurrent.atomic.AtomicInteger"), errors);
+        assertTrue(errors.contains("Invalid default value"), errors);
+        assertFalse(Files.exists(compilation.classes().resolve("game/BrokenConfig_ConfigBinder.java")));
+    }
+}
@@ -0,0 +1,24 @@
+plugins {
+    id("java")
+    id("application")
+}
+
+dependencies {
+    implementation(project(":pannlib-orm"))
+    implementation("com.google.code.gson:gson:2.11.0")
+
+    compileOnly("org.projectlombok:lombok:1.18.34")
+    annotationProcessor("org.projectlombok:lombok:1.18.34")
+
+    testImplementation(platform("org.junit:junit-bom:5.10.3"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+}
+
+tasks.test {
+    useJUnitPlatform()
+}
+
+application {
+    mainClass.set("fr.panncake.pannlib.loadtest.LoadTest")
+}
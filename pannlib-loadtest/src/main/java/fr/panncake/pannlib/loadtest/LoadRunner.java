@@ -0,0 +1,144 @@
+package fr.panncake.pannlib.loadtest;
+
+import fr.panncake.pannlib.orm.connection.ConnectionManager;
+import fr.panncake.pannlib.orm.connection.PoolStats;
+import fr.panncake.pannlib.orm.session.EntityManager;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+final class LoadRunner {
+    private static final List<String> OPERATIONS = List.of("join", "update", "quit");
+
+    private final LoadTestConfig config;
+    private final ConnectionManager connectionManager;
+    private final EntityManager entityManager;
+    private final Map<String, OperationStats> stats = new LinkedHashMap<>();
+    private final OperationStats total = new OperationStats();
+    private final Map<String, LongAdder> errorTypes = new ConcurrentHashMap<>();
+    private final AtomicInteger online = new AtomicInteger();
+    private final AtomicInteger peakOnline = new AtomicInteger();
+    private final CountDownLatch remaining;
+    private volatile long deadline;
+
+    LoadRunner(LoadTestConfig config, ConnectionManager connectionManager, EntityManager entityManager) {
+        this.config = config;
+        this.connectionManager = connectionManager;
+        this.entityManager = entityManager;
+        this.remaining = new CountDownLatch(config.players());
+        OPERATIONS.forEach(name -> stats.put(name, new OperationStats()));
+    }
+
+    Map<String, Object> run() throws InterruptedException {
+        long start = System.nanoTime();
+        deadline = System.currentTimeMillis() + config.durationMillis();
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(config.threads(), r -> {
+            Thread thread = new Thread(r, "loadtest-worker-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (int i = 0; i < config.players(); i++) {
+                new VirtualPlayer(i, entityManager, config, this, scheduler).start();
+            }
+            remaining.await();
+        } finally {
+            scheduler.shutdownNow();
+        }
+        return report((System.nanoTime() - start) / 1_000_000_000.0);
+    }
+
+    boolean isFinished() {
+        return System.currentTimeMillis() >= deadline;
+    }
+
+    void playerJoined() {
+        peakOnline.accumulateAndGet(online.incrementAndGet(), Math::max);
+    }
+
+    void playerLeft() {
+        online.decrementAndGet();
+    }
+
+    void playerDone() {
+        remaining.countDown();
+    }
+
+    <T> T measure(String operation, Supplier<T> action) {
+        OperationStats operationStats = stats.get(operation);
+        long start = System.nanoTime();
+        try {
+            T result = action.get();
+            long elapsed = System.nanoTime() - start;
+            operationStats.success(elapsed);
+            total.success(elapsed);
+            return result;
+        } catch (RuntimeException e) {
+            operationStats.failure();
+            total.failure();
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            errorTypes.computeIfAbsent(cause.getClass().getSimpleName(), k -> new LongAdder()).increment();
+            throw new OperationFailedException(e);
+        }
+    }
+
+    private Map<String, Object> report(double elapsedSeconds) {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("jdbcUrl", config.jdbcUrl());
+        settings.put("players", config.players());
+        settings.put("threads", config.threads());
+        settings.put("rampUpMillis", config.rampUpMillis());
+        settings.put("durationMillis", config.durationMillis());
+        settings.put("sessionMillis", config.sessionMillis());
+        settings.put("updateIntervalMillis", config.updateIntervalMillis());
+        settings.put("maxPoolSize", config.maxPoolSize());
+
+        Map<String, Object> operations = new LinkedHashMap<>();
+        stats.forEach((name, operationStats) -> operations.put(name, operationStats.toReport(elapsedSeconds)));
+
+        Map<String, Object> errors = new LinkedHashMap<>();
+        errorTypes.forEach((type, count) -> errors.put(type, count.sum()));
+
+        Map<String, Object> pool = new LinkedHashMap<>();
+        pool.put("write", poolReport(connectionManager.getPoolStats()));
+        if (connectionManager.getReadDataSource() != connectionManager.getDataSource()) {
+            pool.put("read", poolReport(connectionManager.getReadPoolStats()));
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("config", settings);
+        report.put("elapsedSeconds", elapsedSeconds);
+        report.put("peakOnlinePlayers", peakOnline.get());
+        report.put("total", total.toReport(elapsedSeconds));
+        report.put("operations", operations);
+        report.put("pool", pool);
+        report.put("errorTypes", errors);
+        report.put("timedOutOperations", entityManager.getTimedOutCount());
+        return report;
+    }
+
+    private static Map<String, Object> poolReport(PoolStats poolStats) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("acquisitions", poolStats.acquisitions());
+        report.put("averageWaitMillis", poolStats.averageWaitMillis());
+        report.put("maxWaitMillis", poolStats.maxWaitNanos() / 1_000_000.0);
+        report.put("timeouts", poolStats.timeouts());
+        return report;
+    }
+
+    static final class OperationFailedException extends RuntimeException {
+        OperationFailedException(Throwable cause) {
+            super(cause);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package fr.panncake.pannlib.loadtest;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import fr.panncake.pannlib.orm.config.DatabaseConfig;
+import fr.panncake.pannlib.orm.config.DatabaseType;
+import fr.panncake.pannlib.orm.connection.ConnectionManager;
+import fr.panncake.pannlib.orm.session.EntityManager;
+
+import java.nio.file.Files;
+import java.util.Map;
+
+public final class LoadTest {
+
+    private LoadTest() {}
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromArgs(args);
+        ConnectionManager.initialize(DatabaseConfig.builder()
+                .type(DatabaseType.fromJdbcUrl(config.jdbcUrl()))
+                .jdbcUrl(config.jdbcUrl())
+                .username(config.username())
+                .password(config.password())
+                .maxPoolSize(config.maxPoolSize())
+                .connectionTimeout(config.connectionTimeout())
+                .autoCommit(true)
+                .build());
+
+        ConnectionManager connectionManager = ConnectionManager.getInstance();
+        EntityManager entityManager = new EntityManager(connectionManager);
+        Map<String, Object> report;
+        try {
+            entityManager.createTable(PlayerProfile.class);
+            entityManager.createTable(PlayerSession.class);
+            report = new LoadRunner(config, connectionManager, entityManager).run();
+        } finally {
+            entityManager.shutdown();
+            connectionManager.shutdown();
+        }
+
+        Gson gson = new GsonBuilder().setPrettyPrinting().serializeSpecialFloatingPointValues().create();
+        String json = gson.toJson(report);
+        if (config.output() != null) {
+            Files.writeString(config.output(), json);
+        }
+        System.out.println(json);
+    }
+}
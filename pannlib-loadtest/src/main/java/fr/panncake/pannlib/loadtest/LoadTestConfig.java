@@ -0,0 +1,59 @@
+package fr.panncake.pannlib.loadtest;
+
+import lombok.Builder;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+@Builder
+public record LoadTestConfig(String jdbcUrl, String username, String password, int players, int threads,
+                             long rampUpMillis, long durationMillis, long sessionMillis, long updateIntervalMillis,
+                             int maxPoolSize, long connectionTimeout, Path output) {
+    public LoadTestConfig {
+        if (jdbcUrl == null) jdbcUrl = "jdbc:sqlite:loadtest.db";
+        if (players <= 0) players = 100;
+        if (rampUpMillis < 0) rampUpMillis = 0;
+        if (durationMillis <= 0) durationMillis = 60_000;
+        if (sessionMillis <= 0) sessionMillis = 10_000;
+        if (updateIntervalMillis <= 0) updateIntervalMillis = 1_000;
+        if (maxPoolSize <= 0) maxPoolSize = 10;
+        if (connectionTimeout <= 0) connectionTimeout = 30_000;
+        if (threads <= 0) threads = Math.max(2 * maxPoolSize, Runtime.getRuntime().availableProcessors());
+    }
+
+    public static LoadTestConfig fromArgs(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return LoadTestConfig.builder()
+                .jdbcUrl(options.get("url"))
+                .username(options.get("user"))
+                .password(options.get("password"))
+                .players(intOption(options, "players", 100))
+                .threads(intOption(options, "threads", 0))
+                .rampUpMillis(longOption(options, "ramp-up-ms", 10_000))
+                .durationMillis(longOption(options, "duration-ms", 60_000))
+                .sessionMillis(longOption(options, "session-ms", 10_000))
+                .updateIntervalMillis(longOption(options, "update-interval-ms", 1_000))
+                .maxPoolSize(intOption(options, "pool-size", 10))
+                .connectionTimeout(longOption(options, "connection-timeout-ms", 30_000))
+                .output(options.containsKey("out") ? Path.of(options.get("out")) : null)
+                .build();
+    }
+
+    private static int intOption(Map<String, String> options, String name, int fallback) {
+        String value = options.get(name);
+        return value == null ? fallback : Integer.parseInt(value);
+    }
+
+    private static long longOption(Map<String, String> options, String name, long fallback) {
+        String value = options.get(name);
+        return value == null ? fallback : Long.parseLong(value);
+    }
+}
@@ -0,0 +1,38 @@
+package fr.panncake.pannlib.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+final class OperationStats {
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+
+    void success(long nanos) {
+        latency.record(nanos);
+    }
+
+    void failure() {
+        errors.increment();
+    }
+
+    Map<String, Object> toReport(double elapsedSeconds) {
+        long count = latency.count();
+        long failed = errors.sum();
+        Map<String, Object> latencyMicros = new LinkedHashMap<>();
+        latencyMicros.put("mean", Math.round(latency.meanMicros()));
+        latencyMicros.put("p50", latency.percentileMicros(50));
+        latencyMicros.put("p90", latency.percentileMicros(90));
+        latencyMicros.put("p99", latency.percentileMicros(99));
+        latencyMicros.put("p999", latency.percentileMicros(99.9));
+        latencyMicros.put("max", latency.maxMicros());
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("count", count);
+        report.put("errors", failed);
+        report.put("errorRate", count + failed == 0 ? 0.0 : failed / (double) (count + failed));
+        report.put("throughputPerSecond", elapsedSeconds == 0 ? 0.0 : count / elapsedSeconds);
+        report.put("latencyMicros", latencyMicros);
+        return report;
+    }
+}
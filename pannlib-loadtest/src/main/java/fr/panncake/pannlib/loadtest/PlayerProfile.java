@@ -0,0 +1,50 @@
+package fr.panncake.pannlib.loadtest;
+
+import fr.panncake.pannlib.orm.annotations.Column;
+import fr.panncake.pannlib.orm.annotations.Entity;
+import fr.panncake.pannlib.orm.annotations.Id;
+
+import java.util.UUID;
+
+@Entity(tableName = "loadtest_players")
+public class PlayerProfile {
+    @Id(autoIncrement = false)
+    private UUID id;
+
+    @Column(length = 16)
+    private String name;
+
+    @Column
+    private long coins;
+
+    @Column
+    private int level;
+
+    @Column
+    private long playTimeMillis;
+
+    @Column
+    private long lastSeen;
+
+    public PlayerProfile() {
+    }
+
+    PlayerProfile(UUID id, String name) {
+        this.id = id;
+        this.name = name;
+        this.level = 1;
+    }
+
+    long getCoins() {
+        return coins;
+    }
+
+    void tick(long elapsedMillis) {
+        coins += 10;
+        playTimeMillis += elapsedMillis;
+        if (coins % 500 == 0) {
+            level++;
+        }
+        lastSeen = System.currentTimeMillis();
+    }
+}
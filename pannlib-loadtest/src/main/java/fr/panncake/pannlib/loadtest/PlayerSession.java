@@ -0,0 +1,35 @@
+package fr.panncake.pannlib.loadtest;
+
+import fr.panncake.pannlib.orm.annotations.Column;
+import fr.panncake.pannlib.orm.annotations.Entity;
+import fr.panncake.pannlib.orm.annotations.Id;
+
+import java.util.UUID;
+
+@Entity(tableName = "loadtest_sessions")
+public class PlayerSession {
+    @Id
+    private long id;
+
+    @Column(nullable = false)
+    private UUID playerId;
+
+    @Column
+    private long joinedAt;
+
+    @Column
+    private long durationMillis;
+
+    @Column
+    private long coinsEarned;
+
+    public PlayerSession() {
+    }
+
+    PlayerSession(UUID playerId, long joinedAt, long durationMillis, long coinsEarned) {
+        this.playerId = playerId;
+        this.joinedAt = joinedAt;
+        this.durationMillis = durationMillis;
+        this.coinsEarned = coinsEarned;
+    }
+}
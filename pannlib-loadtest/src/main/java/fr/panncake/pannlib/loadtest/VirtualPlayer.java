@@ -0,0 +1,129 @@
+package fr.panncake.pannlib.loadtest;
+
+import fr.panncake.pannlib.orm.session.EntityManager;
+import fr.panncake.pannlib.orm.transaction.TransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+final class VirtualPlayer {
+    private final int index;
+    private final UUID id;
+    private final EntityManager entityManager;
+    private final LoadTestConfig config;
+    private final LoadRunner runner;
+    private final ScheduledExecutorService scheduler;
+    private PlayerProfile profile;
+    private boolean persisted;
+    private long joinedAt;
+    private long sessionEnd;
+    private long coinsAtJoin;
+
+    VirtualPlayer(int index, EntityManager entityManager, LoadTestConfig config, LoadRunner runner,
+                  ScheduledExecutorService scheduler) {
+        this.index = index;
+        this.id = UUID.nameUUIDFromBytes(("loadtest-player-" + index).getBytes(StandardCharsets.UTF_8));
+        this.entityManager = entityManager;
+        this.config = config;
+        this.runner = runner;
+        this.scheduler = scheduler;
+    }
+
+    void start() {
+        schedule(this::join, config.rampUpMillis() * index / config.players());
+    }
+
+    private void join() {
+        if (runner.isFinished()) {
+            runner.playerDone();
+            return;
+        }
+        try {
+            PlayerProfile loaded = runner.measure("join", () -> entityManager.find(PlayerProfile.class, id));
+            if (loaded != null) {
+                profile = loaded;
+                persisted = true;
+            } else if (profile == null) {
+                profile = new PlayerProfile(id, "p" + index);
+            }
+        } catch (LoadRunner.OperationFailedException e) {
+            schedule(this::join, pause());
+            return;
+        }
+        runner.playerJoined();
+        joinedAt = System.currentTimeMillis();
+        sessionEnd = joinedAt + config.sessionMillis() * (75 + ThreadLocalRandom.current().nextInt(51)) / 100;
+        coinsAtJoin = profile.getCoins();
+        schedule(this::update, config.updateIntervalMillis());
+    }
+
+    private void update() {
+        if (System.currentTimeMillis() >= sessionEnd || runner.isFinished()) {
+            quit();
+            return;
+        }
+        profile.tick(config.updateIntervalMillis());
+        try {
+            runner.measure("update", () -> {
+                save();
+                return null;
+            });
+        } catch (LoadRunner.OperationFailedException ignored) {
+        }
+        schedule(this::update, config.updateIntervalMillis());
+    }
+
+    private void quit() {
+        profile.tick(0);
+        long now = System.currentTimeMillis();
+        PlayerSession session = new PlayerSession(id, joinedAt, now - joinedAt, profile.getCoins() - coinsAtJoin);
+        try {
+            runner.measure("quit", () -> {
+                TransactionManager.requireTransaction(() -> {
+                    save();
+                    entityManager.persist(session);
+                });
+                return null;
+            });
+        } catch (LoadRunner.OperationFailedException ignored) {
+        } finally {
+            runner.playerLeft();
+        }
+        if (runner.isFinished()) {
+            runner.playerDone();
+        } else {
+            schedule(this::join, pause());
+        }
+    }
+
+    private void save() {
+        if (persisted) {
+            entityManager.update(profile);
+        } else {
+            entityManager.persist(profile);
+            if (TransactionManager.hasTransaction()) {
+                TransactionManager.currentTransaction().onCommit(() -> persisted = true);
+            } else {
+                persisted = true;
+            }
+        }
+    }
+
+    private long pause() {
+        return ThreadLocalRandom.current().nextLong(config.updateIntervalMillis() + 1);
+    }
+
+    private void schedule(Runnable step, long delayMillis) {
+        scheduler.schedule(() -> {
+            try {
+                step.run();
+            } catch (RuntimeException e) {
+                runner.playerDone();
+                throw e;
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,67 @@
+package fr.panncake.pannlib.loadtest;
+
+import fr.panncake.pannlib.orm.config.DatabaseConfig;
+import fr.panncake.pannlib.orm.config.DatabaseType;
+import fr.panncake.pannlib.orm.connection.ConnectionManager;
+import fr.panncake.pannlib.orm.session.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadRunnerTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void defaultsThreadsFromPoolSize() {
+        LoadTestConfig config = LoadTestConfig.fromArgs(new String[]{"--players=1000", "--pool-size=8"});
+        assertEquals(1000, config.players());
+        assertTrue(config.threads() >= 16);
+        assertEquals(4, LoadTestConfig.fromArgs(new String[]{"--threads=4"}).threads());
+        assertThrows(IllegalArgumentException.class, () -> LoadTestConfig.fromArgs(new String[]{"players=3"}));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void manyPlayersShareFewThreadsAndQuitPersistsSessions() throws InterruptedException {
+        LoadTestConfig config = LoadTestConfig.builder()
+                .jdbcUrl("jdbc:sqlite:" + directory.resolve("load.db"))
+                .players(50)
+                .threads(2)
+                .rampUpMillis(100)
+                .durationMillis(1_500)
+                .sessionMillis(300)
+                .updateIntervalMillis(50)
+                .build();
+        ConnectionManager.initialize(DatabaseConfig.builder()
+                .type(DatabaseType.SQLITE)
+                .jdbcUrl(config.jdbcUrl())
+                .connectionTimeout(5_000)
+                .autoCommit(true)
+                .build());
+        ConnectionManager connectionManager = ConnectionManager.getInstance();
+        EntityManager entityManager = new EntityManager(connectionManager);
+        try {
+            entityManager.createTable(PlayerProfile.class);
+            entityManager.createTable(PlayerSession.class);
+
+            Map<String, Object> report = new LoadRunner(config, connectionManager, entityManager).run();
+
+            Map<String, Object> operations = (Map<String, Object>) report.get("operations");
+            Map<String, Object> quit = (Map<String, Object>) operations.get("quit");
+            long quits = ((Number) quit.get("count")).longValue();
+            assertTrue(quits > 0);
+            assertEquals(quits, entityManager.count(PlayerSession.class));
+            assertEquals(50, entityManager.count(PlayerProfile.class));
+            assertTrue((Integer) report.get("peakOnlinePlayers") > config.threads());
+            assertTrue(((Map<String, Object>) report.get("errorTypes")).isEmpty());
+        } finally {
+            entityManager.shutdown();
+            connectionManager.shutdown();
+        }
+    }
+}
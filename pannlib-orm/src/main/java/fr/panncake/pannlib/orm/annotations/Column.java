@@ -13,4 +13,5 @@ public @interface Column {
     int length() default 255;
     boolean unique() default false;
     boolean primaryKey() default false;
+    UuidStorage uuidStorage() default UuidStorage.DEFAULT;
 }
@@ -0,0 +1,15 @@
+package fr.panncake.pannlib.orm.annotations;
+
+import fr.panncake.pannlib.orm.converter.AttributeConverter;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Convert {
+    @SuppressWarnings("rawtypes")
+    Class<? extends AttributeConverter> value();
+}
@@ -0,0 +1,6 @@
+package fr.panncake.pannlib.orm.annotations;
+
+public enum EnumStorage {
+    NAME,
+    ORDINAL
+}
@@ -0,0 +1,12 @@
+package fr.panncake.pannlib.orm.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Enumerated {
+    EnumStorage value() default EnumStorage.NAME;
+}
@@ -0,0 +1,60 @@
+package fr.panncake.pannlib.orm.annotations;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+
+public enum PartitionInterval {
+    HOUR("yyyyMMddHH"),
+    DAY("yyyyMMdd"),
+    MONTH("yyyyMM");
+
+    private final DateTimeFormatter formatter;
+    private final int suffixLength;
+
+    PartitionInterval(String pattern) {
+        this.formatter = DateTimeFormatter.ofPattern(pattern).withZone(ZoneOffset.UTC);
+        this.suffixLength = pattern.length();
+    }
+
+    public Instant floor(Instant instant) {
+        LocalDateTime time = LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+        LocalDateTime floored = switch (this) {
+            case HOUR -> time.truncatedTo(ChronoUnit.HOURS);
+            case DAY -> time.truncatedTo(ChronoUnit.DAYS);
+            case MONTH -> time.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+        };
+        return floored.toInstant(ZoneOffset.UTC);
+    }
+
+    public Instant next(Instant start) {
+        LocalDateTime time = LocalDateTime.ofInstant(start, ZoneOffset.UTC);
+        LocalDateTime next = switch (this) {
+            case HOUR -> time.plusHours(1);
+            case DAY -> time.plusDays(1);
+            case MONTH -> time.plusMonths(1);
+        };
+        return next.toInstant(ZoneOffset.UTC);
+    }
+
+    public String suffix(Instant start) {
+        return formatter.format(start);
+    }
+
+    public Instant parseSuffix(String suffix) {
+        if (suffix.length() != suffixLength) {
+            return null;
+        }
+        try {
+            int year = Integer.parseInt(suffix.substring(0, 4));
+            int month = Integer.parseInt(suffix.substring(4, 6));
+            int day = this == MONTH ? 1 : Integer.parseInt(suffix.substring(6, 8));
+            int hour = this == HOUR ? Integer.parseInt(suffix.substring(8, 10)) : 0;
+            return LocalDateTime.of(year, month, day, hour, 0).toInstant(ZoneOffset.UTC);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package fr.panncake.pannlib.orm.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface TimePartitioned {
+    String column();
+    PartitionInterval interval() default PartitionInterval.DAY;
+    int precreate() default 3;
+}
@@ -0,0 +1,7 @@
+package fr.panncake.pannlib.orm.annotations;
+
+public enum UuidStorage {
+    DEFAULT,
+    STRING,
+    BINARY
+}
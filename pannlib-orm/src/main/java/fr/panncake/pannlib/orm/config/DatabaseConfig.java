@@ -1,11 +1,27 @@
 package fr.panncake.pannlib.orm.config;
 
+import fr.panncake.pannlib.orm.annotations.UuidStorage;
 import lombok.Builder;
 
 @Builder
 public record DatabaseConfig(DatabaseType type, String host, int port, String database, String username,
-                             String password, int maxPoolSize, long connectionTimeout, boolean autoCommit) {
+                             String password, int maxPoolSize, long connectionTimeout, boolean autoCommit,
+                             long queryTimeoutMillis, UuidStorage uuidStorage, GroupCommitConfig groupCommit,
+                             JournalConfig journal, SqliteConfig sqlite, QueryCacheConfig queryCache,
+                             ProfilerConfig profiler, String jdbcUrl) {
+    public DatabaseConfig {
+        if (uuidStorage == null || uuidStorage == UuidStorage.DEFAULT) {
+            uuidStorage = UuidStorage.STRING;
+        }
+        if (sqlite == null && type == DatabaseType.SQLITE) {
+            sqlite = SqliteConfig.defaults();
+        }
+    }
+
     public String getJdbcUrl() {
+        if (jdbcUrl != null) {
+            return jdbcUrl;
+        }
         return switch (type) {
             case MYSQL -> String.format("jdbc:mysql://%s:%d/%s?useSSL=false&allowPublicKeyRetrieval=true", host, port, database);
             case POSTGRESQL -> String.format("jdbc:postgresql://%s:%d/%s", host, port, database);
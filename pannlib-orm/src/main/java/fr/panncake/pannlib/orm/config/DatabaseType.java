@@ -14,4 +14,11 @@ public enum DatabaseType {
         this.driverClass = driverClass;
     }
 
+    public static DatabaseType fromJdbcUrl(String jdbcUrl) {
+        if (jdbcUrl.startsWith("jdbc:mysql:") || jdbcUrl.startsWith("jdbc:mariadb:")) return MYSQL;
+        if (jdbcUrl.startsWith("jdbc:postgresql:")) return POSTGRESQL;
+        if (jdbcUrl.startsWith("jdbc:sqlite:")) return SQLITE;
+        throw new IllegalArgumentException("Unsupported JDBC URL: " + jdbcUrl);
+    }
+
 }
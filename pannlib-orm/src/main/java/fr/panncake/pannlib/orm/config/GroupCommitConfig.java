@@ -0,0 +1,11 @@
+package fr.panncake.pannlib.orm.config;
+
+import lombok.Builder;
+
+@Builder
+public record GroupCommitConfig(long windowMillis, int maxBatchSize) {
+    public GroupCommitConfig {
+        if (windowMillis <= 0) windowMillis = 2;
+        if (maxBatchSize <= 0) maxBatchSize = 64;
+    }
+}
@@ -0,0 +1,15 @@
+package fr.panncake.pannlib.orm.config;
+
+import lombok.Builder;
+
+import java.nio.file.Path;
+
+@Builder
+public record JournalConfig(Path directory, long segmentSize, int replayBatchSize, long replayIntervalMillis) {
+    public JournalConfig {
+        if (directory == null) directory = Path.of("journal");
+        if (segmentSize <= 0) segmentSize = 16L * 1024 * 1024;
+        if (replayBatchSize <= 0) replayBatchSize = 256;
+        if (replayIntervalMillis <= 0) replayIntervalMillis = 200;
+    }
+}
@@ -0,0 +1,16 @@
+package fr.panncake.pannlib.orm.config;
+
+import lombok.Builder;
+
+import java.nio.file.Path;
+
+@Builder
+public record ProfilerConfig(int repeatThreshold, long largeTableRows, int explainTopShapes, long implicitScopeMillis,
+                             Path reportFile) {
+    public ProfilerConfig {
+        if (repeatThreshold <= 1) repeatThreshold = 5;
+        if (largeTableRows <= 0) largeTableRows = 10_000;
+        if (explainTopShapes <= 0) explainTopShapes = 5;
+        if (implicitScopeMillis <= 0) implicitScopeMillis = 100;
+    }
+}
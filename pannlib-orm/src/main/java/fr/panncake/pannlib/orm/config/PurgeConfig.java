@@ -0,0 +1,12 @@
+package fr.panncake.pannlib.orm.config;
+
+import lombok.Builder;
+
+@Builder
+public record PurgeConfig(int chunkSize, long pauseMillis, long intervalMillis) {
+    public PurgeConfig {
+        if (chunkSize <= 0) chunkSize = 1000;
+        if (pauseMillis < 0) pauseMillis = 50;
+        if (intervalMillis <= 0) intervalMillis = 60_000;
+    }
+}
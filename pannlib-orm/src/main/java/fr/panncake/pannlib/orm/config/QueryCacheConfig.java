@@ -0,0 +1,12 @@
+package fr.panncake.pannlib.orm.config;
+
+import lombok.Builder;
+
+@Builder
+public record QueryCacheConfig(int maxEntries, long maxRows, long ttlMillis) {
+    public QueryCacheConfig {
+        if (maxEntries <= 0) maxEntries = 1024;
+        if (maxRows <= 0) maxRows = 100_000;
+        if (ttlMillis <= 0) ttlMillis = 60_000;
+    }
+}
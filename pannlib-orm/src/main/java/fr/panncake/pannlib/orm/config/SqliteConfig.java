@@ -0,0 +1,17 @@
+package fr.panncake.pannlib.orm.config;
+
+import lombok.Builder;
+
+@Builder
+public record SqliteConfig(int readerPoolSize, long mmapSize, int cacheSizeKib, int busyTimeoutMillis) {
+    public SqliteConfig {
+        if (readerPoolSize <= 0) readerPoolSize = Math.max(2, Runtime.getRuntime().availableProcessors());
+        if (mmapSize <= 0) mmapSize = 256L * 1024 * 1024;
+        if (cacheSizeKib <= 0) cacheSizeKib = 16 * 1024;
+        if (busyTimeoutMillis <= 0) busyTimeoutMillis = 5_000;
+    }
+
+    public static SqliteConfig defaults() {
+        return SqliteConfig.builder().build();
+    }
+}
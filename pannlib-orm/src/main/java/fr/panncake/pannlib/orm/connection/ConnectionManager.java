@@ -2,33 +2,73 @@ package fr.panncake.pannlib.orm.connection;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 import fr.panncake.pannlib.orm.config.DatabaseConfig;
+import fr.panncake.pannlib.orm.config.DatabaseType;
+import fr.panncake.pannlib.orm.config.SqliteConfig;
 import fr.panncake.pannlib.orm.exception.DatabaseException;
+import lombok.AccessLevel;
 import lombok.Getter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 @Getter
 public final class ConnectionManager {
     private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionManager.class);
     private static ConnectionManager instance;
     private final HikariDataSource dataSource;
+    private final HikariDataSource readDataSource;
+    private final DatabaseConfig config;
+    @Getter(AccessLevel.NONE)
+    private final PoolMetrics writeMetrics = new PoolMetrics();
+    @Getter(AccessLevel.NONE)
+    private final PoolMetrics readMetrics;
+    @Getter(AccessLevel.NONE)
+    private final List<Runnable> transactionStartListeners = new CopyOnWriteArrayList<>();
 
     private ConnectionManager(DatabaseConfig config) {
-        HikariConfig hikariConfig = new HikariConfig();
-        hikariConfig.setJdbcUrl(config.getJdbcUrl());
-        hikariConfig.setUsername(config.username());
-        hikariConfig.setPassword(config.password());
-        hikariConfig.setMaximumPoolSize(config.maxPoolSize());
-        hikariConfig.setConnectionTimeout(config.connectionTimeout());
-        hikariConfig.setAutoCommit(config.autoCommit());
-        hikariConfig.setDriverClassName(config.type().getDriverClass());
+        this.config = config;
+
+        if (config.type() == DatabaseType.SQLITE) {
+            SqliteConfig sqlite = config.sqlite();
+            boolean inMemory = isInMemory(config.getJdbcUrl());
+            this.readMetrics = inMemory ? writeMetrics : new PoolMetrics();
+            HikariConfig writerConfig = baseConfig(config, "PannORM-SQLite-Writer");
+            writerConfig.setMetricsTrackerFactory(writeMetrics);
+            writerConfig.setMaximumPoolSize(1);
+            if (inMemory) {
+                writerConfig.setMaxLifetime(0);
+            }
+            applyPragmas(writerConfig, sqlite);
+            this.dataSource = new HikariDataSource(writerConfig);
 
-        this.dataSource = new HikariDataSource(hikariConfig);
-        LOGGER.info("Connection pool initialized for {}", config.type());
+            if (inMemory) {
+                this.readDataSource = dataSource;
+                LOGGER.info("Connection pool initialized for in-memory SQLITE (1 shared connection)");
+                return;
+            }
+            HikariConfig readerConfig = baseConfig(config, "PannORM-SQLite-Reader");
+            readerConfig.setMaximumPoolSize(sqlite.readerPoolSize());
+            readerConfig.setMetricsTrackerFactory(readMetrics);
+            readerConfig.setAutoCommit(true);
+            applyPragmas(readerConfig, sqlite);
+            readerConfig.setConnectionInitSql("PRAGMA query_only = 1");
+            this.readDataSource = new HikariDataSource(readerConfig);
+            LOGGER.info("Connection pool initialized for SQLITE (1 writer, {} readers, WAL)", sqlite.readerPoolSize());
+        } else {
+            this.readMetrics = writeMetrics;
+            HikariConfig hikariConfig = baseConfig(config, null);
+            hikariConfig.setMaximumPoolSize(config.maxPoolSize());
+            hikariConfig.setMetricsTrackerFactory(writeMetrics);
+            this.dataSource = new HikariDataSource(hikariConfig);
+            this.readDataSource = dataSource;
+            LOGGER.info("Connection pool initialized for {}", config.type());
+        }
     }
 
     public static synchronized void initialize(DatabaseConfig config) {
@@ -38,6 +78,10 @@ public final class ConnectionManager {
         instance = new ConnectionManager(config);
     }
 
+    public static ConnectionManager create(DatabaseConfig config) {
+        return new ConnectionManager(config);
+    }
+
     public static ConnectionManager getInstance() {
         if (instance == null) {
             throw new IllegalStateException("ConnectionManager not initialized");
@@ -53,10 +97,76 @@ public final class ConnectionManager {
         }
     }
 
+    public Connection getReadConnection() throws SQLException {
+        try {
+            return readDataSource.getConnection();
+        } catch (SQLException e) {
+            throw new DatabaseException("Failed to obtain read connection", e);
+        }
+    }
+
+    public void addTransactionStartListener(Runnable listener) {
+        transactionStartListeners.add(listener);
+    }
+
+    public void removeTransactionStartListener(Runnable listener) {
+        transactionStartListeners.remove(listener);
+    }
+
+    public void fireTransactionStart() {
+        transactionStartListeners.forEach(Runnable::run);
+    }
+
+    public PoolStats getPoolStats() {
+        return poolStats(dataSource, writeMetrics);
+    }
+
+    public PoolStats getReadPoolStats() {
+        return poolStats(readDataSource, readMetrics);
+    }
+
+    private static PoolStats poolStats(HikariDataSource source, PoolMetrics metrics) {
+        HikariPoolMXBean pool = source.getHikariPoolMXBean();
+        return new PoolStats(metrics.acquisitions(), metrics.totalWaitNanos(), metrics.maxWaitNanos(), metrics.timeouts(),
+                pool != null ? pool.getActiveConnections() : 0,
+                pool != null ? pool.getIdleConnections() : 0,
+                pool != null ? pool.getThreadsAwaitingConnection() : 0);
+    }
+
     public void shutdown() {
+        if (readDataSource != null && readDataSource != dataSource && !readDataSource.isClosed()) {
+            readDataSource.close();
+        }
         if (dataSource != null && !dataSource.isClosed()) {
             dataSource.close();
             LOGGER.info("Connection pool shut down");
         }
     }
+
+    private static HikariConfig baseConfig(DatabaseConfig config, String poolName) {
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setJdbcUrl(config.getJdbcUrl());
+        hikariConfig.setUsername(config.username());
+        hikariConfig.setPassword(config.password());
+        hikariConfig.setConnectionTimeout(config.connectionTimeout());
+        hikariConfig.setAutoCommit(config.autoCommit());
+        hikariConfig.setDriverClassName(config.type().getDriverClass());
+        if (poolName != null) {
+            hikariConfig.setPoolName(poolName);
+        }
+        return hikariConfig;
+    }
+
+    private static boolean isInMemory(String jdbcUrl) {
+        return jdbcUrl.contains(":memory:") || jdbcUrl.contains("mode=memory");
+    }
+
+    private static void applyPragmas(HikariConfig hikariConfig, SqliteConfig sqlite) {
+        hikariConfig.addDataSourceProperty("journal_mode", "WAL");
+        hikariConfig.addDataSourceProperty("synchronous", "NORMAL");
+        hikariConfig.addDataSourceProperty("temp_store", "MEMORY");
+        hikariConfig.addDataSourceProperty("mmap_size", String.valueOf(sqlite.mmapSize()));
+        hikariConfig.addDataSourceProperty("cache_size", String.valueOf(-sqlite.cacheSizeKib()));
+        hikariConfig.addDataSourceProperty("busy_timeout", String.valueOf(sqlite.busyTimeoutMillis()));
+    }
 }
@@ -0,0 +1,9 @@
+package fr.panncake.pannlib.orm.connection;
+
+public record PoolStats(long acquisitions, long totalWaitNanos, long maxWaitNanos, long timeouts,
+                        int activeConnections, int idleConnections, int threadsAwaiting) {
+
+    public double averageWaitMillis() {
+        return acquisitions == 0 ? 0 : totalWaitNanos / (double) acquisitions / 1_000_000.0;
+    }
+}
@@ -0,0 +1,16 @@
+package fr.panncake.pannlib.orm.converter;
+
+import fr.panncake.pannlib.orm.config.DatabaseType;
+
+public interface AttributeConverter<X, Y> {
+
+    Y toDatabase(X value);
+
+    X fromDatabase(Y value);
+
+    Class<Y> databaseType();
+
+    default String sqlType(DatabaseType databaseType) {
+        return null;
+    }
+}
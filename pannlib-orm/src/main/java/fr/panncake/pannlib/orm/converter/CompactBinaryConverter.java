@@ -0,0 +1,335 @@
+package fr.panncake.pannlib.orm.converter;
+
+import fr.panncake.pannlib.orm.config.DatabaseType;
+import fr.panncake.pannlib.orm.exception.DatabaseException;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+public final class CompactBinaryConverter implements AttributeConverter<Object, byte[]> {
+    private static final byte NULL = 0;
+    private static final byte FALSE = 1;
+    private static final byte TRUE = 2;
+    private static final byte INT = 3;
+    private static final byte LONG = 4;
+    private static final byte FLOAT = 5;
+    private static final byte DOUBLE = 6;
+    private static final byte STRING = 7;
+    private static final byte BYTES = 8;
+    private static final byte UUID_TAG = 9;
+    private static final byte LIST = 10;
+    private static final byte MAP = 11;
+    private static final byte SET = 12;
+    private static final byte INSTANT = 13;
+    private static final byte LOCAL_DATE_TIME = 14;
+    private static final byte LOCAL_DATE = 15;
+    private static final byte LOCAL_TIME = 16;
+    private static final byte BIG_DECIMAL = 17;
+    private static final byte SHORT = 18;
+    private static final byte BYTE = 19;
+
+    private final Class<?> declaredType;
+
+    public CompactBinaryConverter() {
+        this(Object.class);
+    }
+
+    public CompactBinaryConverter(Field field) {
+        this(field.getType());
+    }
+
+    public CompactBinaryConverter(Class<?> declaredType) {
+        this.declaredType = declaredType;
+    }
+
+    @Override
+    public byte[] toDatabase(Object value) {
+        if (value == null) return null;
+        Output out = new Output();
+        write(out, value);
+        return out.toByteArray();
+    }
+
+    @Override
+    public Object fromDatabase(byte[] value) {
+        if (value == null) return null;
+        Input in = new Input(value);
+        Object result = read(in);
+        if (in.position != value.length) {
+            throw new DatabaseException("Trailing bytes in binary column");
+        }
+        return adapt(result, declaredType);
+    }
+
+    @Override
+    public Class<byte[]> databaseType() {
+        return byte[].class;
+    }
+
+    @Override
+    public String sqlType(DatabaseType databaseType) {
+        return databaseType == DatabaseType.POSTGRESQL ? "BYTEA" : "BLOB";
+    }
+
+    private void write(Output out, Object value) {
+        if (value == null) {
+            out.write(NULL);
+        } else if (value instanceof Boolean b) {
+            out.write(b ? TRUE : FALSE);
+        } else if (value instanceof Integer i) {
+            out.write(INT);
+            out.writeVarLong(zigZag(i));
+        } else if (value instanceof Short sh) {
+            out.write(SHORT);
+            out.writeVarLong(zigZag(sh));
+        } else if (value instanceof Byte b) {
+            out.write(BYTE);
+            out.write(b);
+        } else if (value instanceof Long l) {
+            out.write(LONG);
+            out.writeVarLong(zigZag(l));
+        } else if (value instanceof Float f) {
+            out.write(FLOAT);
+            out.writeFixed(Float.floatToIntBits(f), 4);
+        } else if (value instanceof Double d) {
+            out.write(DOUBLE);
+            out.writeFixed(Double.doubleToLongBits(d), 8);
+        } else if (value instanceof CharSequence s) {
+            out.write(STRING);
+            byte[] bytes = s.toString().getBytes(StandardCharsets.UTF_8);
+            out.writeVarLong(bytes.length);
+            out.write(bytes, 0, bytes.length);
+        } else if (value instanceof byte[] bytes) {
+            out.write(BYTES);
+            out.writeVarLong(bytes.length);
+            out.write(bytes, 0, bytes.length);
+        } else if (value instanceof UUID uuid) {
+            out.write(UUID_TAG);
+            out.writeFixed(uuid.getMostSignificantBits(), 8);
+            out.writeFixed(uuid.getLeastSignificantBits(), 8);
+        } else if (value instanceof Instant instant) {
+            out.write(INSTANT);
+            out.writeVarLong(zigZag(instant.getEpochSecond()));
+            out.writeVarLong(instant.getNano());
+        } else if (value instanceof LocalDateTime dateTime) {
+            out.write(LOCAL_DATE_TIME);
+            out.writeVarLong(zigZag(dateTime.toEpochSecond(ZoneOffset.UTC)));
+            out.writeVarLong(dateTime.getNano());
+        } else if (value instanceof LocalDate date) {
+            out.write(LOCAL_DATE);
+            out.writeVarLong(zigZag(date.toEpochDay()));
+        } else if (value instanceof LocalTime time) {
+            out.write(LOCAL_TIME);
+            out.writeVarLong(time.toNanoOfDay());
+        } else if (value instanceof BigDecimal decimal) {
+            out.write(BIG_DECIMAL);
+            out.writeVarLong(zigZag(decimal.scale()));
+            byte[] unscaled = decimal.unscaledValue().toByteArray();
+            out.writeVarLong(unscaled.length);
+            out.write(unscaled, 0, unscaled.length);
+        } else if (value instanceof Set<?> set) {
+            out.write(SET);
+            out.writeVarLong(set.size());
+            for (Object element : set) write(out, element);
+        } else if (value instanceof Collection<?> collection) {
+            out.write(LIST);
+            out.writeVarLong(collection.size());
+            for (Object element : collection) write(out, element);
+        } else if (value instanceof Map<?, ?> map) {
+            out.write(MAP);
+            out.writeVarLong(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                write(out, entry.getKey());
+                write(out, entry.getValue());
+            }
+        } else {
+            throw new DatabaseException("Type not supported for binary encoding: " + value.getClass());
+        }
+    }
+
+    private Object read(Input in) {
+        byte tag = in.read();
+        switch (tag) {
+            case NULL: return null;
+            case FALSE: return Boolean.FALSE;
+            case TRUE: return Boolean.TRUE;
+            case INT: return (int) unZigZag(in.readVarLong());
+            case LONG: return unZigZag(in.readVarLong());
+            case SHORT: return (short) unZigZag(in.readVarLong());
+            case BYTE: return in.read();
+            case FLOAT: return Float.intBitsToFloat((int) in.readFixed(4));
+            case DOUBLE: return Double.longBitsToDouble(in.readFixed(8));
+            case STRING: return new String(in.readBytes(in.readLength()), StandardCharsets.UTF_8);
+            case BYTES: return in.readBytes(in.readLength());
+            case UUID_TAG: return new UUID(in.readFixed(8), in.readFixed(8));
+            case INSTANT: return Instant.ofEpochSecond(unZigZag(in.readVarLong()), in.readVarLong());
+            case LOCAL_DATE_TIME:
+                return LocalDateTime.ofEpochSecond(unZigZag(in.readVarLong()), (int) in.readVarLong(), ZoneOffset.UTC);
+            case LOCAL_DATE: return LocalDate.ofEpochDay(unZigZag(in.readVarLong()));
+            case LOCAL_TIME: return LocalTime.ofNanoOfDay(in.readVarLong());
+            case BIG_DECIMAL: {
+                int scale = (int) unZigZag(in.readVarLong());
+                return new BigDecimal(new BigInteger(in.readBytes(in.readLength())), scale);
+            }
+            case LIST: {
+                int size = in.readLength();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) list.add(read(in));
+                return list;
+            }
+            case SET: {
+                int size = in.readLength();
+                Set<Object> set = new LinkedHashSet<>();
+                for (int i = 0; i < size; i++) set.add(read(in));
+                return set;
+            }
+            case MAP: {
+                int size = in.readLength();
+                Map<Object, Object> map = new LinkedHashMap<>();
+                for (int i = 0; i < size; i++) map.put(read(in), read(in));
+                return map;
+            }
+            default: throw new DatabaseException("Unknown binary tag " + tag);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object adapt(Object value, Class<?> type) {
+        if (value == null || type == Object.class || type.isInstance(value)) {
+            return value;
+        }
+        if (value instanceof Number number) {
+            if (type == int.class || type == Integer.class) return number.intValue();
+            if (type == long.class || type == Long.class) return number.longValue();
+            if (type == short.class || type == Short.class) return number.shortValue();
+            if (type == byte.class || type == Byte.class) return number.byteValue();
+            if (type == double.class || type == Double.class) return number.doubleValue();
+            if (type == float.class || type == Float.class) return number.floatValue();
+        }
+        if (value instanceof Boolean && type == boolean.class) {
+            return value;
+        }
+        if (value instanceof Collection<?> collection && Collection.class.isAssignableFrom(type)) {
+            Collection target;
+            if (!type.isInterface() && !Modifier.isAbstract(type.getModifiers())) {
+                target = (Collection) instantiate(type);
+            } else if (SortedSet.class.isAssignableFrom(type)) {
+                target = new TreeSet<>();
+            } else if (Set.class.isAssignableFrom(type)) {
+                target = new LinkedHashSet<>();
+            } else if (Deque.class.isAssignableFrom(type) || Queue.class.isAssignableFrom(type)) {
+                target = new ArrayDeque<>();
+            } else {
+                target = new ArrayList<>();
+            }
+            target.addAll(collection);
+            return target;
+        }
+        if (value instanceof Map<?, ?> map && Map.class.isAssignableFrom(type)) {
+            Map target;
+            if (!type.isInterface() && !Modifier.isAbstract(type.getModifiers())) {
+                target = (Map) instantiate(type);
+            } else if (SortedMap.class.isAssignableFrom(type)) {
+                target = new TreeMap<>();
+            } else {
+                target = new LinkedHashMap<>();
+            }
+            target.putAll(map);
+            return target;
+        }
+        throw new DatabaseException("Cannot decode " + value.getClass().getName() + " into " + type.getName());
+    }
+
+    private static Object instantiate(Class<?> type) {
+        try {
+            Constructor<?> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return constructor.newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new DatabaseException("Cannot instantiate " + type.getName() + " for binary column", e);
+        }
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static final class Output extends ByteArrayOutputStream {
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeFixed(long value, int bytes) {
+            for (int i = bytes - 1; i >= 0; i--) {
+                write((int) (value >>> (i << 3)));
+            }
+        }
+    }
+
+    private static final class Input {
+        private final byte[] buffer;
+        private int position;
+
+        Input(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        byte read() {
+            if (position >= buffer.length) {
+                throw new DatabaseException("Truncated binary column");
+            }
+            return buffer[position++];
+        }
+
+        long readVarLong() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = read();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return result;
+            }
+            throw new DatabaseException("Malformed varint in binary column");
+        }
+
+        int readLength() {
+            long length = readVarLong();
+            if (length < 0 || length > buffer.length - position) {
+                throw new DatabaseException("Invalid length " + length + " in binary column");
+            }
+            return (int) length;
+        }
+
+        long readFixed(int bytes) {
+            long result = 0;
+            for (int i = 0; i < bytes; i++) {
+                result = (result << 8) | (read() & 0xFF);
+            }
+            return result;
+        }
+
+        byte[] readBytes(int length) {
+            byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+            position += length;
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package fr.panncake.pannlib.orm.converter;
+
+import fr.panncake.pannlib.orm.annotations.Convert;
+import fr.panncake.pannlib.orm.annotations.EnumStorage;
+import fr.panncake.pannlib.orm.annotations.Enumerated;
+import fr.panncake.pannlib.orm.exception.DatabaseException;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+public final class ConverterRegistry {
+    private static final Map<Class<?>, AttributeConverter<?, ?>> BY_TYPE = new ConcurrentHashMap<>();
+
+    private ConverterRegistry() {}
+
+    public static <X> void register(Class<X> javaType, AttributeConverter<? super X, ?> converter) {
+        BY_TYPE.put(javaType, converter);
+    }
+
+    public static void unregister(Class<?> javaType) {
+        BY_TYPE.remove(javaType);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static AttributeConverter<Object, Object> resolve(Field field) {
+        Convert convert = field.getAnnotation(Convert.class);
+        if (convert != null) {
+            return (AttributeConverter<Object, Object>) instantiate(convert.value(), field);
+        }
+
+        Class<?> type = field.getType();
+        AttributeConverter<?, ?> registered = lookup(type);
+        if (registered != null) {
+            return (AttributeConverter<Object, Object>) registered;
+        }
+
+        if (type.isEnum()) {
+            Enumerated enumerated = field.getAnnotation(Enumerated.class);
+            EnumStorage storage = enumerated != null ? enumerated.value() : EnumStorage.NAME;
+            return (AttributeConverter) new EnumConverter((Class<? extends Enum>) type, storage);
+        }
+        return null;
+    }
+
+    private static AttributeConverter<?, ?> lookup(Class<?> type) {
+        Deque<Class<?>> interfaces = new ArrayDeque<>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            AttributeConverter<?, ?> converter = BY_TYPE.get(c);
+            if (converter != null) return converter;
+            interfaces.addAll(Arrays.asList(c.getInterfaces()));
+        }
+        Set<Class<?>> seen = new HashSet<>();
+        while (!interfaces.isEmpty()) {
+            Class<?> i = interfaces.poll();
+            if (!seen.add(i)) continue;
+            AttributeConverter<?, ?> converter = BY_TYPE.get(i);
+            if (converter != null) return converter;
+            interfaces.addAll(Arrays.asList(i.getInterfaces()));
+        }
+        return null;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static AttributeConverter<?, ?> instantiate(Class<? extends AttributeConverter> type, Field field) {
+        try {
+            try {
+                Constructor<? extends AttributeConverter> constructor = type.getDeclaredConstructor(Field.class);
+                constructor.setAccessible(true);
+                return constructor.newInstance(field);
+            } catch (NoSuchMethodException ignored) {
+                Constructor<? extends AttributeConverter> constructor = type.getDeclaredConstructor();
+                constructor.setAccessible(true);
+                return constructor.newInstance();
+            }
+        } catch (NoSuchMethodException e) {
+            throw new DatabaseException("Converter " + type.getName() + " needs a no-arg or (Field) constructor", e);
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            throw new DatabaseException("Failure to instantiate converter " + type.getName(), e);
+        }
+    }
+}
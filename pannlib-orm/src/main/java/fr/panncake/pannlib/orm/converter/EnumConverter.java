@@ -0,0 +1,65 @@
+package fr.panncake.pannlib.orm.converter;
+
+import fr.panncake.pannlib.orm.config.DatabaseType;
+import fr.panncake.pannlib.orm.annotations.EnumStorage;
+import fr.panncake.pannlib.orm.exception.DatabaseException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@SuppressWarnings({"rawtypes", "unchecked"})
+public final class EnumConverter implements AttributeConverter<Enum, Object> {
+    private final Class<? extends Enum> enumType;
+    private final EnumStorage storage;
+    private final Enum[] constants;
+    private final Map<String, Enum> byName = new HashMap<>();
+
+    public EnumConverter(Class<? extends Enum> enumType, EnumStorage storage) {
+        this.enumType = enumType;
+        this.storage = storage;
+        this.constants = enumType.getEnumConstants();
+        for (Enum constant : constants) {
+            byName.put(constant.name(), constant);
+        }
+    }
+
+    @Override
+    public Object toDatabase(Enum value) {
+        if (value == null) return null;
+        return storage == EnumStorage.ORDINAL ? (Object) value.ordinal() : value.name();
+    }
+
+    @Override
+    public Enum fromDatabase(Object value) {
+        if (value == null) return null;
+        if (storage == EnumStorage.ORDINAL) {
+            int ordinal = ((Number) value).intValue();
+            if (ordinal < 0 || ordinal >= constants.length) {
+                throw new DatabaseException("Invalid ordinal " + ordinal + " for " + enumType.getName());
+            }
+            return constants[ordinal];
+        }
+        Enum constant = byName.get(value.toString());
+        if (constant == null) {
+            throw new DatabaseException("Unknown constant " + value + " for " + enumType.getName());
+        }
+        return constant;
+    }
+
+    @Override
+    public Class<Object> databaseType() {
+        return (Class) (storage == EnumStorage.ORDINAL ? Integer.class : String.class);
+    }
+
+    @Override
+    public String sqlType(DatabaseType databaseType) {
+        if (storage == EnumStorage.ORDINAL) {
+            return constants.length <= Byte.MAX_VALUE && databaseType != DatabaseType.POSTGRESQL ? "TINYINT" : "INT";
+        }
+        int length = 1;
+        for (Enum constant : constants) {
+            length = Math.max(length, constant.name().length());
+        }
+        return "VARCHAR(" + length + ")";
+    }
+}
@@ -0,0 +1,54 @@
+package fr.panncake.pannlib.orm.converter;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import fr.panncake.pannlib.orm.config.DatabaseType;
+import fr.panncake.pannlib.orm.exception.DatabaseException;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Type;
+
+public final class JsonConverter implements AttributeConverter<Object, String> {
+    private static final Gson DEFAULT_GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    private final Type type;
+    private final Gson gson;
+
+    public JsonConverter(Field field) {
+        this(field.getGenericType(), DEFAULT_GSON);
+    }
+
+    public JsonConverter(Type type, Gson gson) {
+        this.type = type;
+        this.gson = gson;
+    }
+
+    @Override
+    public String toDatabase(Object value) {
+        return value == null ? null : gson.toJson(value, type);
+    }
+
+    @Override
+    public Object fromDatabase(String value) {
+        if (value == null) return null;
+        try {
+            return gson.fromJson(value, type);
+        } catch (JsonParseException e) {
+            throw new DatabaseException("Failed to parse JSON column as " + type.getTypeName(), e);
+        }
+    }
+
+    @Override
+    public Class<String> databaseType() {
+        return String.class;
+    }
+
+    @Override
+    public String sqlType(DatabaseType databaseType) {
+        return switch (databaseType) {
+            case MYSQL -> "JSON";
+            case POSTGRESQL, SQLITE -> "TEXT";
+        };
+    }
+}
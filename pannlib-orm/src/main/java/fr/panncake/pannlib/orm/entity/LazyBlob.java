@@ -0,0 +1,137 @@
+package fr.panncake.pannlib.orm.entity;
+
+import fr.panncake.pannlib.orm.exception.DatabaseException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+public final class LazyBlob {
+    private final Source source;
+    private final long length;
+    private final boolean modified;
+    private volatile byte[] loaded;
+    private volatile Boolean sqlNull;
+    private InputStream pendingStream;
+
+    private LazyBlob(Source source, long length, boolean modified) {
+        this.source = source;
+        this.length = length;
+        this.modified = modified;
+    }
+
+    public static LazyBlob of(byte[] bytes) {
+        LazyBlob blob = new LazyBlob(() -> new ByteArrayInputStream(bytes), bytes.length, true);
+        blob.loaded = bytes;
+        return blob;
+    }
+
+    public static LazyBlob of(Path path) {
+        try {
+            return new LazyBlob(() -> Files.newInputStream(path), Files.size(path), true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static LazyBlob of(Source source, long length) {
+        return new LazyBlob(source, length, true);
+    }
+
+    public static LazyBlob deferred(Source source) {
+        return new LazyBlob(source, -1, false);
+    }
+
+    public InputStream openStream() {
+        byte[] bytes = loaded;
+        if (bytes != null) {
+            return new ByteArrayInputStream(bytes);
+        }
+        InputStream in = open();
+        return in != null ? in : InputStream.nullInputStream();
+    }
+
+    public byte[] getBytes() {
+        byte[] bytes = loaded;
+        if (bytes == null) {
+            try (InputStream in = open()) {
+                if (in == null) {
+                    return null;
+                }
+                bytes = in.readAllBytes();
+            } catch (IOException e) {
+                throw new DatabaseException("Failed to read large object", e);
+            }
+            loaded = bytes;
+        }
+        return bytes;
+    }
+
+    public boolean isNull() {
+        if (loaded != null) {
+            return false;
+        }
+        Boolean known = sqlNull;
+        if (known == null) {
+            try (InputStream ignored = open()) {
+                known = sqlNull;
+            } catch (IOException e) {
+                throw new DatabaseException("Failed to close large object stream", e);
+            }
+        }
+        return known;
+    }
+
+    public boolean isLoaded() {
+        return loaded != null;
+    }
+
+    private InputStream open() {
+        if (Boolean.TRUE.equals(sqlNull)) {
+            return null;
+        }
+        try {
+            InputStream in = source.open();
+            sqlNull = in == null;
+            return in;
+        } catch (Exception e) {
+            throw new DatabaseException("Failed to open large object stream", e);
+        }
+    }
+
+    public boolean isModified() {
+        return modified;
+    }
+
+    public synchronized void bindTo(PreparedStatement stmt, int index) throws SQLException {
+        release();
+        pendingStream = openStream();
+        long size = loaded != null ? loaded.length : length;
+        if (size >= 0 && size <= Integer.MAX_VALUE) {
+            stmt.setBinaryStream(index, pendingStream, (int) size);
+        } else {
+            stmt.setBinaryStream(index, pendingStream);
+        }
+    }
+
+    public synchronized void release() {
+        InputStream in = pendingStream;
+        pendingStream = null;
+        if (in != null) {
+            try {
+                in.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface Source {
+        InputStream open() throws Exception;
+    }
+}
@@ -0,0 +1,8 @@
+package fr.panncake.pannlib.orm.event;
+
+public record EntityChangeEvent(String entityType, String table, Object id, EntityChangeType type) {
+
+    public boolean isFor(Class<?> entityClass) {
+        return entityClass.getName().equals(entityType);
+    }
+}
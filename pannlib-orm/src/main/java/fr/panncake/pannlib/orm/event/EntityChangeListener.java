@@ -0,0 +1,6 @@
+package fr.panncake.pannlib.orm.event;
+
+@FunctionalInterface
+public interface EntityChangeListener {
+    void onChange(EntityChangeEvent event);
+}
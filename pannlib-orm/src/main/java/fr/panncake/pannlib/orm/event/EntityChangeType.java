@@ -0,0 +1,7 @@
+package fr.panncake.pannlib.orm.event;
+
+public enum EntityChangeType {
+    PERSIST,
+    UPDATE,
+    DELETE
+}
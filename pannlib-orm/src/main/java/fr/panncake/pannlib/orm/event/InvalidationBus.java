@@ -0,0 +1,152 @@
+package fr.panncake.pannlib.orm.event;
+
+import fr.panncake.pannlib.orm.converter.CompactBinaryConverter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class InvalidationBus implements EntityChangeListener, AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(InvalidationBus.class);
+    private static final EntityChangeType[] TYPES = EntityChangeType.values();
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final InvalidationTransport transport;
+    private final int maxBatchSize;
+    private final CompactBinaryConverter codec = new CompactBinaryConverter();
+    private final List<EntityChangeListener> remoteListeners = new CopyOnWriteArrayList<>();
+    private final Set<EntityChangeEvent> outgoing = new LinkedHashSet<>();
+    private final ScheduledExecutorService flusher;
+    private final Closeable subscription;
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong messagesSent = new AtomicLong();
+
+    public InvalidationBus(InvalidationTransport transport) {
+        this(transport, 50, 512);
+    }
+
+    public InvalidationBus(InvalidationTransport transport, long flushIntervalMillis, int maxBatchSize) {
+        this.transport = transport;
+        this.maxBatchSize = maxBatchSize;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "PannORM-Invalidation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        this.subscription = transport.subscribe(this::receive);
+    }
+
+    @Override
+    public void onChange(EntityChangeEvent event) {
+        boolean full;
+        synchronized (outgoing) {
+            outgoing.add(event);
+            full = outgoing.size() >= maxBatchSize;
+        }
+        published.incrementAndGet();
+        if (full) {
+            flusher.execute(this::flush);
+        }
+    }
+
+    public void addRemoteListener(EntityChangeListener listener) {
+        remoteListeners.add(listener);
+    }
+
+    public void removeRemoteListener(EntityChangeListener listener) {
+        remoteListeners.remove(listener);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public long getPublishedCount() {
+        return published.get();
+    }
+
+    public long getReceivedCount() {
+        return received.get();
+    }
+
+    public long getMessagesSent() {
+        return messagesSent.get();
+    }
+
+    public void flush() {
+        List<EntityChangeEvent> batch;
+        synchronized (outgoing) {
+            if (outgoing.isEmpty()) return;
+            batch = new ArrayList<>(outgoing);
+            outgoing.clear();
+        }
+        try {
+            send(batch);
+        } catch (Exception e) {
+            LOGGER.warn("Failed to publish {} invalidations", batch.size(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        flusher.shutdown();
+        flush();
+        try {
+            subscription.close();
+        } catch (IOException e) {
+            LOGGER.warn("Failed to unsubscribe from the invalidation transport", e);
+        }
+    }
+
+    private void send(List<EntityChangeEvent> batch) {
+        byte[] message = encode(batch);
+        if (message.length > transport.maxMessageSize() && batch.size() > 1) {
+            int half = batch.size() / 2;
+            send(batch.subList(0, half));
+            send(batch.subList(half, batch.size()));
+            return;
+        }
+        transport.publish(message);
+        messagesSent.incrementAndGet();
+    }
+
+    private byte[] encode(List<EntityChangeEvent> batch) {
+        List<Object> events = new ArrayList<>(batch.size());
+        for (EntityChangeEvent event : batch) {
+            Object id = event.id();
+            if (!(id == null || id instanceof Number || id instanceof String || id instanceof UUID)) {
+                id = id.toString();
+            }
+            events.add(Arrays.asList(event.entityType(), event.table(), event.type().ordinal(), id));
+        }
+        return codec.toDatabase(List.of(nodeId, events));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void receive(byte[] message) {
+        List<Object> decoded = (List<Object>) codec.fromDatabase(message);
+        if (nodeId.equals(decoded.get(0))) return;
+        for (Object raw : (List<Object>) decoded.get(1)) {
+            List<Object> fields = (List<Object>) raw;
+            EntityChangeEvent event = new EntityChangeEvent((String) fields.get(0), (String) fields.get(1),
+                    fields.get(3), TYPES[(Integer) fields.get(2)]);
+            received.incrementAndGet();
+            for (EntityChangeListener listener : remoteListeners) {
+                try {
+                    listener.onChange(event);
+                } catch (Exception e) {
+                    LOGGER.warn("Invalidation listener failed for {}", event, e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package fr.panncake.pannlib.orm.event;
+
+import java.io.Closeable;
+import java.util.function.Consumer;
+
+public interface InvalidationTransport extends AutoCloseable {
+
+    void publish(byte[] message);
+
+    Closeable subscribe(Consumer<byte[]> receiver);
+
+    default int maxMessageSize() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    default void close() {}
+}
@@ -0,0 +1,28 @@
+package fr.panncake.pannlib.orm.event;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+public final class LoopbackTransport implements InvalidationTransport {
+    private final List<Consumer<byte[]>> receivers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(byte[] message) {
+        for (Consumer<byte[]> receiver : receivers) {
+            receiver.accept(message.clone());
+        }
+    }
+
+    @Override
+    public Closeable subscribe(Consumer<byte[]> receiver) {
+        receivers.add(receiver);
+        return () -> receivers.remove(receiver);
+    }
+
+    @Override
+    public void close() {
+        receivers.clear();
+    }
+}
@@ -0,0 +1,116 @@
+package fr.panncake.pannlib.orm.event;
+
+import fr.panncake.pannlib.orm.config.DatabaseConfig;
+import fr.panncake.pannlib.orm.config.DatabaseType;
+import fr.panncake.pannlib.orm.connection.ConnectionManager;
+import fr.panncake.pannlib.orm.exception.DatabaseException;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+public final class PostgresNotifyTransport implements InvalidationTransport {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PostgresNotifyTransport.class);
+    private static final int MAX_PAYLOAD = 7900;
+
+    private final ConnectionManager connectionManager;
+    private final String channel;
+    private final List<Consumer<byte[]>> receivers = new CopyOnWriteArrayList<>();
+    private final Thread listener;
+    private volatile boolean running = true;
+
+    public PostgresNotifyTransport(ConnectionManager connectionManager, String channel) {
+        if (connectionManager.getConfig().type() != DatabaseType.POSTGRESQL) {
+            throw new IllegalArgumentException("LISTEN/NOTIFY requires PostgreSQL");
+        }
+        if (!channel.matches("[A-Za-z_][A-Za-z0-9_]*")) {
+            throw new IllegalArgumentException("Invalid channel name " + channel);
+        }
+        this.connectionManager = connectionManager;
+        this.channel = channel;
+        this.listener = new Thread(this::listen, "PannORM-Notify-" + channel);
+        this.listener.setDaemon(true);
+        this.listener.start();
+    }
+
+    @Override
+    public void publish(byte[] message) {
+        String payload = Base64.getEncoder().encodeToString(message);
+        if (payload.length() > MAX_PAYLOAD) {
+            throw new DatabaseException("Invalidation message exceeds NOTIFY payload limit: " + payload.length());
+        }
+        try (Connection conn = connectionManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT pg_notify(?, ?)")) {
+            stmt.setString(1, channel);
+            stmt.setString(2, payload);
+            stmt.execute();
+        } catch (SQLException e) {
+            throw new DatabaseException("Failed to publish invalidation on " + channel, e);
+        }
+    }
+
+    @Override
+    public Closeable subscribe(Consumer<byte[]> receiver) {
+        receivers.add(receiver);
+        return () -> receivers.remove(receiver);
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        listener.interrupt();
+    }
+
+    @Override
+    public int maxMessageSize() {
+        return MAX_PAYLOAD / 4 * 3;
+    }
+
+    private void listen() {
+        DatabaseConfig config = connectionManager.getConfig();
+        long backoff = 500;
+        while (running) {
+            try (Connection conn = DriverManager.getConnection(config.getJdbcUrl(), config.username(), config.password())) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("LISTEN \"" + channel + "\"");
+                }
+                PGConnection pg = conn.unwrap(PGConnection.class);
+                backoff = 500;
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(500);
+                    if (notifications == null) continue;
+                    for (PGNotification notification : notifications) {
+                        try {
+                            byte[] message = Base64.getDecoder().decode(notification.getParameter());
+                            for (Consumer<byte[]> receiver : receivers) {
+                                receiver.accept(message);
+                            }
+                        } catch (RuntimeException e) {
+                            LOGGER.warn("Ignoring malformed invalidation on {}", channel, e);
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                if (!running) return;
+                LOGGER.warn("Lost LISTEN connection on {}, reconnecting in {} ms", channel, backoff, e);
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+                backoff = Math.min(backoff * 2, 30_000);
+            }
+        }
+    }
+}
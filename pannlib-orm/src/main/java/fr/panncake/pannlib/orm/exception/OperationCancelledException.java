@@ -0,0 +1,11 @@
+package fr.panncake.pannlib.orm.exception;
+
+public class OperationCancelledException extends DatabaseException {
+    public OperationCancelledException(String message) {
+        super(message);
+    }
+
+    public OperationCancelledException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
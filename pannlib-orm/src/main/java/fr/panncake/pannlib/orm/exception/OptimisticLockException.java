@@ -0,0 +1,18 @@
+package fr.panncake.pannlib.orm.exception;
+
+import lombok.Getter;
+
+@Getter
+public class OptimisticLockException extends DatabaseException {
+    private final transient Object entity;
+    private final Object id;
+    private final long expectedVersion;
+
+    public OptimisticLockException(Object entity, Object id, long expectedVersion) {
+        super("Optimistic lock conflict on " + entity.getClass().getSimpleName() + " id=" + id
+                + ": expected version " + expectedVersion + " was changed by another writer");
+        this.entity = entity;
+        this.id = id;
+        this.expectedVersion = expectedVersion;
+    }
+}
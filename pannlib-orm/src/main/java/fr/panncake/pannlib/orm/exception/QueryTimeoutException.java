@@ -0,0 +1,11 @@
+package fr.panncake.pannlib.orm.exception;
+
+public class QueryTimeoutException extends DatabaseException {
+    public QueryTimeoutException(String message) {
+        super(message);
+    }
+
+    public QueryTimeoutException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
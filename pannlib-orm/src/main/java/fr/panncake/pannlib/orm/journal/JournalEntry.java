@@ -0,0 +1,7 @@
+package fr.panncake.pannlib.orm.journal;
+
+import fr.panncake.pannlib.orm.event.EntityChangeEvent;
+import fr.panncake.pannlib.orm.query.BoundStatement;
+
+public record JournalEntry(long sequence, long timestamp, EntityChangeEvent event, BoundStatement statement, int size) {
+}
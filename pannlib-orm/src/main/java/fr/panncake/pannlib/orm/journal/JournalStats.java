@@ -0,0 +1,6 @@
+package fr.panncake.pannlib.orm.journal;
+
+public record JournalStats(long pendingEntries, long pendingBytes, long lastAppendedSequence,
+                           long lastReplayedSequence, long replayLagMillis, int segments,
+                           long replayedEntries, long failedEntries) {
+}
@@ -0,0 +1,422 @@
+package fr.panncake.pannlib.orm.journal;
+
+import fr.panncake.pannlib.orm.config.JournalConfig;
+import fr.panncake.pannlib.orm.connection.ConnectionManager;
+import fr.panncake.pannlib.orm.converter.CompactBinaryConverter;
+import fr.panncake.pannlib.orm.event.EntityChangeEvent;
+import fr.panncake.pannlib.orm.event.EntityChangeListener;
+import fr.panncake.pannlib.orm.event.EntityChangeType;
+import fr.panncake.pannlib.orm.exception.DatabaseException;
+import fr.panncake.pannlib.orm.query.BoundStatement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+public final class WriteJournal implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WriteJournal.class);
+    private static final int HEADER_SIZE = 24;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final Set<Class<?>> SUPPORTED_PARAMETERS = Set.of(Boolean.class, Integer.class, Short.class,
+            Byte.class, Long.class, Float.class, Double.class, String.class, byte[].class, UUID.class, Instant.class,
+            LocalDateTime.class, LocalDate.class, LocalTime.class, BigDecimal.class);
+
+    private final ConnectionManager connectionManager;
+    private final JournalConfig config;
+    private final Path checkpointFile;
+    private final CompactBinaryConverter codec = new CompactBinaryConverter();
+    private final Deque<JournalEntry> pending = new ConcurrentLinkedDeque<>();
+    private final NavigableMap<Long, Path> segments = new ConcurrentSkipListMap<>();
+    private final AtomicLong pendingBytes = new AtomicLong();
+    private final AtomicLong replayedEntries = new AtomicLong();
+    private final AtomicLong failedEntries = new AtomicLong();
+    private final ScheduledExecutorService replayer;
+    private final Object appendLock = new Object();
+    private final Object syncLock = new Object();
+
+    private FileChannel activeChannel;
+    private MappedByteBuffer activeBuffer;
+    private long activeFirstSequence;
+    private long nextSequence;
+    private MappedByteBuffer syncedBuffer;
+    private int syncedPosition;
+    private long syncedSequence;
+    private volatile Thread replayThread;
+    private volatile long replayedSequence;
+    private volatile boolean closed;
+    private volatile EntityChangeListener replayListener;
+
+    public WriteJournal(ConnectionManager connectionManager, JournalConfig config) {
+        this.connectionManager = connectionManager;
+        this.config = config;
+        this.checkpointFile = config.directory().resolve("checkpoint");
+        try {
+            Files.createDirectories(config.directory());
+            recover();
+            openSegment(nextSequence, config.segmentSize());
+        } catch (IOException e) {
+            throw new DatabaseException("Failed to open write journal in " + config.directory(), e);
+        }
+
+        this.replayer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "PannORM-JournalReplay");
+            thread.setDaemon(true);
+            replayThread = thread;
+            return thread;
+        });
+        this.replayer.scheduleWithFixedDelay(() -> replay(Long.MAX_VALUE), 0, config.replayIntervalMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void setReplayListener(EntityChangeListener replayListener) {
+        this.replayListener = replayListener;
+    }
+
+    public boolean supports(BoundStatement statement) {
+        for (Object parameter : statement.parameters()) {
+            if (parameter != null && !SUPPORTED_PARAMETERS.contains(parameter.getClass())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void append(EntityChangeEvent event, BoundStatement statement) {
+        if (closed) {
+            throw new DatabaseException("Write journal is closed");
+        }
+        List<Object> record = new ArrayList<>(6);
+        record.add(event.entityType());
+        record.add(statement.sql());
+        record.add(Arrays.asList(statement.parameters()));
+        record.add(event.table());
+        record.add(event.type().ordinal());
+        record.add(event.id());
+        byte[] body = codec.toDatabase(record);
+        int size = HEADER_SIZE + body.length;
+
+        long sequence;
+        synchronized (appendLock) {
+            try {
+                if (activeBuffer.remaining() < size + Integer.BYTES) {
+                    openSegment(nextSequence, Math.max(config.segmentSize(), size + Integer.BYTES));
+                }
+                sequence = nextSequence;
+                long timestamp = System.currentTimeMillis();
+                activeBuffer.putInt(body.length)
+                        .putInt(checksum(sequence, timestamp, body))
+                        .putLong(sequence)
+                        .putLong(timestamp)
+                        .put(body);
+                nextSequence++;
+                pendingBytes.addAndGet(size);
+                pending.add(new JournalEntry(sequence, timestamp, event, statement, size));
+            } catch (IOException e) {
+                throw new DatabaseException("Failed to append to write journal", e);
+            }
+        }
+        sync(sequence);
+    }
+
+    public void drain() {
+        if (pending.isEmpty() || Thread.currentThread() == replayThread) {
+            return;
+        }
+        long target;
+        synchronized (appendLock) {
+            target = nextSequence - 1;
+        }
+        try {
+            replayer.submit(() -> replay(target)).get();
+        } catch (RejectedExecutionException e) {
+            throw new DatabaseException("Write journal is closed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseException("Interrupted while draining the write journal", e);
+        } catch (ExecutionException e) {
+            throw new DatabaseException("Failed to drain the write journal", e.getCause());
+        }
+        if (replayedSequence < target) {
+            throw new DatabaseException("Write journal could not be drained, " + pending.size()
+                    + " writes are waiting for the database");
+        }
+    }
+
+    public JournalStats stats() {
+        JournalEntry oldest = pending.peekFirst();
+        long lag = oldest == null ? 0 : Math.max(0, System.currentTimeMillis() - oldest.timestamp());
+        long lastAppended;
+        synchronized (appendLock) {
+            lastAppended = nextSequence - 1;
+        }
+        return new JournalStats(pending.size(), pendingBytes.get(), lastAppended, replayedSequence, lag,
+                segments.size(), replayedEntries.get(), failedEntries.get());
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        replayer.shutdown();
+        boolean terminated = false;
+        try {
+            terminated = replayer.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (terminated) {
+            replay(Long.MAX_VALUE);
+        } else {
+            replayer.shutdownNow();
+        }
+        synchronized (appendLock) {
+            try {
+                activeBuffer.force();
+                activeChannel.close();
+            } catch (IOException e) {
+                LOGGER.warn("Failed to close journal segment", e);
+            }
+        }
+        if (!pending.isEmpty()) {
+            LOGGER.warn("Write journal closed with {} entries not yet replayed, they will be replayed on next start",
+                    pending.size());
+        }
+    }
+
+    private void recover() throws IOException {
+        if (Files.exists(checkpointFile)) {
+            replayedSequence = ByteBuffer.wrap(Files.readAllBytes(checkpointFile)).getLong();
+        }
+        long lastSequence = replayedSequence;
+
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(config.directory())) {
+            files = stream.filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX)).sorted().toList();
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            long firstSequence = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+            segments.put(firstSequence, file);
+            lastSequence = Math.max(lastSequence, readSegment(file, lastSequence));
+        }
+        nextSequence = lastSequence + 1;
+        if (!pending.isEmpty()) {
+            LOGGER.info("Recovered {} journaled writes pending replay", pending.size());
+        }
+        compact();
+    }
+
+    private long readSegment(Path file, long lastSequence) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            while (buffer.remaining() >= HEADER_SIZE) {
+                int start = buffer.position();
+                int length = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining() - (HEADER_SIZE - Integer.BYTES)) break;
+                int crc = buffer.getInt();
+                long sequence = buffer.getLong();
+                long timestamp = buffer.getLong();
+                byte[] body = new byte[length];
+                buffer.get(body);
+                if (crc != checksum(sequence, timestamp, body)) {
+                    LOGGER.warn("Torn journal record in {} at offset {}, ignoring the rest of the segment", file, start);
+                    break;
+                }
+                if (sequence <= lastSequence) continue;
+                lastSequence = sequence;
+                pending.add(decode(sequence, timestamp, body));
+                pendingBytes.addAndGet(HEADER_SIZE + length);
+            }
+        }
+        return lastSequence;
+    }
+
+    @SuppressWarnings("unchecked")
+    private JournalEntry decode(long sequence, long timestamp, byte[] body) {
+        List<Object> record = (List<Object>) codec.fromDatabase(body);
+        List<Object> parameters = (List<Object>) record.get(2);
+        BoundStatement statement = new BoundStatement((String) record.get(1), parameters.toArray());
+        EntityChangeEvent event = new EntityChangeEvent((String) record.get(0), (String) record.get(3),
+                record.get(5), EntityChangeType.values()[(Integer) record.get(4)]);
+        return new JournalEntry(sequence, timestamp, event, statement, HEADER_SIZE + body.length);
+    }
+
+    private void openSegment(long firstSequence, long size) throws IOException {
+        if (activeChannel != null) {
+            activeBuffer.force();
+            activeChannel.close();
+        }
+        Path file = config.directory().resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+        activeChannel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        activeBuffer = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        activeFirstSequence = firstSequence;
+        segments.put(firstSequence, file);
+    }
+
+    private void sync(long sequence) {
+        synchronized (syncLock) {
+            if (syncedSequence >= sequence) {
+                return;
+            }
+            MappedByteBuffer buffer;
+            int position;
+            long lastSequence;
+            synchronized (appendLock) {
+                buffer = activeBuffer;
+                position = buffer.position();
+                lastSequence = nextSequence - 1;
+            }
+            int start = buffer == syncedBuffer ? syncedPosition : 0;
+            buffer.force(start, position - start);
+            syncedBuffer = buffer;
+            syncedPosition = position;
+            syncedSequence = lastSequence;
+        }
+    }
+
+    private void replay(long upTo) {
+        while (!pending.isEmpty() && pending.peekFirst().sequence() <= upTo) {
+            List<JournalEntry> batch = new ArrayList<>(config.replayBatchSize());
+            Iterator<JournalEntry> iterator = pending.iterator();
+            while (iterator.hasNext() && batch.size() < config.replayBatchSize()) {
+                JournalEntry entry = iterator.next();
+                if (entry.sequence() > upTo) break;
+                batch.add(entry);
+            }
+
+            try (Connection conn = connectionManager.getConnection()) {
+                if (!applyBatch(conn, batch)) {
+                    if (!conn.isValid(2)) return;
+                    for (JournalEntry entry : batch) {
+                        if (!applyBatch(conn, List.of(entry))) {
+                            if (!conn.isValid(2)) return;
+                            failedEntries.incrementAndGet();
+                            LOGGER.warn("Skipping journaled write #{} for {} rejected by the database "
+                                            + "(it may have been applied before a crash): {}",
+                                    entry.sequence(), entry.event().entityType(), entry.statement().sql());
+                        }
+                        markReplayed(List.of(entry));
+                    }
+                } else {
+                    markReplayed(batch);
+                }
+            } catch (Exception e) {
+                LOGGER.debug("Journal replay postponed, database unavailable", e);
+                return;
+            }
+            try {
+                writeCheckpoint();
+                compact();
+            } catch (IOException e) {
+                LOGGER.warn("Failed to checkpoint write journal", e);
+            }
+        }
+    }
+
+    private boolean applyBatch(Connection conn, List<JournalEntry> batch) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            int i = 0;
+            while (i < batch.size()) {
+                String sql = batch.get(i).statement().sql();
+                int end = i + 1;
+                while (end < batch.size() && batch.get(end).statement().sql().equals(sql)) {
+                    end++;
+                }
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    long timeoutMillis = connectionManager.getConfig().queryTimeoutMillis();
+                    if (timeoutMillis > 0) {
+                        stmt.setQueryTimeout((int) Math.max(1, (timeoutMillis + 999) / 1000));
+                    }
+                    if (end - i == 1) {
+                        batch.get(i).statement().bind(stmt);
+                        stmt.executeUpdate();
+                    } else {
+                        for (int j = i; j < end; j++) {
+                            batch.get(j).statement().bind(stmt);
+                            stmt.addBatch();
+                        }
+                        stmt.executeBatch();
+                    }
+                }
+                i = end;
+            }
+            conn.commit();
+            return true;
+        } catch (SQLException e) {
+            conn.rollback();
+            if (e instanceof SQLTransientException) throw e;
+            LOGGER.debug("Journal replay batch of {} failed", batch.size(), e);
+            return false;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private void markReplayed(List<JournalEntry> entries) {
+        EntityChangeListener listener = replayListener;
+        for (JournalEntry entry : entries) {
+            pending.pollFirst();
+            pendingBytes.addAndGet(-entry.size());
+            replayedSequence = entry.sequence();
+            if (listener != null) {
+                listener.onChange(entry.event());
+            }
+        }
+        replayedEntries.addAndGet(entries.size());
+    }
+
+    private void writeCheckpoint() throws IOException {
+        Path temp = checkpointFile.resolveSibling("checkpoint.tmp");
+        Files.write(temp, ByteBuffer.allocate(Long.BYTES).putLong(replayedSequence).array());
+        Files.move(temp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void compact() {
+        long active;
+        synchronized (appendLock) {
+            active = activeChannel != null ? activeFirstSequence : Long.MAX_VALUE;
+        }
+        for (Map.Entry<Long, Path> segment : segments.entrySet()) {
+            Long next = segments.higherKey(segment.getKey());
+            if (next == null || segment.getKey() >= active || next - 1 > replayedSequence) break;
+            try {
+                Files.deleteIfExists(segment.getValue());
+                segments.remove(segment.getKey());
+            } catch (IOException e) {
+                LOGGER.debug("Could not delete replayed journal segment {}", segment.getValue(), e);
+                break;
+            }
+        }
+    }
+
+    private static int checksum(long sequence, long timestamp, byte[] body) {
+        CRC32 crc = new CRC32();
+        crc.update(ByteBuffer.allocate(16).putLong(sequence).putLong(timestamp).flip());
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+}
@@ -1,9 +1,14 @@
 package fr.panncake.pannlib.orm.mapping;
 
 import fr.panncake.pannlib.orm.annotations.*;
+import fr.panncake.pannlib.orm.converter.AttributeConverter;
+import fr.panncake.pannlib.orm.converter.ConverterRegistry;
+import fr.panncake.pannlib.orm.entity.LazyBlob;
 import lombok.Getter;
 
 import java.lang.reflect.Field;
+import java.time.Instant;
+import java.time.LocalDateTime;
 import java.util.*;
 
 @Getter
@@ -14,8 +19,21 @@ public class EntityMetadata {
     private final Map<String, Field> columnFields;
     private final Map<Field, String> fieldToColumn;
     private final List<String> primaryKeys = new ArrayList<>();
+    private final Map<String, UuidStorage> uuidStorages = new HashMap<>();
+    private final Map<String, AttributeConverter<Object, Object>> converters = new HashMap<>();
+    private final Set<String> lazyColumns = new LinkedHashSet<>();
+    private final UuidStorage defaultUuidStorage;
+    private final boolean cacheable;
+    private final long cacheTtlMillis;
+    private Field versionField;
+    private Field shardKeyField;
+    private Field partitionField;
 
     public EntityMetadata(Class<?> entityClass) {
+        this(entityClass, UuidStorage.STRING);
+    }
+
+    public EntityMetadata(Class<?> entityClass, UuidStorage defaultUuidStorage) {
         if (!entityClass.isAnnotationPresent(Entity.class)) {
             throw new IllegalArgumentException("Class must be annotated with @Entity");
         }
@@ -25,8 +43,26 @@ public class EntityMetadata {
         this.idField = findIdField(entityClass);
         this.columnFields = new LinkedHashMap<>();
         this.fieldToColumn = new IdentityHashMap<>();
+        this.defaultUuidStorage = defaultUuidStorage == null || defaultUuidStorage == UuidStorage.DEFAULT
+                ? UuidStorage.STRING : defaultUuidStorage;
 
         scanFields(entityClass);
+        resolvePartitioning(entityClass);
+        Cacheable cache = entityClass.getAnnotation(Cacheable.class);
+        this.cacheable = cache != null;
+        this.cacheTtlMillis = cache != null ? cache.ttlMillis() : 0;
+    }
+
+    private void resolvePartitioning(Class<?> clazz) {
+        TimePartitioned partitioned = clazz.getAnnotation(TimePartitioned.class);
+        if (partitioned == null) {
+            return;
+        }
+        Field field = columnFields.get(resolveColumn(partitioned.column()));
+        if (field.getType() != Instant.class && field.getType() != LocalDateTime.class) {
+            throw new IllegalArgumentException("Partition column " + partitioned.column() + " must be an Instant or LocalDateTime");
+        }
+        partitionField = field;
     }
 
     private String resolveTableName(Class<?> clazz) {
@@ -46,11 +82,13 @@ public class EntityMetadata {
     }
 
     private void scanFields(Class<?> clazz) {
-        for (Field field : clazz.getDeclaredFields()) {
-            if (field.isAnnotationPresent(Transient.class)) {
+        for (Field declared : clazz.getDeclaredFields()) {
+            if (declared.isAnnotationPresent(Transient.class)) {
                 continue;
             }
-            if (field.isAnnotationPresent(Column.class) || field.isAnnotationPresent(Id.class)) {
+            Field field = declared.equals(idField) ? idField : declared;
+            if (field.isAnnotationPresent(Column.class) || field.isAnnotationPresent(Id.class)
+                    || field.isAnnotationPresent(Version.class)) {
                 field.setAccessible(true);
                 String columnName = resolveColumnName(field);
                 columnFields.put(columnName, field);
@@ -63,6 +101,27 @@ public class EntityMetadata {
                 if (field.isAnnotationPresent(Id.class)) {
                     primaryKeys.add(columnName);
                 }
+                if (field.isAnnotationPresent(ShardKey.class)) {
+                    shardKeyField = field;
+                }
+                if (field.isAnnotationPresent(Version.class)) {
+                    Class<?> type = field.getType();
+                    if (type != int.class && type != Integer.class && type != long.class && type != Long.class) {
+                        throw new IllegalArgumentException("@Version field " + field.getName() + " must be an int or long");
+                    }
+                    versionField = field;
+                }
+                if (field.getType() == LazyBlob.class) {
+                    lazyColumns.add(columnName);
+                }
+                AttributeConverter<Object, Object> converter = ConverterRegistry.resolve(field);
+                if (converter != null) {
+                    converters.put(columnName, converter);
+                }
+                if (field.getType() == UUID.class) {
+                    UuidStorage storage = column != null ? column.uuidStorage() : UuidStorage.DEFAULT;
+                    uuidStorages.put(columnName, storage == UuidStorage.DEFAULT ? defaultUuidStorage : storage);
+                }
             }
         }
     }
@@ -75,9 +134,85 @@ public class EntityMetadata {
         return field.getName();
     }
 
+    public boolean isPartitioned() {
+        return partitionField != null;
+    }
+
+    public String getPartitionColumnName() {
+        return partitionField != null ? fieldToColumn.get(partitionField) : null;
+    }
+
+    public TimePartitioned getPartitioning() {
+        return entityClass.getAnnotation(TimePartitioned.class);
+    }
+
+    public Field getShardKeyField() {
+        return shardKeyField != null ? shardKeyField : idField;
+    }
+
+    public String getShardKeyColumnName() {
+        return fieldToColumn.get(getShardKeyField());
+    }
+
+    public boolean hasVersion() {
+        return versionField != null;
+    }
+
+    public String getVersionColumnName() {
+        return versionField != null ? fieldToColumn.get(versionField) : null;
+    }
+
+    public boolean isLazy(String columnName) {
+        return lazyColumns.contains(columnName);
+    }
+
     public boolean isAutoIncrementId() {
         return idField.getAnnotation(Id.class).autoIncrement();
     }
 
     public String getIdColumnName() { return fieldToColumn.get(idField); }
+
+    public String resolveColumn(String name) {
+        if (columnFields.containsKey(name)) {
+            return name;
+        }
+        for (Map.Entry<Field, String> entry : fieldToColumn.entrySet()) {
+            if (entry.getKey().getName().equals(name)) {
+                return entry.getValue();
+            }
+        }
+        throw new IllegalArgumentException("Unknown column '" + name + "' on " + entityClass.getName());
+    }
+
+    public boolean isSeekable(String columnName) {
+        Field field = columnFields.get(columnName);
+        if (field == null) {
+            return false;
+        }
+        if (field == idField || primaryKeys.contains(columnName)) {
+            return true;
+        }
+        Column column = field.getAnnotation(Column.class);
+        boolean indexed = field.isAnnotationPresent(Index.class) || column != null && column.unique();
+        boolean notNull = field.getType().isPrimitive() || column != null && !column.nullable();
+        return indexed && notNull;
+    }
+
+    public List<String> getIndexedColumns() {
+        List<String> indexed = new ArrayList<>();
+        columnFields.forEach((columnName, field) -> {
+            if (field.isAnnotationPresent(Index.class)) {
+                indexed.add(columnName);
+            }
+        });
+        return indexed;
+    }
+
+    public AttributeConverter<Object, Object> getConverter(String columnName) {
+        return converters.get(columnName);
+    }
+
+    public UuidStorage getUuidStorage(String columnName) {
+        return uuidStorages.getOrDefault(columnName, defaultUuidStorage);
+    }
 }
@@ -0,0 +1,9 @@
+package fr.panncake.pannlib.orm.query;
+
+public enum AggregateFunction {
+    COUNT,
+    SUM,
+    MIN,
+    MAX,
+    AVG
+}
@@ -0,0 +1,41 @@
+package fr.panncake.pannlib.orm.query;
+
+import fr.panncake.pannlib.orm.entity.LazyBlob;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+
+public record BoundStatement(String sql, Object[] parameters) {
+
+    public void bind(PreparedStatement stmt) throws SQLException {
+        for (int i = 0; i < parameters.length; i++) {
+            if (parameters[i] instanceof LazyBlob blob) {
+                blob.bindTo(stmt, i + 1);
+            } else if (parameters[i] instanceof Instant instant) {
+                stmt.setTimestamp(i + 1, Timestamp.from(instant));
+            } else {
+                stmt.setObject(i + 1, parameters[i]);
+            }
+        }
+    }
+
+    public void release() {
+        for (Object parameter : parameters) {
+            if (parameter instanceof LazyBlob blob) {
+                blob.release();
+            }
+        }
+    }
+
+    public BoundStatement materialize() {
+        Object[] copy = parameters.clone();
+        for (int i = 0; i < copy.length; i++) {
+            if (copy[i] instanceof LazyBlob blob) {
+                copy[i] = blob.getBytes();
+            }
+        }
+        return new BoundStatement(sql, copy);
+    }
+}
@@ -0,0 +1,63 @@
+package fr.panncake.pannlib.orm.query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+public final class Criteria {
+    private final List<Condition> conditions = new ArrayList<>();
+
+    private Criteria() {
+    }
+
+    public static Criteria where(String column, Object value) {
+        return new Criteria().and(column, Operator.EQ, value);
+    }
+
+    public static Criteria where(String column, Operator operator, Object value) {
+        return new Criteria().and(column, operator, value);
+    }
+
+    public Criteria and(String column, Object value) {
+        return and(column, Operator.EQ, value);
+    }
+
+    public Criteria and(String column, Operator operator, Object value) {
+        if (operator == Operator.IN && !(value instanceof Collection<?> values && !values.isEmpty())) {
+            throw new IllegalArgumentException("IN requires a non-empty collection");
+        }
+        conditions.add(new Condition(column, operator, value));
+        return this;
+    }
+
+    public List<Condition> conditions() {
+        return Collections.unmodifiableList(conditions);
+    }
+
+    public record Condition(String column, Operator operator, Object value) {
+    }
+
+    public enum Operator {
+        EQ("="),
+        NE("<>"),
+        LT("<"),
+        LTE("<="),
+        GT(">"),
+        GTE(">="),
+        LIKE("LIKE"),
+        IN("IN"),
+        IS_NULL("IS NULL"),
+        IS_NOT_NULL("IS NOT NULL");
+
+        private final String sql;
+
+        Operator(String sql) {
+            this.sql = sql;
+        }
+
+        public String sql() {
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package fr.panncake.pannlib.orm.query;
+
+import java.util.List;
+
+public record Page<T>(List<T> items, PageKey nextKey) {
+
+    public boolean hasNext() {
+        return nextKey != null;
+    }
+}
@@ -0,0 +1,8 @@
+package fr.panncake.pannlib.orm.query;
+
+public record PageKey(Object value, Object id) {
+
+    public static PageKey after(Object id) {
+        return new PageKey(id, id);
+    }
+}
@@ -2,65 +2,113 @@ package fr.panncake.pannlib.orm.query;
 
 import fr.panncake.pannlib.orm.annotations.Column;
 import fr.panncake.pannlib.orm.annotations.Id;
+import fr.panncake.pannlib.orm.annotations.Index;
+import fr.panncake.pannlib.orm.annotations.UuidStorage;
+import fr.panncake.pannlib.orm.config.DatabaseType;
+import fr.panncake.pannlib.orm.converter.AttributeConverter;
 import fr.panncake.pannlib.orm.mapping.EntityMetadata;
 
 import java.lang.reflect.Field;
 import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 public final class QueryBuilder {
+    private static final DateTimeFormatter TIMESTAMP_LITERAL = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+            .withZone(ZoneOffset.UTC);
 
     public static String buildCreateTable(EntityMetadata metadata) {
+        return buildCreateTable(metadata, DatabaseType.MYSQL);
+    }
+
+    public static String buildCreateTable(EntityMetadata metadata, DatabaseType databaseType) {
+        return buildCreateTable(metadata, databaseType, metadata.getTableName());
+    }
+
+    public static String buildCreateTable(EntityMetadata metadata, DatabaseType databaseType, String tableName) {
         StringBuilder sb = new StringBuilder();
-        sb.append("CREATE TABLE IF NOT EXISTS ").append(metadata.getTableName()).append(" (\n");
+        sb.append("CREATE TABLE IF NOT EXISTS ").append(tableName).append(" (\n");
 
         List<String> columnDefs = new ArrayList<>();
+        boolean sqlite = databaseType == DatabaseType.SQLITE;
+        boolean postgres = databaseType == DatabaseType.POSTGRESQL;
+        boolean nativePartitioning = metadata.isPartitioned() && !sqlite;
+        boolean[] inlinePrimaryKey = new boolean[1];
 
         metadata.getColumnFields().forEach((columnName, field) -> {
-            StringBuilder col = new StringBuilder("  `" + columnName + "` " + sqlTypeFor(field));
+            boolean autoIncrement = field.isAnnotationPresent(Id.class) && field.getAnnotation(Id.class).autoIncrement();
+            if (sqlite && autoIncrement) {
+                columnDefs.add("  " + quote(columnName, databaseType) + " INTEGER PRIMARY KEY AUTOINCREMENT");
+                inlinePrimaryKey[0] = true;
+                return;
+            }
+            String type = postgres && autoIncrement
+                    ? (field.getType() == int.class || field.getType() == Integer.class ? "SERIAL" : "BIGSERIAL")
+                    : sqlTypeFor(metadata, columnName, field, databaseType);
+            StringBuilder col = new StringBuilder("  " + quote(columnName, databaseType) + " " + type);
 
             Column column = field.getAnnotation(Column.class);
-            if (field.isAnnotationPresent(Id.class)) {
-                Id id = field.getAnnotation(Id.class);
-                if (!id.autoIncrement()) {
-                    col.append(" NOT NULL");
-                }
+            if (field.isAnnotationPresent(Id.class) && !autoIncrement) {
+                col.append(" NOT NULL");
             }
             if (column != null) {
                 if (!column.nullable()) col.append(" NOT NULL");
-                if (column.unique()) col.append(" UNIQUE");
+                if (column.unique() && !nativePartitioning) col.append(" UNIQUE");
             }
-            if (field.isAnnotationPresent(Id.class)) {
-                Id id = field.getAnnotation(Id.class);
-                if (id.autoIncrement()) {
-                    col.append(" AUTO_INCREMENT");
-                }
+            if (autoIncrement && databaseType == DatabaseType.MYSQL) {
+                col.append(" AUTO_INCREMENT");
             }
             columnDefs.add(col.toString());
         });
 
         sb.append(String.join(",\n", columnDefs));
 
-        if (!metadata.getPrimaryKeys().isEmpty()) {
+        List<String> primaryKeys = new ArrayList<>(metadata.getPrimaryKeys());
+        if (nativePartitioning && !primaryKeys.contains(metadata.getPartitionColumnName())) {
+            primaryKeys.add(metadata.getPartitionColumnName());
+        }
+        if (!primaryKeys.isEmpty() && !inlinePrimaryKey[0]) {
             sb.append(",\n  PRIMARY KEY (");
-            sb.append(metadata.getPrimaryKeys().stream().map(n -> "`" + n + "`").collect(java.util.stream.Collectors.joining(", ")));
+            sb.append(primaryKeys.stream().map(n -> quote(n, databaseType)).collect(Collectors.joining(", ")));
             sb.append(")");
         }
 
-        sb.append("\n) ENGINE=InnoDB;");
-        return sb.toString();
+        sb.append("\n)");
+        if (databaseType == DatabaseType.MYSQL) {
+            sb.append(" ENGINE=InnoDB");
+            if (nativePartitioning) {
+                Instant start = metadata.getPartitioning().interval().floor(Instant.now());
+                sb.append(" PARTITION BY RANGE (UNIX_TIMESTAMP(").append(metadata.getPartitionColumnName()).append(")) (")
+                        .append(mysqlPartition(metadata, start)).append(")");
+            }
+        } else if (nativePartitioning) {
+            sb.append(" PARTITION BY RANGE (").append(metadata.getPartitionColumnName()).append(")");
+        }
+        return sb.append(";").toString();
     }
 
     public static String buildAddColumn(EntityMetadata metadata, String columnName) {
+        return buildAddColumn(metadata, columnName, DatabaseType.MYSQL);
+    }
+
+    public static String buildAddColumn(EntityMetadata metadata, String columnName, DatabaseType databaseType) {
+        return buildAddColumn(metadata, columnName, databaseType, metadata.getTableName());
+    }
+
+    public static String buildAddColumn(EntityMetadata metadata, String columnName, DatabaseType databaseType, String tableName) {
         Field field = metadata.getColumnFields().get(columnName);
         if (field == null) throw new IllegalArgumentException("Unknown column " + columnName);
         StringBuilder sb = new StringBuilder();
-        sb.append("ALTER TABLE ").append(metadata.getTableName())
-                .append(" ADD COLUMN `").append(columnName).append("` ").append(sqlTypeFor(field));
+        sb.append("ALTER TABLE ").append(tableName)
+                .append(" ADD COLUMN ").append(quote(columnName, databaseType)).append(" ")
+                .append(sqlTypeFor(metadata, columnName, field, databaseType));
 
         Column column = field.getAnnotation(Column.class);
         if (column != null && !column.nullable()) sb.append(" NOT NULL");
@@ -68,7 +116,87 @@ public final class QueryBuilder {
         return sb.toString();
     }
 
+    public static String indexName(EntityMetadata metadata, String tableName, String columnName) {
+        Index index = metadata.getColumnFields().get(columnName).getAnnotation(Index.class);
+        if (index.name().isEmpty() || !tableName.equals(metadata.getTableName())) {
+            return "idx_" + tableName + "_" + columnName;
+        }
+        return index.name();
+    }
+
+    public static String buildCreateIndex(EntityMetadata metadata, DatabaseType databaseType, String tableName, String columnName) {
+        Index index = metadata.getColumnFields().get(columnName).getAnnotation(Index.class);
+        boolean unique = index.unique() && !(metadata.isPartitioned() && databaseType != DatabaseType.SQLITE);
+        return "CREATE " + (unique ? "UNIQUE " : "") + "INDEX " + indexName(metadata, tableName, columnName)
+                + " ON " + tableName + " (" + quote(columnName, databaseType) + ");";
+    }
+
+    public static String partitionName(EntityMetadata metadata, DatabaseType databaseType, Instant start) {
+        String suffix = "p" + metadata.getPartitioning().interval().suffix(start);
+        return databaseType == DatabaseType.MYSQL ? suffix : metadata.getTableName() + "_" + suffix;
+    }
+
+    public static String buildCreatePartition(EntityMetadata metadata, DatabaseType databaseType, Instant start) {
+        String name = partitionName(metadata, databaseType, start);
+        return switch (databaseType) {
+            case POSTGRESQL -> String.format("CREATE TABLE IF NOT EXISTS %s PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s');",
+                    name, metadata.getTableName(), timestampLiteral(start),
+                    timestampLiteral(metadata.getPartitioning().interval().next(start)));
+            case MYSQL -> String.format("ALTER TABLE %s ADD PARTITION (%s);", metadata.getTableName(), mysqlPartition(metadata, start));
+            case SQLITE -> buildCreateTable(metadata, databaseType, name);
+        };
+    }
+
+    public static String buildDropPartition(EntityMetadata metadata, DatabaseType databaseType, String partitionName) {
+        if (databaseType == DatabaseType.MYSQL) {
+            return String.format("ALTER TABLE %s DROP PARTITION %s;", metadata.getTableName(), partitionName);
+        }
+        return "DROP TABLE IF EXISTS " + partitionName + ";";
+    }
+
+    public static String buildPartitionView(EntityMetadata metadata, List<String> partitionTables) {
+        return "CREATE VIEW " + metadata.getTableName() + " AS " + partitionTables.stream()
+                .map(table -> "SELECT * FROM " + table)
+                .collect(Collectors.joining(" UNION ALL "));
+    }
+
+    public static String buildListPartitions(DatabaseType databaseType) {
+        return switch (databaseType) {
+            case POSTGRESQL -> "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                    + "JOIN pg_class p ON p.oid = i.inhparent WHERE p.relname = ?";
+            case MYSQL -> "SELECT PARTITION_NAME FROM information_schema.PARTITIONS "
+                    + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL";
+            case SQLITE -> "SELECT name FROM sqlite_master WHERE type = 'table' AND substr(name, 1, length(?) + 2) = ? || '_p'";
+        };
+    }
+
+    public static String buildPurgeChunk(EntityMetadata metadata, String column, DatabaseType databaseType) {
+        if (databaseType == DatabaseType.MYSQL) {
+            return String.format("DELETE FROM %s WHERE %s < ? LIMIT ?", metadata.getTableName(), column);
+        }
+        return String.format("DELETE FROM %1$s WHERE %2$s IN (SELECT %2$s FROM %1$s WHERE %3$s < ? LIMIT ?)",
+                metadata.getTableName(), metadata.getIdColumnName(), column);
+    }
+
+    private static String mysqlPartition(EntityMetadata metadata, Instant start) {
+        return String.format("PARTITION p%s VALUES LESS THAN (UNIX_TIMESTAMP('%s'))",
+                metadata.getPartitioning().interval().suffix(start),
+                timestampLiteral(metadata.getPartitioning().interval().next(start)));
+    }
+
+    private static String timestampLiteral(Instant instant) {
+        return TIMESTAMP_LITERAL.format(instant);
+    }
+
+    private static String quote(String identifier, DatabaseType databaseType) {
+        return databaseType == DatabaseType.POSTGRESQL ? identifier : "`" + identifier + "`";
+    }
+
     public static String buildInsert(EntityMetadata metadata) {
+        return buildInsert(metadata, metadata.getTableName());
+    }
+
+    public static String buildInsert(EntityMetadata metadata, String tableName) {
         String columns = metadata.getColumnFields().keySet().stream()
                 .filter(col -> !metadata.isAutoIncrementId() || !col.equals(metadata.getFieldToColumn().get(metadata.getIdField())))
                 .collect(Collectors.joining(", "));
@@ -78,45 +206,172 @@ public final class QueryBuilder {
                 .map(f -> "?")
                 .collect(Collectors.joining(", "));
 
-        return String.format("INSERT INTO %s (%s) VALUES (%s)", metadata.getTableName(), columns, placeholders);
+        return String.format("INSERT INTO %s (%s) VALUES (%s)", tableName, columns, placeholders);
     }
 
     public static String buildSelectById(EntityMetadata metadata) {
-        return String.format("SELECT * FROM %s WHERE %s = ?", metadata.getTableName(),
+        return String.format("SELECT %s FROM %s WHERE %s = ?", selectColumns(metadata), metadata.getTableName(),
                 metadata.getFieldToColumn().get(metadata.getIdField()));
     }
 
     public static String buildSelectAll(EntityMetadata metadata) {
-        return String.format("SELECT * FROM %s", metadata.getTableName());
+        return String.format("SELECT %s FROM %s", selectColumns(metadata), metadata.getTableName());
+    }
+
+    public static String buildSelectPage(EntityMetadata metadata, String orderColumn, boolean seek, boolean descending) {
+        String idColumn = metadata.getIdColumnName();
+        String direction = descending ? " DESC" : "";
+        String comparator = descending ? " < ?" : " > ?";
+        StringBuilder sb = new StringBuilder("SELECT ").append(selectColumns(metadata))
+                .append(" FROM ").append(metadata.getTableName());
+        if (orderColumn.equals(idColumn)) {
+            if (seek) {
+                sb.append(" WHERE ").append(idColumn).append(comparator);
+            }
+            sb.append(" ORDER BY ").append(idColumn).append(direction);
+        } else {
+            if (seek) {
+                sb.append(" WHERE (").append(orderColumn).append(comparator)
+                        .append(" OR (").append(orderColumn).append(" = ? AND ").append(idColumn).append(comparator).append("))");
+            }
+            sb.append(" ORDER BY ").append(orderColumn).append(direction).append(", ").append(idColumn).append(direction);
+        }
+        return sb.append(" LIMIT ?").toString();
+    }
+
+    public static String buildSelectWhere(EntityMetadata metadata, Criteria criteria) {
+        return "SELECT " + selectColumns(metadata) + " FROM " + metadata.getTableName() + buildWhere(metadata, criteria);
+    }
+
+    public static String buildCount(EntityMetadata metadata, Criteria criteria) {
+        return "SELECT COUNT(*) AS agg FROM " + metadata.getTableName() + buildWhere(metadata, criteria);
+    }
+
+    public static String buildExists(EntityMetadata metadata, Criteria criteria) {
+        return "SELECT 1 FROM " + metadata.getTableName() + buildWhere(metadata, criteria) + " LIMIT 1";
+    }
+
+    public static String buildAggregate(EntityMetadata metadata, AggregateFunction function, String column,
+                                        String groupBy, Criteria criteria) {
+        if (column == null && function != AggregateFunction.COUNT) {
+            throw new IllegalArgumentException(function + " requires a column");
+        }
+        String target = column == null ? "*" : metadata.resolveColumn(column);
+        StringBuilder sb = new StringBuilder("SELECT ");
+        String groupColumn = groupBy == null ? null : metadata.resolveColumn(groupBy);
+        if (groupColumn != null) {
+            sb.append(groupColumn).append(", ");
+        }
+        sb.append(function.name()).append("(").append(target).append(") AS agg FROM ")
+                .append(metadata.getTableName()).append(buildWhere(metadata, criteria));
+        if (groupColumn != null) {
+            sb.append(" GROUP BY ").append(groupColumn);
+        }
+        return sb.toString();
+    }
+
+    public static String buildWhere(EntityMetadata metadata, Criteria criteria) {
+        if (criteria == null || criteria.conditions().isEmpty()) {
+            return "";
+        }
+        return criteria.conditions().stream()
+                .map(condition -> {
+                    String column = metadata.resolveColumn(condition.column());
+                    return switch (condition.operator()) {
+                        case IS_NULL, IS_NOT_NULL -> column + " " + condition.operator().sql();
+                        case IN -> column + " IN (" + ((Collection<?>) condition.value()).stream()
+                                .map(v -> "?").collect(Collectors.joining(", ")) + ")";
+                        default -> column + " " + condition.operator().sql() + " ?";
+                    };
+                })
+                .collect(Collectors.joining(" AND ", " WHERE ", ""));
+    }
+
+    public static String buildExplain(DatabaseType databaseType, String sql) {
+        return switch (databaseType) {
+            case SQLITE -> "EXPLAIN QUERY PLAN " + sql;
+            case MYSQL, POSTGRESQL -> "EXPLAIN " + sql;
+        };
+    }
+
+    public static String buildSelectLob(EntityMetadata metadata, String columnName) {
+        return String.format("SELECT %s FROM %s WHERE %s = ?", columnName, metadata.getTableName(),
+                metadata.getIdColumnName());
+    }
+
+    public static String selectColumns(EntityMetadata metadata) {
+        if (metadata.getLazyColumns().isEmpty()) {
+            return "*";
+        }
+        return metadata.getColumnFields().keySet().stream()
+                .filter(column -> !metadata.isLazy(column))
+                .collect(Collectors.joining(", "));
     }
 
     public static String buildUpdate(EntityMetadata metadata) {
+        return buildUpdate(metadata, Set.of());
+    }
+
+    public static String buildUpdate(EntityMetadata metadata, Set<String> excludedColumns) {
+        return buildUpdate(metadata, excludedColumns, metadata.getTableName());
+    }
+
+    public static String buildUpdate(EntityMetadata metadata, Set<String> excludedColumns, String tableName) {
         String setClause = metadata.getColumnFields().entrySet().stream()
                 .filter(e -> e.getValue() != metadata.getIdField())
-                .map(e -> e.getKey() + " = ?")
+                .filter(e -> !excludedColumns.contains(e.getKey()))
+                .map(e -> e.getValue() == metadata.getVersionField()
+                        ? e.getKey() + " = " + e.getKey() + " + 1"
+                        : e.getKey() + " = ?")
                 .collect(Collectors.joining(", "));
 
-        return String.format("UPDATE %s SET %s WHERE %s = ?", metadata.getTableName(), setClause,
-                metadata.getFieldToColumn().get(metadata.getIdField()));
+        return String.format("UPDATE %s SET %s WHERE %s = ?%s", tableName, setClause,
+                metadata.getFieldToColumn().get(metadata.getIdField()), versionCondition(metadata));
+    }
+
+    private static String versionCondition(EntityMetadata metadata) {
+        return metadata.hasVersion() ? " AND " + metadata.getVersionColumnName() + " = ?" : "";
     }
 
     public static String buildDeleteById(EntityMetadata metadata) {
-        return String.format("DELETE FROM %s WHERE %s = ?", metadata.getTableName(),
-                metadata.getFieldToColumn().get(metadata.getIdField()));
+        return buildDeleteById(metadata, metadata.getTableName());
     }
 
-    private static String sqlTypeFor(Field field) {
-        Class<?> type = field.getType();
+    public static String buildDeleteById(EntityMetadata metadata, String tableName) {
+        return String.format("DELETE FROM %s WHERE %s = ?%s", tableName,
+                metadata.getFieldToColumn().get(metadata.getIdField()), versionCondition(metadata));
+    }
 
+    private static String sqlTypeFor(EntityMetadata metadata, String columnName, Field field, DatabaseType databaseType) {
         Column column = field.getAnnotation(Column.class);
         int length = column != null ? column.length() : 255;
 
-        if (type == String.class) {
-            return "VARCHAR(" + length + ")";
+        AttributeConverter<Object, Object> converter = metadata.getConverter(columnName);
+        if (converter != null) {
+            String sqlType = converter.sqlType(databaseType);
+            return sqlType != null ? sqlType : sqlTypeFor(converter.databaseType(), length, databaseType);
         }
-        if (type == UUID.class) {
+
+        if (metadata.isLazy(columnName)) {
+            return switch (databaseType) {
+                case POSTGRESQL -> "BYTEA";
+                case MYSQL -> "LONGBLOB";
+                default -> "BLOB";
+            };
+        }
+        if (field.getType() == UUID.class) {
+            if (metadata.getUuidStorage(columnName) == UuidStorage.BINARY) {
+                return databaseType == DatabaseType.POSTGRESQL ? "UUID" : "BINARY(16)";
+            }
             return "CHAR(36)";
         }
+        return sqlTypeFor(field.getType(), length, databaseType);
+    }
+
+    private static String sqlTypeFor(Class<?> type, int length, DatabaseType databaseType) {
+        if (type == String.class) {
+            return "VARCHAR(" + length + ")";
+        }
         if (type == int.class || type == Integer.class) {
             return "INT";
         }
@@ -124,16 +379,16 @@ public final class QueryBuilder {
             return "BIGINT";
         }
         if (type == boolean.class || type == Boolean.class) {
-            return "TINYINT(1)";
+            return databaseType == DatabaseType.POSTGRESQL ? "BOOLEAN" : "TINYINT(1)";
         }
         if (type == double.class || type == Double.class) {
-            return "DOUBLE";
+            return databaseType == DatabaseType.POSTGRESQL ? "DOUBLE PRECISION" : "DOUBLE";
         }
         if (type == float.class || type == Float.class) {
             return "FLOAT";
         }
         if (type == byte[].class) {
-            return "BLOB";
+            return databaseType == DatabaseType.POSTGRESQL ? "BYTEA" : "BLOB";
         }
         if (type == Instant.class || type == LocalDateTime.class) {
             return "TIMESTAMP";
@@ -0,0 +1,6 @@
+package fr.panncake.pannlib.orm.schema;
+
+import java.time.Instant;
+
+public record PartitionInfo(String name, Instant start, Instant end) {
+}
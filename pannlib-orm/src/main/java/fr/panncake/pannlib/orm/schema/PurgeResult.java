@@ -0,0 +1,4 @@
+package fr.panncake.pannlib.orm.schema;
+
+public record PurgeResult(int droppedPartitions, long deletedRows) {
+}
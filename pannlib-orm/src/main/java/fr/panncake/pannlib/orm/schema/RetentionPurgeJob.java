@@ -0,0 +1,151 @@
+package fr.panncake.pannlib.orm.schema;
+
+import fr.panncake.pannlib.orm.config.PurgeConfig;
+import fr.panncake.pannlib.orm.connection.ConnectionManager;
+import fr.panncake.pannlib.orm.exception.DatabaseException;
+import fr.panncake.pannlib.orm.mapping.EntityMetadata;
+import fr.panncake.pannlib.orm.query.QueryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+public final class RetentionPurgeJob {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RetentionPurgeJob.class);
+    private final ConnectionManager connectionManager;
+    private final SchemaManager schemaManager;
+    private final PurgeConfig config;
+    private final Map<Class<?>, Rule> rules = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> task;
+    private volatile boolean running;
+
+    public RetentionPurgeJob(ConnectionManager connectionManager, PurgeConfig config) {
+        this.connectionManager = connectionManager;
+        this.schemaManager = new SchemaManager(connectionManager);
+        this.config = config != null ? config : PurgeConfig.builder().build();
+    }
+
+    public RetentionPurgeJob register(Class<?> entityClass, Duration retention) {
+        EntityMetadata metadata = new EntityMetadata(entityClass, connectionManager.getConfig().uuidStorage());
+        if (!metadata.isPartitioned()) {
+            throw new IllegalArgumentException(entityClass.getSimpleName() + " is not @TimePartitioned, a retention column is required");
+        }
+        rules.put(entityClass, new Rule(metadata, metadata.getPartitionColumnName(), retention));
+        return this;
+    }
+
+    public RetentionPurgeJob register(Class<?> entityClass, String column, Duration retention) {
+        EntityMetadata metadata = new EntityMetadata(entityClass, connectionManager.getConfig().uuidStorage());
+        rules.put(entityClass, new Rule(metadata, metadata.resolveColumn(column), retention));
+        return this;
+    }
+
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        running = true;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "PannORM-RetentionPurge");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        task = scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                runOnce();
+            } catch (Exception e) {
+                LOGGER.warn("Retention purge failed", e);
+            }
+        }, 0, config.intervalMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (scheduler == null) {
+            return;
+        }
+        task.cancel(false);
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+    }
+
+    public PurgeResult runOnce() {
+        Instant now = Instant.now();
+        int dropped = 0;
+        long deleted = 0;
+        for (Rule rule : rules.values()) {
+            Instant cutoff = now.minus(rule.retention());
+            if (rule.metadata().isPartitioned() && rule.column().equals(rule.metadata().getPartitionColumnName())) {
+                schemaManager.ensurePartitions(rule.metadata(), now);
+                List<PartitionInfo> expired = schemaManager.dropPartitionsBefore(rule.metadata(), cutoff);
+                if (!expired.isEmpty()) {
+                    LOGGER.info("Dropped {} expired partition(s) of {}", expired.size(), rule.metadata().getTableName());
+                }
+                dropped += expired.size();
+            } else {
+                deleted += purgeRows(rule, cutoff);
+            }
+        }
+        return new PurgeResult(dropped, deleted);
+    }
+
+    private long purgeRows(Rule rule, Instant cutoff) {
+        String sql = QueryBuilder.buildPurgeChunk(rule.metadata(), rule.column(), connectionManager.getConfig().type());
+        Field field = rule.metadata().getColumnFields().get(rule.column());
+        Timestamp threshold = field.getType() == LocalDateTime.class
+                ? Timestamp.valueOf(LocalDateTime.ofInstant(cutoff, ZoneOffset.UTC))
+                : Timestamp.from(cutoff);
+        long total = 0;
+        while (true) {
+            int deleted;
+            try (Connection conn = connectionManager.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+                conn.setAutoCommit(true);
+                stmt.setTimestamp(1, threshold);
+                stmt.setInt(2, config.chunkSize());
+                deleted = stmt.executeUpdate();
+            } catch (SQLException e) {
+                throw new DatabaseException("Failed to purge expired rows of " + rule.metadata().getTableName(), e);
+            }
+            total += deleted;
+            if (deleted < config.chunkSize() || !running && scheduler != null) {
+                break;
+            }
+            try {
+                Thread.sleep(config.pauseMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (total > 0) {
+            LOGGER.info("Purged {} expired row(s) from {}", total, rule.metadata().getTableName());
+        }
+        return total;
+    }
+
+    private record Rule(EntityMetadata metadata, String column, Duration retention) {
+    }
+}
@@ -1,24 +1,34 @@
 package fr.panncake.pannlib.orm.schema;
 
+import fr.panncake.pannlib.orm.annotations.PartitionInterval;
+import fr.panncake.pannlib.orm.config.DatabaseConfig;
+import fr.panncake.pannlib.orm.config.DatabaseType;
 import fr.panncake.pannlib.orm.connection.ConnectionManager;
 import fr.panncake.pannlib.orm.exception.DatabaseException;
 import fr.panncake.pannlib.orm.mapping.EntityMetadata;
 import fr.panncake.pannlib.orm.query.QueryBuilder;
 
 import java.sql.*;
-import java.util.Collection;
-import java.util.HashSet;
-import java.util.Set;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 public record SchemaManager(ConnectionManager connectionManager) {
+    private static final Object PARTITION_LOCK = new Object();
+    private static final Map<ConnectionManager, Set<String>> KNOWN_PARTITIONS = Collections.synchronizedMap(new WeakHashMap<>());
 
     public <T> void ensureTable(Class<T> entityClass) {
-        EntityMetadata metadata = new EntityMetadata(entityClass);
+        DatabaseConfig config = connectionManager.getConfig();
+        EntityMetadata metadata = new EntityMetadata(entityClass, config.uuidStorage());
+        if (metadata.isPartitioned()) {
+            ensurePartitionedTable(metadata);
+            return;
+        }
         try (Connection conn = connectionManager.getConnection()) {
             conn.setAutoCommit(true);
             if (!tableExists(conn, metadata.getTableName())) {
-                String createSql = QueryBuilder.buildCreateTable(metadata);
+                String createSql = QueryBuilder.buildCreateTable(metadata, config.type());
                 try (Statement s = conn.createStatement()) {
                     s.execute(createSql);
                 }
@@ -26,13 +36,14 @@ public record SchemaManager(ConnectionManager connectionManager) {
                 Set<String> existing = getExistingColumns(conn, metadata.getTableName());
                 for (String col : metadata.getColumnFields().keySet()) {
                     if (!existing.contains(col)) {
-                        String alter = QueryBuilder.buildAddColumn(metadata, col);
+                        String alter = QueryBuilder.buildAddColumn(metadata, col, config.type());
                         try (Statement s = conn.createStatement()) {
                             s.execute(alter);
                         }
                     }
                 }
             }
+            ensureIndexes(conn, metadata, metadata.getTableName());
         } catch (SQLException e) {
             throw new DatabaseException("Failed to ensure table " + metadata.getTableName(), e);
         }
@@ -44,6 +55,216 @@ public record SchemaManager(ConnectionManager connectionManager) {
         }
     }
 
+    public List<PartitionInfo> ensurePartitions(Class<?> entityClass) {
+        return ensurePartitions(metadataFor(entityClass), Instant.now());
+    }
+
+    public List<PartitionInfo> ensurePartitions(EntityMetadata metadata, Instant now) {
+        try (Connection conn = connectionManager.getConnection()) {
+            conn.setAutoCommit(true);
+            return ensurePartitions(conn, metadata, now, metadata.getPartitioning().precreate());
+        } catch (SQLException e) {
+            throw new DatabaseException("Failed to create partitions for " + metadata.getTableName(), e);
+        }
+    }
+
+    public void ensurePartitionFor(EntityMetadata metadata, Instant value, Connection conn) {
+        try {
+            ensurePartitions(conn, metadata, value, 0);
+        } catch (SQLException e) {
+            throw new DatabaseException("Failed to create partition of " + metadata.getTableName() + " for " + value, e);
+        }
+    }
+
+    public Set<String> knownPartitions() {
+        return KNOWN_PARTITIONS.computeIfAbsent(connectionManager, c -> ConcurrentHashMap.newKeySet());
+    }
+
+    public List<PartitionInfo> listPartitions(Class<?> entityClass) {
+        EntityMetadata metadata = metadataFor(entityClass);
+        try (Connection conn = connectionManager.getConnection()) {
+            return listPartitions(conn, metadata);
+        } catch (SQLException e) {
+            throw new DatabaseException("Failed to list partitions of " + metadata.getTableName(), e);
+        }
+    }
+
+    public List<PartitionInfo> dropPartitionsBefore(EntityMetadata metadata, Instant cutoff) {
+        DatabaseType type = connectionManager.getConfig().type();
+        try (Connection conn = connectionManager.getConnection()) {
+            conn.setAutoCommit(true);
+            synchronized (PARTITION_LOCK) {
+                List<PartitionInfo> partitions = listPartitions(conn, metadata);
+                List<PartitionInfo> expired = partitions.stream().filter(p -> !p.end().isAfter(cutoff)).toList();
+                if (expired.isEmpty()) {
+                    return expired;
+                }
+                if (type == DatabaseType.SQLITE) {
+                    List<PartitionInfo> remaining = new ArrayList<>(partitions);
+                    remaining.removeAll(expired);
+                    if (remaining.isEmpty()) {
+                        ensurePartitions(conn, metadata, Instant.now(), 0);
+                        remaining = new ArrayList<>(listPartitions(conn, metadata));
+                        remaining.removeAll(expired);
+                    }
+                    rebuildView(conn, metadata, remaining);
+                }
+                Set<String> known = knownPartitions();
+                try (Statement s = conn.createStatement()) {
+                    for (PartitionInfo partition : expired) {
+                        known.remove(partition.name());
+                        s.execute(QueryBuilder.buildDropPartition(metadata, type, partition.name()));
+                    }
+                }
+                return expired;
+            }
+        } catch (SQLException e) {
+            throw new DatabaseException("Failed to drop partitions of " + metadata.getTableName(), e);
+        }
+    }
+
+    private void ensurePartitionedTable(EntityMetadata metadata) {
+        DatabaseType type = connectionManager.getConfig().type();
+        if (type != DatabaseType.SQLITE) {
+            try (Connection conn = connectionManager.getConnection()) {
+                conn.setAutoCommit(true);
+                if (!tableExists(conn, metadata.getTableName()) && !tableExists(conn, metadata.getTableName(), "PARTITIONED TABLE")) {
+                    try (Statement s = conn.createStatement()) {
+                        s.execute(QueryBuilder.buildCreateTable(metadata, type));
+                    }
+                }
+                ensureIndexes(conn, metadata, metadata.getTableName());
+            } catch (SQLException e) {
+                throw new DatabaseException("Failed to ensure table " + metadata.getTableName(), e);
+            }
+        }
+        ensurePartitions(metadata, Instant.now());
+        if (type == DatabaseType.SQLITE && !metadata.getIndexedColumns().isEmpty()) {
+            try (Connection conn = connectionManager.getConnection()) {
+                conn.setAutoCommit(true);
+                for (PartitionInfo partition : listPartitions(conn, metadata)) {
+                    ensureIndexes(conn, metadata, partition.name());
+                }
+            } catch (SQLException e) {
+                throw new DatabaseException("Failed to index partitions of " + metadata.getTableName(), e);
+            }
+        }
+    }
+
+    private List<PartitionInfo> ensurePartitions(Connection conn, EntityMetadata metadata, Instant from, int ahead) throws SQLException {
+        DatabaseType type = connectionManager.getConfig().type();
+        PartitionInterval interval = metadata.getPartitioning().interval();
+        synchronized (PARTITION_LOCK) {
+            List<PartitionInfo> existing = listPartitions(conn, metadata);
+            Set<Instant> starts = existing.stream().map(PartitionInfo::start).collect(Collectors.toSet());
+            Instant latest = existing.isEmpty() ? null : existing.get(existing.size() - 1).start();
+
+            List<PartitionInfo> created = new ArrayList<>();
+            Instant start = interval.floor(from);
+            for (int i = 0; i <= ahead; i++, start = interval.next(start)) {
+                if (starts.contains(start) || (type == DatabaseType.MYSQL && latest != null && !start.isAfter(latest))) {
+                    continue;
+                }
+                try (Statement s = conn.createStatement()) {
+                    s.execute(QueryBuilder.buildCreatePartition(metadata, type, start));
+                }
+                if (type == DatabaseType.SQLITE) {
+                    ensureIndexes(conn, metadata, QueryBuilder.partitionName(metadata, type, start));
+                }
+                created.add(new PartitionInfo(QueryBuilder.partitionName(metadata, type, start), start, interval.next(start)));
+            }
+            if (type == DatabaseType.SQLITE && (!created.isEmpty() || !tableExists(conn, metadata.getTableName(), "VIEW"))) {
+                rebuildView(conn, metadata, listPartitions(conn, metadata));
+            }
+            return created;
+        }
+    }
+
+    private void rebuildView(Connection conn, EntityMetadata metadata, List<PartitionInfo> partitions) throws SQLException {
+        if (!conn.getAutoCommit()) {
+            Savepoint savepoint = conn.setSavepoint();
+            try (Statement s = conn.createStatement()) {
+                s.execute("DROP VIEW IF EXISTS " + metadata.getTableName());
+                s.execute(QueryBuilder.buildPartitionView(metadata, partitions.stream().map(PartitionInfo::name).toList()));
+                conn.releaseSavepoint(savepoint);
+            } catch (SQLException e) {
+                conn.rollback(savepoint);
+                throw e;
+            }
+            return;
+        }
+        conn.setAutoCommit(false);
+        try (Statement s = conn.createStatement()) {
+            s.execute("DROP VIEW IF EXISTS " + metadata.getTableName());
+            s.execute(QueryBuilder.buildPartitionView(metadata, partitions.stream().map(PartitionInfo::name).toList()));
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private List<PartitionInfo> listPartitions(Connection conn, EntityMetadata metadata) throws SQLException {
+        DatabaseType type = connectionManager.getConfig().type();
+        PartitionInterval interval = metadata.getPartitioning().interval();
+        List<PartitionInfo> partitions = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(QueryBuilder.buildListPartitions(type))) {
+            stmt.setString(1, metadata.getTableName());
+            if (type == DatabaseType.SQLITE) {
+                stmt.setString(2, metadata.getTableName());
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String name = rs.getString(1);
+                    int marker = name.lastIndexOf('p');
+                    Instant start = marker < 0 ? null : interval.parseSuffix(name.substring(marker + 1));
+                    if (start != null) {
+                        partitions.add(new PartitionInfo(name, start, interval.next(start)));
+                    }
+                }
+            }
+        }
+        partitions.sort(Comparator.comparing(PartitionInfo::start));
+        return partitions;
+    }
+
+    private EntityMetadata metadataFor(Class<?> entityClass) {
+        return new EntityMetadata(entityClass, connectionManager.getConfig().uuidStorage());
+    }
+
+    private void ensureIndexes(Connection conn, EntityMetadata metadata, String tableName) throws SQLException {
+        List<String> columns = metadata.getIndexedColumns();
+        if (columns.isEmpty()) {
+            return;
+        }
+        Set<String> existing = new HashSet<>();
+        try (ResultSet rs = conn.getMetaData().getIndexInfo(null, null, tableName, false, false)) {
+            while (rs.next()) {
+                String name = rs.getString("INDEX_NAME");
+                if (name != null) {
+                    existing.add(name.toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        DatabaseType type = connectionManager.getConfig().type();
+        for (String column : columns) {
+            if (existing.contains(QueryBuilder.indexName(metadata, tableName, column).toLowerCase(Locale.ROOT))) {
+                continue;
+            }
+            try (Statement s = conn.createStatement()) {
+                s.execute(QueryBuilder.buildCreateIndex(metadata, type, tableName, column));
+            }
+        }
+    }
+
+    private boolean tableExists(Connection conn, String tableName, String tableType) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getTables(null, null, tableName, new String[]{tableType})) {
+            return rs.next();
+        }
+    }
+
     private boolean tableExists(Connection conn, String tableName) throws SQLException {
         DatabaseMetaData md = conn.getMetaData();
         try (ResultSet rs = md.getTables(null, null, tableName, new String[]{"TABLE"})) {
@@ -0,0 +1,10 @@
+package fr.panncake.pannlib.orm.session;
+
+import java.util.List;
+
+public record BatchUpdateResult<T>(List<T> updated, List<T> conflicts) {
+
+    public boolean hasConflicts() {
+        return !conflicts.isEmpty();
+    }
+}
@@ -0,0 +1,38 @@
+package fr.panncake.pannlib.orm.session;
+
+import java.util.concurrent.CompletableFuture;
+
+final class CancellableFuture<T> extends CompletableFuture<T> {
+    private final OperationScope scope;
+    private final Runnable onCancel;
+    private final CancellableFuture<?> root;
+
+    CancellableFuture(OperationScope scope, Runnable onCancel) {
+        this(scope, onCancel, null);
+    }
+
+    private CancellableFuture(OperationScope scope, Runnable onCancel, CancellableFuture<?> root) {
+        this.scope = scope;
+        this.onCancel = onCancel;
+        this.root = root == null ? this : root;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        if (cancelled) {
+            if (root != this) {
+                root.cancel(mayInterruptIfRunning);
+            } else {
+                scope.cancel();
+                onCancel.run();
+            }
+        }
+        return cancelled;
+    }
+
+    @Override
+    public <U> CompletableFuture<U> newIncompleteFuture() {
+        return new CancellableFuture<>(scope, onCancel, root);
+    }
+}
@@ -1,160 +1,1140 @@
 package fr.panncake.pannlib.orm.session;
 
+import fr.panncake.pannlib.orm.config.DatabaseType;
+import fr.panncake.pannlib.orm.config.GroupCommitConfig;
+import fr.panncake.pannlib.orm.config.JournalConfig;
+import fr.panncake.pannlib.orm.config.ProfilerConfig;
+import fr.panncake.pannlib.orm.config.QueryCacheConfig;
 import fr.panncake.pannlib.orm.connection.ConnectionManager;
+import fr.panncake.pannlib.orm.converter.AttributeConverter;
+import fr.panncake.pannlib.orm.entity.LazyBlob;
+import fr.panncake.pannlib.orm.event.EntityChangeEvent;
+import fr.panncake.pannlib.orm.event.EntityChangeListener;
+import fr.panncake.pannlib.orm.event.EntityChangeType;
+import fr.panncake.pannlib.orm.event.InvalidationBus;
 import fr.panncake.pannlib.orm.exception.DatabaseException;
+import fr.panncake.pannlib.orm.exception.OperationCancelledException;
+import fr.panncake.pannlib.orm.exception.OptimisticLockException;
+import fr.panncake.pannlib.orm.exception.QueryTimeoutException;
+import fr.panncake.pannlib.orm.journal.JournalStats;
+import fr.panncake.pannlib.orm.journal.WriteJournal;
 import fr.panncake.pannlib.orm.mapping.EntityMetadata;
+import fr.panncake.pannlib.orm.query.AggregateFunction;
+import fr.panncake.pannlib.orm.query.BoundStatement;
+import fr.panncake.pannlib.orm.query.Criteria;
+import fr.panncake.pannlib.orm.query.Page;
+import fr.panncake.pannlib.orm.query.PageKey;
 import fr.panncake.pannlib.orm.query.QueryBuilder;
 import fr.panncake.pannlib.orm.schema.SchemaManager;
+import fr.panncake.pannlib.orm.transaction.Transaction;
+import fr.panncake.pannlib.orm.transaction.TransactionManager;
 import fr.panncake.pannlib.orm.util.ReflectionUtils;
 import fr.panncake.pannlib.orm.util.SqlTypeConverter;
+import fr.panncake.pannlib.orm.util.UuidCodec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.Cleaner;
 import java.lang.reflect.Field;
+import java.nio.file.Path;
 import java.sql.*;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executor;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 public class EntityManager {
     private static final Logger LOGGER = LoggerFactory.getLogger(EntityManager.class);
+    private static final int PREFETCH_BATCH_SIZE = 500;
     private final ConnectionManager connectionManager;
     private final Map<Class<?>, EntityMetadata> metadataCache = new ConcurrentHashMap<>();
-    private final Executor asyncExecutor = Executors.newFixedThreadPool(
+    private final ExecutorService asyncExecutor = Executors.newFixedThreadPool(
             Math.max(2, Runtime.getRuntime().availableProcessors())
     );
     private final SchemaManager schemaManager;
+    private final GroupCommitter groupCommitter;
+    private final WriteJournal journal;
+    private final List<EntityChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    private final PrefetchCache prefetchCache = new PrefetchCache();
+    private final EntityChangeListener remoteInvalidation = this::evictCaches;
+    private final QueryCache queryCache;
+    private final QueryProfiler profiler;
+    private final Runnable journalDrain = this::flushJournal;
+    private final AtomicLong timedOutOperations = new AtomicLong();
+    private final AtomicLong cancelledOperations = new AtomicLong();
 
     public EntityManager() {
-        this.connectionManager = ConnectionManager.getInstance();
+        this(ConnectionManager.getInstance());
+    }
+
+    public EntityManager(ConnectionManager connectionManager) {
+        this.connectionManager = connectionManager;
         this.schemaManager = new SchemaManager(this.connectionManager);
+        GroupCommitConfig groupCommit = connectionManager.getConfig().groupCommit();
+        this.groupCommitter = groupCommit != null ? new GroupCommitter(connectionManager, groupCommit) : null;
+        JournalConfig journalConfig = connectionManager.getConfig().journal();
+        this.journal = journalConfig != null ? new WriteJournal(connectionManager, journalConfig) : null;
+        if (journal != null) {
+            journal.setReplayListener(this::fireChange);
+            connectionManager.addTransactionStartListener(journalDrain);
+        }
+        QueryCacheConfig queryCacheConfig = connectionManager.getConfig().queryCache();
+        this.queryCache = queryCacheConfig != null ? new QueryCache(queryCacheConfig) : null;
+        ProfilerConfig profilerConfig = connectionManager.getConfig().profiler();
+        this.profiler = profilerConfig != null ? new QueryProfiler(connectionManager, profilerConfig) : null;
     }
 
     public <T> void persist(T entity) {
-        executeInTransaction(conn -> {
-            EntityMetadata metadata = getMetadata(entity.getClass());
-            String sql = QueryBuilder.buildInsert(metadata);
-            try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-                int index = 1;
-                for (Map.Entry<String, Field> entry : metadata.getColumnFields().entrySet()) {
-                    if (entry.getKey().equals(metadata.getFieldToColumn().get(metadata.getIdField())) &&
-                            metadata.isAutoIncrementId()) {
-                        continue;
-                    }
-                    Field field = entry.getValue();
-                    stmt.setObject(index++, field.get(entity));
-                }
+        EntityMetadata metadata = getMetadata(entity.getClass());
+        BoundStatement statement = bindInsert(metadata, entity);
+        if (metadata.isAutoIncrementId()) {
+            write(insertOperation(metadata, statement, entity),
+                    () -> fireChange(changeEvent(metadata, entity, EntityChangeType.PERSIST)));
+        } else {
+            write(statement, changeEvent(metadata, entity, EntityChangeType.PERSIST));
+        }
+    }
+
+    public <T> CompletableFuture<Void> persistAsync(T entity) {
+        EntityMetadata metadata = getMetadata(entity.getClass());
+        BoundStatement statement = bindInsert(metadata, entity);
+        if (metadata.isAutoIncrementId()) {
+            return writeAsync(insertOperation(metadata, statement, entity),
+                    () -> fireChange(changeEvent(metadata, entity, EntityChangeType.PERSIST)));
+        }
+        return writeAsync(statement, changeEvent(metadata, entity, EntityChangeType.PERSIST));
+    }
+
+    private TransactionOperation insertOperation(EntityMetadata metadata, BoundStatement statement, Object entity) {
+        return conn -> {
+            try (PreparedStatement stmt = prepare(conn, statement.sql(), Statement.RETURN_GENERATED_KEYS)) {
+                statement.bind(stmt);
                 stmt.executeUpdate();
 
-                if (metadata.isAutoIncrementId()) {
-                    try (ResultSet rs = stmt.getGeneratedKeys()) {
-                        if (rs.next()) {
-                            metadata.getIdField().set(entity, rs.getObject(1));
-                        }
+                try (ResultSet rs = stmt.getGeneratedKeys()) {
+                    if (rs.next()) {
+                        metadata.getIdField().set(entity,
+                                SqlTypeConverter.toSqlObject(rs.getObject(1), metadata.getIdField().getType()));
                     }
                 }
+            } finally {
+                statement.release();
             }
-        });
+        };
     }
 
-    public <T> CompletableFuture<Void> persistAsync(T entity) {
-        return CompletableFuture.runAsync(() -> persist(entity), asyncExecutor);
+    private BoundStatement bindInsert(EntityMetadata metadata, Object entity) {
+        if (metadata.hasVersion() && getFieldValue(metadata.getVersionField(), entity) == null) {
+            setVersion(metadata, entity, 0);
+        }
+        List<Object> parameters = new ArrayList<>(metadata.getColumnFields().size());
+        for (Map.Entry<String, Field> entry : metadata.getColumnFields().entrySet()) {
+            if (entry.getValue() == metadata.getIdField() && metadata.isAutoIncrementId()) {
+                continue;
+            }
+            parameters.add(toBindValue(metadata, entry.getKey(), getFieldValue(entry.getValue(), entity)));
+        }
+        return new BoundStatement(QueryBuilder.buildInsert(metadata, writeTable(metadata, entity)), parameters.toArray());
     }
 
+    private String writeTable(EntityMetadata metadata, Object entity) {
+        if (!metadata.isPartitioned() || connectionManager.getConfig().type() != DatabaseType.SQLITE) {
+            return metadata.getTableName();
+        }
+        Object value = getFieldValue(metadata.getPartitionField(), entity);
+        if (value == null) {
+            throw new DatabaseException("Partition column " + metadata.getPartitionColumnName() + " of "
+                    + metadata.getEntityClass().getSimpleName() + " must not be null");
+        }
+        Instant instant = value instanceof LocalDateTime local ? local.toInstant(ZoneOffset.UTC) : (Instant) value;
+        String table = QueryBuilder.partitionName(metadata, DatabaseType.SQLITE, metadata.getPartitioning().interval().floor(instant));
+        Set<String> knownPartitions = schemaManager.knownPartitions();
+        if (knownPartitions.contains(table)) {
+            return table;
+        }
+        Transaction tx = activeTransaction();
+        if (tx != null) {
+            schemaManager.ensurePartitionFor(metadata, instant, tx.getConnection());
+            tx.onCommit(() -> knownPartitions.add(table));
+            return table;
+        }
+        try (Connection conn = connectionManager.getConnection()) {
+            conn.setAutoCommit(true);
+            schemaManager.ensurePartitionFor(metadata, instant, conn);
+        } catch (SQLException e) {
+            throw translate("Failed to prepare partition " + table, e);
+        }
+        knownPartitions.add(table);
+        return table;
+    }
+
+    @SuppressWarnings("unchecked")
     public <T> T find(Class<T> entityClass, Object id) {
-        return executeWithConnection(conn -> {
-            EntityMetadata metadata = getMetadata(entityClass);
-            String sql = QueryBuilder.buildSelectById(metadata);
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setObject(1, id);
-                try (ResultSet rs = stmt.executeQuery()) {
-                    if (rs.next()) {
-                        return mapResultSetToEntity(rs, entityClass, metadata);
-                    }
-                    return null;
-                }
+        if (activeTransaction() == null) {
+            Object prefetched = prefetchCache.getEntity(entityClass, id);
+            if (prefetched != null) {
+                return (T) copyEntity(getMetadata(entityClass), prefetched);
             }
+        }
+        return load(entityClass, id);
+    }
+
+    private <T> T load(Class<T> entityClass, Object id) {
+        EntityMetadata metadata = getMetadata(entityClass);
+        BoundStatement statement = new BoundStatement(QueryBuilder.buildSelectById(metadata),
+                new Object[]{toBindValue(metadata, metadata.getIdColumnName(), id)});
+        List<T> rows = cachedQuery(metadata, statement, rs -> {
+            List<T> results = new ArrayList<>(1);
+            if (rs.next()) {
+                results.add(mapResultSetToEntity(rs, entityClass, metadata));
+            }
+            return results;
         });
+        return rows.isEmpty() ? null : rows.get(0);
     }
 
     public <T> CompletableFuture<T> findAsync(Class<T> entityClass, Object id) {
-        return CompletableFuture.supplyAsync(() -> find(entityClass, id), asyncExecutor);
+        return findAsync(entityClass, id, null);
+    }
+
+    public <T> CompletableFuture<T> findAsync(Class<T> entityClass, Object id, Duration timeout) {
+        return submit(() -> find(entityClass, id), timeout);
     }
 
     public <T> void update(T entity) {
-        executeInTransaction(conn -> {
-            EntityMetadata metadata = getMetadata(entity.getClass());
-            String sql = QueryBuilder.buildUpdate(metadata);
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                int index = 1;
-                for (Map.Entry<String, Field> entry : metadata.getColumnFields().entrySet()) {
-                    if (entry.getKey().equals(metadata.getFieldToColumn().get(metadata.getIdField()))) {
-                        continue;
+        EntityMetadata metadata = getMetadata(entity.getClass());
+        BoundStatement statement = bindUpdate(metadata, entity);
+        EntityChangeEvent event = changeEvent(metadata, entity, EntityChangeType.UPDATE);
+        if (metadata.hasVersion()) {
+            writeVersioned(metadata, entity, statement, event, true);
+        } else {
+            write(statement, event);
+        }
+    }
+
+    public <T> CompletableFuture<Void> updateAsync(T entity) {
+        EntityMetadata metadata = getMetadata(entity.getClass());
+        BoundStatement statement = bindUpdate(metadata, entity);
+        EntityChangeEvent event = changeEvent(metadata, entity, EntityChangeType.UPDATE);
+        if (metadata.hasVersion()) {
+            return writeVersionedAsync(metadata, entity, statement, event, true);
+        }
+        return writeAsync(statement, event);
+    }
+
+    public <T> BatchUpdateResult<T> updateAll(Collection<T> entities) {
+        List<T> ordered = new ArrayList<>(entities);
+        List<BoundStatement> statements = new ArrayList<>(ordered.size());
+        long[] expected = new long[ordered.size()];
+        boolean[] versioned = new boolean[ordered.size()];
+        for (int i = 0; i < ordered.size(); i++) {
+            EntityMetadata metadata = getMetadata(ordered.get(i).getClass());
+            statements.add(bindUpdate(metadata, ordered.get(i)));
+            versioned[i] = metadata.hasVersion();
+            expected[i] = versioned[i] ? getVersion(metadata, ordered.get(i)) : 0;
+        }
+
+        boolean[] applied = new boolean[ordered.size()];
+        TransactionOperation operation = conn -> {
+            Arrays.fill(applied, false);
+            int start = 0;
+            while (start < statements.size()) {
+                String sql = statements.get(start).sql();
+                int end = start;
+                while (end < statements.size() && statements.get(end).sql().equals(sql)) {
+                    end++;
+                }
+                try (PreparedStatement stmt = prepare(conn, sql, Statement.NO_GENERATED_KEYS)) {
+                    for (int i = start; i < end; i++) {
+                        statements.get(i).bind(stmt);
+                        stmt.addBatch();
+                    }
+                    int[] counts = stmt.executeBatch();
+                    for (int i = start; i < end; i++) {
+                        int count = counts[i - start];
+                        applied[i] = !versioned[i] || count > 0 || count == Statement.SUCCESS_NO_INFO;
+                    }
+                } finally {
+                    for (int i = start; i < end; i++) {
+                        statements.get(i).release();
                     }
-                    stmt.setObject(index++, getFieldValue(entry.getValue(), entity));
                 }
-                stmt.setObject(index, getFieldValue(metadata.getIdField(), entity));
-                stmt.executeUpdate();
+                start = end;
+            }
+        };
+
+        List<T> updated = new ArrayList<>();
+        List<T> conflicts = new ArrayList<>();
+        write(operation, () -> {
+            for (int i = 0; i < ordered.size(); i++) {
+                T entity = ordered.get(i);
+                EntityMetadata metadata = getMetadata(entity.getClass());
+                if (!applied[i]) {
+                    conflicts.add(entity);
+                    continue;
+                }
+                if (metadata.hasVersion()) {
+                    setVersion(metadata, entity, expected[i] + 1);
+                }
+                updated.add(entity);
+                fireChange(changeEvent(metadata, entity, EntityChangeType.UPDATE));
             }
         });
+        return new BatchUpdateResult<>(updated, conflicts);
+    }
+
+    private void writeVersioned(EntityMetadata metadata, Object entity, BoundStatement statement,
+                                EntityChangeEvent event, boolean increment) {
+        long expected = getVersion(metadata, entity);
+        try {
+            write(versionedOperation(metadata, entity, statement, event, expected, increment), () -> fireChange(event));
+        } catch (RuntimeException e) {
+            setVersion(metadata, entity, expected);
+            throw e;
+        }
+    }
+
+    private CompletableFuture<Void> writeVersionedAsync(EntityMetadata metadata, Object entity, BoundStatement statement,
+                                                        EntityChangeEvent event, boolean increment) {
+        long expected = getVersion(metadata, entity);
+        return writeAsync(versionedOperation(metadata, entity, statement, event, expected, increment), () -> fireChange(event))
+                .whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        setVersion(metadata, entity, expected);
+                    }
+                });
+    }
+
+    private TransactionOperation versionedOperation(EntityMetadata metadata, Object entity, BoundStatement statement,
+                                                    EntityChangeEvent event, long expected, boolean increment) {
+        return conn -> {
+            if (executeUpdate(conn, statement) == 0) {
+                throw new OptimisticLockException(entity, event.id(), expected);
+            }
+            if (increment) {
+                setVersion(metadata, entity, expected + 1);
+            }
+        };
+    }
+
+    private long getVersion(EntityMetadata metadata, Object entity) {
+        Object value = getFieldValue(metadata.getVersionField(), entity);
+        return value == null ? 0 : ((Number) value).longValue();
+    }
+
+    private void setVersion(EntityMetadata metadata, Object entity, long version) {
+        Field field = metadata.getVersionField();
+        Class<?> type = field.getType();
+        ReflectionUtils.setFieldValue(field, entity, type == int.class || type == Integer.class ? (Object) (int) version : (Object) version);
+    }
+
+    private BoundStatement bindUpdate(EntityMetadata metadata, Object entity) {
+        List<Object> parameters = new ArrayList<>(metadata.getColumnFields().size());
+        Set<String> unchanged = new HashSet<>();
+        for (Map.Entry<String, Field> entry : metadata.getColumnFields().entrySet()) {
+            if (entry.getValue() == metadata.getIdField() || entry.getValue() == metadata.getVersionField()) {
+                continue;
+            }
+            Object value = getFieldValue(entry.getValue(), entity);
+            if (value instanceof LazyBlob blob && !blob.isModified()) {
+                unchanged.add(entry.getKey());
+                continue;
+            }
+            parameters.add(toBindValue(metadata, entry.getKey(), value));
+        }
+        parameters.add(toBindValue(metadata, metadata.getIdColumnName(), getFieldValue(metadata.getIdField(), entity)));
+        if (metadata.hasVersion()) {
+            parameters.add(getVersion(metadata, entity));
+        }
+        return new BoundStatement(QueryBuilder.buildUpdate(metadata, unchanged, writeTable(metadata, entity)), parameters.toArray());
     }
 
     public <T> void delete(T entity) {
-        executeInTransaction(conn -> {
-            EntityMetadata metadata = getMetadata(entity.getClass());
-            String sql = QueryBuilder.buildDeleteById(metadata);
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setObject(1, getFieldValue(metadata.getIdField(), entity));
-                stmt.executeUpdate();
+        EntityMetadata metadata = getMetadata(entity.getClass());
+        BoundStatement statement = bindDelete(metadata, entity);
+        EntityChangeEvent event = changeEvent(metadata, entity, EntityChangeType.DELETE);
+        if (metadata.hasVersion()) {
+            writeVersioned(metadata, entity, statement, event, false);
+        } else {
+            write(statement, event);
+        }
+    }
+
+    public <T> CompletableFuture<Void> deleteAsync(T entity) {
+        EntityMetadata metadata = getMetadata(entity.getClass());
+        BoundStatement statement = bindDelete(metadata, entity);
+        EntityChangeEvent event = changeEvent(metadata, entity, EntityChangeType.DELETE);
+        if (metadata.hasVersion()) {
+            return writeVersionedAsync(metadata, entity, statement, event, false);
+        }
+        return writeAsync(statement, event);
+    }
+
+    private BoundStatement bindDelete(EntityMetadata metadata, Object entity) {
+        Object id = toBindValue(metadata, metadata.getIdColumnName(), getFieldValue(metadata.getIdField(), entity));
+        Object[] parameters = metadata.hasVersion() ? new Object[]{id, getVersion(metadata, entity)} : new Object[]{id};
+        return new BoundStatement(QueryBuilder.buildDeleteById(metadata, writeTable(metadata, entity)), parameters);
+    }
+
+    public <T> List<T> findAll(Class<T> entityClass) {
+        EntityMetadata metadata = getMetadata(entityClass);
+        BoundStatement statement = new BoundStatement(QueryBuilder.buildSelectAll(metadata), new Object[0]);
+        return cachedQuery(metadata, statement, rs -> {
+            List<T> results = new ArrayList<>();
+            while (rs.next()) {
+                results.add(mapResultSetToEntity(rs, entityClass, metadata));
             }
+            return results;
         });
     }
 
-    public <T> List<T> findAll(Class<T> entityClass) {
-        return executeWithConnection(conn -> {
-            EntityMetadata metadata = getMetadata(entityClass);
-            String sql = QueryBuilder.buildSelectAll(metadata);
-            try (PreparedStatement stmt = conn.prepareStatement(sql);
-                 ResultSet rs = stmt.executeQuery()) {
-
-                List<T> results = new ArrayList<>();
-                while (rs.next()) {
-                    results.add(mapResultSetToEntity(rs, entityClass, metadata));
+    public <T> List<T> findAll(Class<T> entityClass, Criteria criteria) {
+        EntityMetadata metadata = getMetadata(entityClass);
+        if (criteria != null && criteria.conditions().size() == 1 && activeTransaction() == null) {
+            Criteria.Condition condition = criteria.conditions().get(0);
+            if (condition.operator() == Criteria.Operator.EQ) {
+                List<T> prefetched = prefetchCache.getList(entityClass, metadata.resolveColumn(condition.column()), condition.value());
+                if (prefetched != null) {
+                    List<T> copies = new ArrayList<>(prefetched.size());
+                    for (T entity : prefetched) {
+                        copies.add(entityClass.cast(copyEntity(metadata, entity)));
+                    }
+                    return copies;
                 }
-                return results;
             }
+        }
+        return loadWhere(entityClass, metadata, criteria);
+    }
+
+    private <T> List<T> loadWhere(Class<T> entityClass, EntityMetadata metadata, Criteria criteria) {
+        BoundStatement statement = bindCriteria(metadata, QueryBuilder.buildSelectWhere(metadata, criteria), criteria);
+        return cachedQuery(metadata, statement, rs -> {
+            List<T> results = new ArrayList<>();
+            while (rs.next()) {
+                results.add(mapResultSetToEntity(rs, entityClass, metadata));
+            }
+            return results;
+        });
+    }
+
+    public <T> CompletableFuture<List<T>> findAllAsync(Class<T> entityClass) {
+        return findAllAsync(entityClass, null);
+    }
+
+    public <T> CompletableFuture<List<T>> findAllAsync(Class<T> entityClass, Duration timeout) {
+        return submit(() -> findAll(entityClass), timeout);
+    }
+
+    public long count(Class<?> entityClass) {
+        return count(entityClass, null);
+    }
+
+    public long count(Class<?> entityClass, Criteria criteria) {
+        EntityMetadata metadata = getMetadata(entityClass);
+        BoundStatement statement = bindCriteria(metadata, QueryBuilder.buildCount(metadata, criteria), criteria);
+        return cachedQuery(metadata, statement, rs -> rs.next() ? rs.getLong("agg") : 0L);
+    }
+
+    public boolean exists(Class<?> entityClass, Criteria criteria) {
+        EntityMetadata metadata = getMetadata(entityClass);
+        BoundStatement statement = bindCriteria(metadata, QueryBuilder.buildExists(metadata, criteria), criteria);
+        return cachedQuery(metadata, statement, ResultSet::next);
+    }
+
+    public boolean existsById(Class<?> entityClass, Object id) {
+        EntityMetadata metadata = getMetadata(entityClass);
+        return exists(entityClass, Criteria.where(metadata.getIdColumnName(), id));
+    }
+
+    public Number sum(Class<?> entityClass, String column, Criteria criteria) {
+        return aggregate(entityClass, AggregateFunction.SUM, column, criteria);
+    }
+
+    public Double avg(Class<?> entityClass, String column, Criteria criteria) {
+        return aggregate(entityClass, AggregateFunction.AVG, column, criteria);
+    }
+
+    public <V> V min(Class<?> entityClass, String column, Criteria criteria) {
+        return aggregate(entityClass, AggregateFunction.MIN, column, criteria);
+    }
+
+    public <V> V max(Class<?> entityClass, String column, Criteria criteria) {
+        return aggregate(entityClass, AggregateFunction.MAX, column, criteria);
+    }
+
+    public <V> V aggregate(Class<?> entityClass, AggregateFunction function, String column, Criteria criteria) {
+        EntityMetadata metadata = getMetadata(entityClass);
+        BoundStatement statement = bindCriteria(metadata,
+                QueryBuilder.buildAggregate(metadata, function, column, null, criteria), criteria);
+        return cachedQuery(metadata, statement, rs -> rs.next() ? readAggregate(rs, metadata, function, column) : null);
+    }
+
+    public <K> Map<K, Long> countBy(Class<?> entityClass, String groupBy, Criteria criteria) {
+        return aggregateBy(entityClass, AggregateFunction.COUNT, null, groupBy, criteria);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <K, V> Map<K, V> aggregateBy(Class<?> entityClass, AggregateFunction function, String column,
+                                        String groupBy, Criteria criteria) {
+        EntityMetadata metadata = getMetadata(entityClass);
+        String groupColumn = metadata.resolveColumn(groupBy);
+        BoundStatement statement = bindCriteria(metadata,
+                QueryBuilder.buildAggregate(metadata, function, column, groupColumn, criteria), criteria);
+        return cachedQuery(metadata, statement, rs -> {
+            Map<K, V> results = new LinkedHashMap<>();
+            while (rs.next()) {
+                results.put((K) readColumn(rs, groupColumn, metadata, groupColumn),
+                        readAggregate(rs, metadata, function, column));
+            }
+            return results;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <V> V readAggregate(ResultSet rs, EntityMetadata metadata, AggregateFunction function, String column) throws SQLException {
+        Object value = switch (function) {
+            case COUNT -> rs.getLong("agg");
+            case AVG -> rs.getObject("agg") instanceof Number number ? number.doubleValue() : null;
+            case SUM -> rs.getObject("agg");
+            case MIN, MAX -> readColumn(rs, "agg", metadata, metadata.resolveColumn(column));
+        };
+        return (V) value;
+    }
+
+    private BoundStatement bindCriteria(EntityMetadata metadata, String sql, Criteria criteria) {
+        List<Object> parameters = new ArrayList<>();
+        if (criteria != null) {
+            for (Criteria.Condition condition : criteria.conditions()) {
+                String column = metadata.resolveColumn(condition.column());
+                switch (condition.operator()) {
+                    case IS_NULL, IS_NOT_NULL -> {
+                    }
+                    case IN -> ((Collection<?>) condition.value())
+                            .forEach(v -> parameters.add(toBindValue(metadata, column, v)));
+                    default -> parameters.add(toBindValue(metadata, column, condition.value()));
+                }
+            }
+        }
+        return new BoundStatement(sql, parameters.toArray());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <R> R cachedQuery(EntityMetadata metadata, BoundStatement statement, ResultSetFunction<R> reader) {
+        if (queryCache == null || !metadata.isCacheable() || activeTransaction() != null) {
+            return query(statement, reader);
+        }
+        Object cached = queryCache.get(statement);
+        if (cached == QueryCache.MISS) {
+            long generation = queryCache.generation(metadata.getTableName());
+            R result = query(statement, reader);
+            queryCache.put(metadata.getTableName(), generation, statement, result, metadata.getCacheTtlMillis());
+            cached = result;
+        }
+        if (cached instanceof List<?> list) {
+            List<Object> copies = new ArrayList<>(list.size());
+            for (Object item : list) {
+                copies.add(copyResult(metadata, item));
+            }
+            return (R) copies;
+        }
+        if (cached instanceof Map<?, ?> map) {
+            return (R) new LinkedHashMap<>(map);
+        }
+        return (R) copyResult(metadata, cached);
+    }
+
+    private Object copyResult(EntityMetadata metadata, Object value) {
+        return metadata.getEntityClass().isInstance(value) ? copyEntity(metadata, value) : value;
+    }
+
+    private <R> R query(BoundStatement statement, ResultSetFunction<R> reader) {
+        return executeRead(conn -> {
+            try (PreparedStatement stmt = prepare(conn, statement.sql(), Statement.NO_GENERATED_KEYS)) {
+                statement.bind(stmt);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return reader.apply(rs);
+                }
+            }
+        });
+    }
+
+    public CompletableFuture<Void> prefetch(Object key, PrefetchPlan plan) {
+        prefetchCache.purgeExpired();
+        long expiresAt = System.nanoTime() + plan.ttl().toNanos();
+        Map<Class<?>, List<Object>> loaded = new ConcurrentHashMap<>();
+
+        List<CompletableFuture<Void>> direct = new ArrayList<>();
+        List<PrefetchPlan.Follow> follows = new ArrayList<>();
+        for (PrefetchPlan.Step step : plan.steps()) {
+            if (step instanceof PrefetchPlan.ById byId) {
+                direct.add(submit(() -> {
+                    long generation = prefetchCache.generation(byId.entityClass());
+                    Object entity = load(byId.entityClass(), key);
+                    if (entity != null) {
+                        prefetchCache.putEntity(byId.entityClass(), key, entity, key, expiresAt, generation);
+                        loaded.computeIfAbsent(byId.entityClass(), c -> new CopyOnWriteArrayList<>()).add(entity);
+                    }
+                    return null;
+                }, null));
+            } else if (step instanceof PrefetchPlan.ByColumn byColumn) {
+                direct.add(submit(() -> {
+                    EntityMetadata metadata = getMetadata(byColumn.entityClass());
+                    String column = metadata.resolveColumn(byColumn.column());
+                    long generation = prefetchCache.generation(byColumn.entityClass());
+                    List<?> results = loadWhere(byColumn.entityClass(), metadata, Criteria.where(column, key));
+                    prefetchCache.putList(byColumn.entityClass(), column, key, results, key, expiresAt, generation);
+                    for (Object entity : results) {
+                        prefetchCache.putEntity(byColumn.entityClass(), getFieldValue(metadata.getIdField(), entity), entity,
+                                key, expiresAt, generation);
+                    }
+                    loaded.computeIfAbsent(byColumn.entityClass(), c -> new CopyOnWriteArrayList<>()).addAll(results);
+                    return null;
+                }, null));
+            } else if (step instanceof PrefetchPlan.Follow follow) {
+                follows.add(follow);
+            }
+        }
+
+        CompletableFuture<Void> first = CompletableFuture.allOf(direct.toArray(CompletableFuture[]::new));
+        if (follows.isEmpty()) {
+            return first;
+        }
+        return first.thenCompose(ignored -> {
+            List<CompletableFuture<Void>> related = new ArrayList<>();
+            for (PrefetchPlan.Follow follow : follows) {
+                EntityMetadata source = getMetadata(follow.sourceClass());
+                Field field = source.getColumnFields().get(source.resolveColumn(follow.field()));
+                Set<Object> targetIds = new LinkedHashSet<>();
+                for (Object entity : loaded.getOrDefault(follow.sourceClass(), List.of())) {
+                    Object targetId = getFieldValue(field, entity);
+                    if (targetId != null) {
+                        targetIds.add(targetId);
+                    }
+                }
+                List<Object> ids = new ArrayList<>(targetIds);
+                for (int from = 0; from < ids.size(); from += PREFETCH_BATCH_SIZE) {
+                    List<Object> batch = ids.subList(from, Math.min(from + PREFETCH_BATCH_SIZE, ids.size()));
+                    related.add(submit(() -> {
+                        EntityMetadata target = getMetadata(follow.targetClass());
+                        long generation = prefetchCache.generation(follow.targetClass());
+                        List<?> results = loadWhere(follow.targetClass(), target,
+                                Criteria.where(target.getIdColumnName(), Criteria.Operator.IN, batch));
+                        for (Object entity : results) {
+                            prefetchCache.putEntity(follow.targetClass(), getFieldValue(target.getIdField(), entity), entity,
+                                    key, expiresAt, generation);
+                        }
+                        return null;
+                    }, null));
+                }
+            }
+            return CompletableFuture.allOf(related.toArray(CompletableFuture[]::new));
+        });
+    }
+
+    public void evictPrefetched(Object key) {
+        prefetchCache.evictOwner(key);
+    }
+
+    public long getPrefetchHits() {
+        return prefetchCache.hits();
+    }
+
+    public long getPrefetchMisses() {
+        return prefetchCache.misses();
+    }
+
+    public <T> Page<T> findPage(Class<T> entityClass, PageKey afterKey, int limit) {
+        return findPage(entityClass, afterKey, limit, null, false);
+    }
+
+    public <T> Page<T> findPage(Class<T> entityClass, PageKey afterKey, int limit, String orderBy) {
+        return findPage(entityClass, afterKey, limit, orderBy, false);
+    }
+
+    public <T> Page<T> findPage(Class<T> entityClass, PageKey afterKey, int limit, String orderBy, boolean descending) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        EntityMetadata metadata = getMetadata(entityClass);
+        String idColumn = metadata.getIdColumnName();
+        String orderColumn = orderBy == null ? idColumn : metadata.resolveColumn(orderBy);
+        if (!metadata.isSeekable(orderColumn)) {
+            throw new DatabaseException("Column '" + orderColumn + "' of " + metadata.getTableName()
+                    + " is not the id or a NOT NULL unique or @Index column and cannot be used for keyset pagination");
+        }
+        Field orderField = metadata.getColumnFields().get(orderColumn);
+
+        List<Object> parameters = new ArrayList<>(4);
+        if (afterKey != null) {
+            parameters.add(toBindValue(metadata, orderColumn, afterKey.value()));
+            if (!orderColumn.equals(idColumn)) {
+                parameters.add(toBindValue(metadata, orderColumn, afterKey.value()));
+                parameters.add(toBindValue(metadata, idColumn, afterKey.id()));
+            }
+        }
+        parameters.add(limit);
+        BoundStatement statement = new BoundStatement(
+                QueryBuilder.buildSelectPage(metadata, orderColumn, afterKey != null, descending), parameters.toArray());
+
+        List<T> items = query(statement, rs -> {
+            List<T> results = new ArrayList<>(limit);
+            while (rs.next()) {
+                results.add(mapResultSetToEntity(rs, entityClass, metadata));
+            }
+            return results;
         });
+
+        if (items.size() < limit) {
+            return new Page<>(items, null);
+        }
+        T last = items.get(items.size() - 1);
+        return new Page<>(items, new PageKey(getFieldValue(orderField, last), getFieldValue(metadata.getIdField(), last)));
+    }
+
+    public <T> Iterable<T> iterate(Class<T> entityClass, int chunkSize) {
+        return iterate(entityClass, chunkSize, null, false);
+    }
+
+    public <T> Iterable<T> iterate(Class<T> entityClass, int chunkSize, String orderBy, boolean descending) {
+        return () -> new PageIterator<>(after -> findPage(entityClass, after, chunkSize, orderBy, descending));
     }
 
     public <T> void createTable(Class<T> entityClass) {
         schemaManager.ensureTable(entityClass);
     }
 
+    public <R> R withTimeout(Duration timeout, Supplier<R> operation) {
+        return OperationScope.open(timeout).call(operation);
+    }
+
+    public void withTimeout(Duration timeout, Runnable operation) {
+        withTimeout(timeout, () -> {
+            operation.run();
+            return null;
+        });
+    }
+
+    public long getTimedOutCount() {
+        return timedOutOperations.get();
+    }
+
+    public long getCancelledCount() {
+        return cancelledOperations.get();
+    }
+
+    public void attach(InvalidationBus bus) {
+        addChangeListener(bus);
+        bus.addRemoteListener(remoteInvalidation);
+    }
+
+    public void detach(InvalidationBus bus) {
+        removeChangeListener(bus);
+        bus.removeRemoteListener(remoteInvalidation);
+    }
+
+    public void addChangeListener(EntityChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    public void removeChangeListener(EntityChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    public QueryCacheStats getQueryCacheStats() {
+        if (queryCache == null) {
+            throw new IllegalStateException("Query cache is not enabled");
+        }
+        return queryCache.stats();
+    }
+
+    public void invalidateQueryCache(Class<?> entityClass) {
+        if (queryCache != null) {
+            queryCache.invalidate(getMetadata(entityClass).getTableName());
+        }
+    }
+
+    public ProfileScope profile(String name) {
+        return profiler != null ? profiler.open(name) : ProfileScope.DISABLED;
+    }
+
+    public ProfileReport getProfileReport() {
+        if (profiler == null) {
+            throw new IllegalStateException("Query profiler is not enabled");
+        }
+        return profiler.report();
+    }
+
+    public ProfileReport writeProfileReport(Path file) {
+        ProfileReport report = getProfileReport();
+        report.writeTo(file);
+        return report;
+    }
+
+    public JournalStats getJournalStats() {
+        if (journal == null) {
+            throw new IllegalStateException("Write journal is not enabled");
+        }
+        return journal.stats();
+    }
+
+    public void flushJournal() {
+        if (journal != null) {
+            journal.drain();
+        }
+    }
+
+    public void shutdown() {
+        if (profiler != null && profiler.config().reportFile() != null) {
+            writeProfileReport(profiler.config().reportFile());
+        }
+        if (groupCommitter != null) {
+            groupCommitter.shutdown();
+        }
+        if (journal != null) {
+            connectionManager.removeTransactionStartListener(journalDrain);
+            journal.close();
+        }
+        asyncExecutor.shutdown();
+    }
+
     private <T> T mapResultSetToEntity(ResultSet rs, Class<T> clazz, EntityMetadata metadata) {
         try {
             T instance = ReflectionUtils.instantiate(clazz);
             for (Map.Entry<String, Field> entry : metadata.getColumnFields().entrySet()) {
-                String columnName = entry.getKey();
-                Field field = entry.getValue();
-                Object value = SqlTypeConverter.fromSqlObject(rs, columnName, field.getType());
+                if (metadata.isLazy(entry.getKey())) {
+                    continue;
+                }
+                Object value = readColumn(rs, entry.getKey(), metadata, entry.getKey());
                 if (value != null) {
-                    ReflectionUtils.setFieldValue(field, instance, value);
+                    ReflectionUtils.setFieldValue(entry.getValue(), instance, value);
                 }
             }
+            bindLazyColumns(metadata, instance);
             return instance;
         } catch (Exception e) {
             throw new DatabaseException("Failed mapping ResultSet → entity", e);
         }
     }
 
+    private Object copyEntity(EntityMetadata metadata, Object entity) {
+        Object copy = ReflectionUtils.instantiate(metadata.getEntityClass());
+        for (Map.Entry<String, Field> entry : metadata.getColumnFields().entrySet()) {
+            if (metadata.isLazy(entry.getKey())) {
+                continue;
+            }
+            Object value = getFieldValue(entry.getValue(), entity);
+            AttributeConverter<Object, Object> converter = metadata.getConverter(entry.getKey());
+            if (converter != null && value != null && !(value instanceof Enum<?>)) {
+                value = converter.fromDatabase(converter.toDatabase(value));
+            } else if (value instanceof byte[] bytes) {
+                value = bytes.clone();
+            } else if (value instanceof java.util.Date date) {
+                value = date.clone();
+            }
+            if (value != null) {
+                ReflectionUtils.setFieldValue(entry.getValue(), copy, value);
+            }
+        }
+        bindLazyColumns(metadata, copy);
+        return copy;
+    }
+
+    private void bindLazyColumns(EntityMetadata metadata, Object instance) {
+        if (metadata.getLazyColumns().isEmpty()) {
+            return;
+        }
+        Object id = toBindValue(metadata, metadata.getIdColumnName(), getFieldValue(metadata.getIdField(), instance));
+        for (String column : metadata.getLazyColumns()) {
+            ReflectionUtils.setFieldValue(metadata.getColumnFields().get(column), instance,
+                    LazyBlob.deferred(() -> openLob(metadata, column, id)));
+        }
+    }
+
+    private InputStream openLob(EntityMetadata metadata, String column, Object id) throws SQLException {
+        Transaction tx = activeTransaction();
+        Connection conn = tx != null ? tx.getConnection() : connectionManager.getReadConnection();
+        Connection owned = tx != null ? null : conn;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            stmt = conn.prepareStatement(QueryBuilder.buildSelectLob(metadata, column));
+            stmt.setObject(1, id);
+            rs = stmt.executeQuery();
+            InputStream in = rs.next() ? rs.getBinaryStream(1) : null;
+            if (in == null) {
+                closeAll(rs, stmt, owned);
+                return null;
+            }
+            return new LobStream(in, rs, stmt, owned);
+        } catch (SQLException | RuntimeException e) {
+            closeAll(rs, stmt, owned);
+            throw e;
+        }
+    }
+
+    private static void closeAll(AutoCloseable... resources) {
+        for (AutoCloseable resource : resources) {
+            if (resource == null) {
+                continue;
+            }
+            try {
+                resource.close();
+            } catch (Exception e) {
+                LOGGER.debug("Failed to close large object resource", e);
+            }
+        }
+    }
+
+    private Object readColumn(ResultSet rs, String label, EntityMetadata metadata, String columnName) throws SQLException {
+        AttributeConverter<Object, Object> converter = metadata.getConverter(columnName);
+        if (converter != null) {
+            return converter.fromDatabase(SqlTypeConverter.fromSqlObject(rs, label, converter.databaseType()));
+        }
+        return SqlTypeConverter.fromSqlObject(rs, label, metadata.getColumnFields().get(columnName).getType());
+    }
+
+    private Object toBindValue(EntityMetadata metadata, String columnName, Object value) {
+        AttributeConverter<Object, Object> converter = metadata.getConverter(columnName);
+        if (converter != null) {
+            return converter.toDatabase(value);
+        }
+        if (value instanceof UUID uuid) {
+            return UuidCodec.toSqlValue(uuid, metadata.getUuidStorage(columnName), connectionManager.getConfig().type());
+        }
+        return value;
+    }
+
     private Object getFieldValue(Field field, Object instance) {
         return ReflectionUtils.getFieldValue(field, instance);
     }
 
     private EntityMetadata getMetadata(Class<?> clazz) {
-        return metadataCache.computeIfAbsent(clazz, EntityMetadata::new);
+        return metadataCache.computeIfAbsent(clazz,
+                c -> new EntityMetadata(c, connectionManager.getConfig().uuidStorage()));
+    }
+
+    private void write(BoundStatement statement, EntityChangeEvent event) {
+        if (journal != null && activeTransaction() == null && journal.supports(statement)) {
+            evictCaches(event);
+            journal.append(event, statement.materialize());
+            return;
+        }
+        write(conn -> executeUpdate(conn, statement), () -> fireChange(event));
+    }
+
+    private CompletableFuture<Void> writeAsync(BoundStatement statement, EntityChangeEvent event) {
+        if (journal != null && journal.supports(statement)) {
+            evictCaches(event);
+            BoundStatement materialized = statement.materialize();
+            return submit(() -> {
+                journal.append(event, materialized);
+                return null;
+            }, null);
+        }
+        return writeAsync(conn -> executeUpdate(conn, statement), () -> fireChange(event));
+    }
+
+    private EntityChangeEvent changeEvent(EntityMetadata metadata, Object entity, EntityChangeType type) {
+        return new EntityChangeEvent(metadata.getEntityClass().getName(), metadata.getTableName(),
+                getFieldValue(metadata.getIdField(), entity), type);
+    }
+
+    private void evictCaches(EntityChangeEvent event) {
+        prefetchCache.evict(event);
+        if (queryCache != null) {
+            queryCache.invalidate(event.table());
+        }
+    }
+
+    private void fireChange(EntityChangeEvent event) {
+        evictCaches(event);
+        for (EntityChangeListener listener : changeListeners) {
+            try {
+                listener.onChange(event);
+            } catch (Exception e) {
+                LOGGER.warn("Change listener failed for {}", event, e);
+            }
+        }
+    }
+
+    private int executeUpdate(Connection conn, BoundStatement statement) throws SQLException {
+        try (PreparedStatement stmt = prepare(conn, statement.sql(), Statement.NO_GENERATED_KEYS)) {
+            statement.bind(stmt);
+            return stmt.executeUpdate();
+        } finally {
+            statement.release();
+        }
+    }
+
+    private void write(TransactionOperation operation, Runnable afterCommit) {
+        Transaction tx = activeTransaction();
+        if (tx != null) {
+            try {
+                operation.execute(tx.getConnection());
+            } catch (Exception e) {
+                throw translate("Transaction failed", e);
+            }
+            tx.onCommit(afterCommit);
+            return;
+        }
+        if (groupCommitter == null) {
+            flushJournal();
+            executeInTransaction(operation);
+        } else {
+            try {
+                groupCommit(operation).join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof DatabaseException de ? de : new DatabaseException("Transaction failed", e.getCause());
+            }
+        }
+        afterCommit.run();
+    }
+
+    private CompletableFuture<Void> writeAsync(TransactionOperation operation, Runnable afterCommit) {
+        if (groupCommitter != null) {
+            return groupCommit(operation).thenRun(afterCommit);
+        }
+        return submit(() -> {
+            flushJournal();
+            executeInTransaction(operation);
+            afterCommit.run();
+            return null;
+        }, null);
+    }
+
+    private CompletableFuture<Void> groupCommit(TransactionOperation operation) {
+        OperationScope scope = OperationScope.open(null);
+        CancellableFuture<Void> future = new CancellableFuture<>(scope, cancelledOperations::incrementAndGet);
+        TransactionOperation task = profiled(operation);
+        TransactionOperation scoped = conn -> scope.call(() -> {
+            try {
+                task.execute(conn);
+            } catch (Exception e) {
+                throw translate("Transaction failed", e);
+            }
+            return null;
+        });
+        if (journal == null) {
+            return groupCommitter.submit(scoped, future);
+        }
+        asyncExecutor.execute(() -> {
+            try {
+                journal.drain();
+                groupCommitter.submit(scoped, future);
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    private <R> CompletableFuture<R> submit(Supplier<R> task, Duration timeout) {
+        OperationScope scope = OperationScope.open(timeout);
+        CancellableFuture<R> future = new CancellableFuture<>(scope, cancelledOperations::incrementAndGet);
+        Supplier<R> profiledTask = profiled(task);
+        asyncExecutor.execute(() -> {
+            if (future.isDone()) return;
+            try {
+                future.complete(scope.call(profiledTask));
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    private TransactionOperation profiled(TransactionOperation operation) {
+        ProfileScope scope = profiler != null ? profiler.capture() : null;
+        if (scope == null) {
+            return operation;
+        }
+        return conn -> {
+            ProfileScope previous = profiler.enter(scope);
+            try {
+                operation.execute(conn);
+            } finally {
+                profiler.restore(previous);
+            }
+        };
+    }
+
+    private <R> Supplier<R> profiled(Supplier<R> task) {
+        ProfileScope scope = profiler != null ? profiler.capture() : null;
+        if (scope == null) {
+            return task;
+        }
+        return () -> {
+            ProfileScope previous = profiler.enter(scope);
+            try {
+                return task.get();
+            } finally {
+                profiler.restore(previous);
+            }
+        };
+    }
+
+    private PreparedStatement prepare(Connection conn, String sql, int autoGeneratedKeys) throws SQLException {
+        OperationScope scope = OperationScope.current();
+        long timeoutMillis = connectionManager.getConfig().queryTimeoutMillis();
+        if (scope != null) {
+            scope.checkActive();
+            if (scope.hasDeadline()) {
+                long remaining = Math.max(1, scope.remainingMillis());
+                timeoutMillis = timeoutMillis > 0 ? Math.min(timeoutMillis, remaining) : remaining;
+            }
+        }
+        PreparedStatement stmt = conn.prepareStatement(sql, autoGeneratedKeys);
+        if (timeoutMillis > 0) {
+            stmt.setQueryTimeout((int) Math.max(1, (timeoutMillis + 999) / 1000));
+        }
+        if (profiler != null) {
+            stmt = profiler.wrap(stmt, sql);
+        }
+        if (scope != null) {
+            scope.register(stmt);
+        }
+        return stmt;
+    }
+
+    private DatabaseException translate(String message, Exception e) {
+        OperationScope scope = OperationScope.current();
+        if (e instanceof OperationCancelledException cancelled) {
+            return cancelled;
+        }
+        if (e instanceof OptimisticLockException conflict) {
+            return conflict;
+        }
+        if (scope != null && scope.isCancelled()) {
+            return new OperationCancelledException("Operation cancelled", e);
+        }
+        if (e instanceof QueryTimeoutException timedOut) {
+            timedOutOperations.incrementAndGet();
+            return timedOut;
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTimeoutException
+                    || (cause instanceof SQLException sql && "57014".equals(sql.getSQLState()))) {
+                timedOutOperations.incrementAndGet();
+                return new QueryTimeoutException("Query timed out", e);
+            }
+        }
+        if (scope != null && scope.isExpired()) {
+            timedOutOperations.incrementAndGet();
+            return new QueryTimeoutException("Operation deadline exceeded", e);
+        }
+        return new DatabaseException(message, e);
     }
 
     private void executeInTransaction(TransactionOperation operation) {
@@ -166,25 +1146,60 @@ public class EntityManager {
                 conn.commit();
             } catch (Exception e) {
                 conn.rollback();
-                throw new DatabaseException("Transaction failed", e);
+                throw translate("Transaction failed", e);
             } finally {
                 conn.setAutoCommit(autoCommit);
             }
         } catch (SQLException e) {
-            throw new DatabaseException("Failed to execute transaction", e);
+            throw translate("Failed to execute transaction", e);
         }
     }
 
-    private <T> T executeWithConnection(ConnectionFunction<T> function) {
-        try (Connection conn = connectionManager.getConnection()) {
+    private Transaction activeTransaction() {
+        if (!TransactionManager.hasTransaction()) {
+            return null;
+        }
+        Transaction tx = TransactionManager.currentTransaction();
+        return tx.getConnectionManager() == connectionManager ? tx : null;
+    }
+
+    private <T> T executeRead(ConnectionFunction<T> function) {
+        Transaction tx = activeTransaction();
+        if (tx != null) {
+            try {
+                return function.apply(tx.getConnection());
+            } catch (Exception e) {
+                throw translate("Database operation failed", e);
+            }
+        }
+        try (Connection conn = connectionManager.getReadConnection()) {
             return function.apply(conn);
         } catch (Exception e) {
-            throw new DatabaseException("Database operation failed", e);
+            throw translate("Database operation failed", e);
+        }
+    }
+
+    private static final class LobStream extends FilterInputStream {
+        private static final Cleaner CLEANER = Cleaner.create();
+        private final Cleaner.Cleanable cleanable;
+
+        private LobStream(InputStream in, AutoCloseable... resources) {
+            super(in);
+            this.cleanable = CLEANER.register(this, () -> closeAll(resources));
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                cleanable.clean();
+            }
         }
     }
 
     @FunctionalInterface
-    private interface TransactionOperation {
+    interface TransactionOperation {
         void execute(Connection conn) throws Exception;
     }
 
@@ -192,4 +1207,9 @@ public class EntityManager {
     private interface ConnectionFunction<T> {
         T apply(Connection conn) throws Exception;
     }
+
+    @FunctionalInterface
+    private interface ResultSetFunction<R> {
+        R apply(ResultSet rs) throws SQLException;
+    }
 }
@@ -0,0 +1,172 @@
+package fr.panncake.pannlib.orm.session;
+
+import fr.panncake.pannlib.orm.config.GroupCommitConfig;
+import fr.panncake.pannlib.orm.connection.ConnectionManager;
+import fr.panncake.pannlib.orm.exception.DatabaseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+final class GroupCommitter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GroupCommitter.class);
+    private static final int COMMITTED = -1;
+    private static final int COMMIT_FAILED = -2;
+    private final ConnectionManager connectionManager;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    GroupCommitter(ConnectionManager connectionManager, GroupCommitConfig config) {
+        this.connectionManager = connectionManager;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(config.windowMillis());
+        this.maxBatchSize = config.maxBatchSize();
+        this.worker = new Thread(this::run, "PannORM-GroupCommit");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    <F extends CompletableFuture<Void>> F submit(EntityManager.TransactionOperation operation, F future) {
+        if (!running) {
+            future.completeExceptionally(new DatabaseException("Group commit is shut down"));
+            return future;
+        }
+        queue.add(new PendingWrite(operation, future));
+        return future;
+    }
+
+    void shutdown() {
+        running = false;
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!worker.isAlive()) {
+            PendingWrite write;
+            while ((write = queue.poll()) != null) {
+                write.future().completeExceptionally(new DatabaseException("Group commit is shut down"));
+            }
+        }
+    }
+
+    private void run() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite first = running ? queue.poll(100, TimeUnit.MILLISECONDS) : queue.poll();
+                if (first == null) continue;
+                batch.add(first);
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingWrite next = remaining > 0 && running
+                            ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) break;
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                if (batch.isEmpty()) continue;
+            }
+            try {
+                flush(new ArrayList<>(batch));
+            } catch (Throwable t) {
+                LOGGER.error("Unexpected group commit failure", t);
+                batch.forEach(w -> w.future().completeExceptionally(t));
+            }
+            batch.clear();
+        }
+    }
+
+    private void flush(List<PendingWrite> group) {
+        List<PendingWrite> remaining = group.stream().filter(w -> !w.future().isDone()).toList();
+        while (!remaining.isEmpty()) {
+            if (remaining.size() == 1) {
+                flushAlone(remaining.get(0));
+                return;
+            }
+            int failedIndex = tryCommit(remaining);
+            if (failedIndex == COMMITTED) {
+                remaining.forEach(w -> w.future().complete(null));
+                return;
+            }
+            if (failedIndex == COMMIT_FAILED) {
+                int middle = remaining.size() / 2;
+                flush(remaining.subList(0, middle));
+                remaining = remaining.subList(middle, remaining.size());
+                continue;
+            }
+            flush(remaining.subList(0, failedIndex));
+            flushAlone(remaining.get(failedIndex));
+            remaining = remaining.subList(failedIndex + 1, remaining.size());
+        }
+    }
+
+    private void flushAlone(PendingWrite write) {
+        if (write.future().isDone()) return;
+        try {
+            commitAlone(write.operation());
+            write.future().complete(null);
+        } catch (Exception e) {
+            write.future().completeExceptionally(e);
+        }
+    }
+
+    private int tryCommit(List<PendingWrite> group) {
+        try (Connection conn = connectionManager.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                for (int i = 0; i < group.size(); i++) {
+                    try {
+                        group.get(i).operation().execute(conn);
+                    } catch (Exception e) {
+                        conn.rollback();
+                        LOGGER.debug("Group commit statement {} of {} failed, isolating it", i, group.size(), e);
+                        return i;
+                    }
+                }
+                conn.commit();
+                return COMMITTED;
+            } catch (SQLException e) {
+                conn.rollback();
+                LOGGER.debug("Group commit of {} writes failed, retrying individually", group.size(), e);
+                return COMMIT_FAILED;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (Exception e) {
+            LOGGER.debug("Group commit of {} writes failed, retrying individually", group.size(), e);
+            return COMMIT_FAILED;
+        }
+    }
+
+    private void commitAlone(EntityManager.TransactionOperation operation) {
+        try (Connection conn = connectionManager.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                operation.execute(conn);
+                conn.commit();
+            } catch (Exception e) {
+                conn.rollback();
+                throw e instanceof DatabaseException de ? de : new DatabaseException("Transaction failed", e);
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new DatabaseException("Failed to execute transaction", e);
+        }
+    }
+
+    private record PendingWrite(EntityManager.TransactionOperation operation, CompletableFuture<Void> future) {}
+}
@@ -0,0 +1,101 @@
+package fr.panncake.pannlib.orm.session;
+
+import fr.panncake.pannlib.orm.exception.OperationCancelledException;
+import fr.panncake.pannlib.orm.exception.QueryTimeoutException;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+final class OperationScope {
+    private static final ThreadLocal<OperationScope> CURRENT = new ThreadLocal<>();
+
+    private final boolean hasDeadline;
+    private final long deadlineNanos;
+    private final Set<Statement> statements = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelled;
+
+    private OperationScope(boolean hasDeadline, long deadlineNanos) {
+        this.hasDeadline = hasDeadline;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    static OperationScope current() {
+        return CURRENT.get();
+    }
+
+    static OperationScope open(Duration timeout) {
+        OperationScope parent = CURRENT.get();
+        boolean hasDeadline = parent != null && parent.hasDeadline;
+        long deadline = hasDeadline ? parent.deadlineNanos : 0;
+        if (timeout != null) {
+            long candidate = System.nanoTime() + timeout.toNanos();
+            deadline = hasDeadline && deadline - candidate < 0 ? deadline : candidate;
+            hasDeadline = true;
+        }
+        return new OperationScope(hasDeadline, deadline);
+    }
+
+    <R> R call(Supplier<R> task) {
+        OperationScope previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return task.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    boolean hasDeadline() {
+        return hasDeadline;
+    }
+
+    long remainingMillis() {
+        return Math.max(0, Duration.ofNanos(deadlineNanos - System.nanoTime()).toMillis());
+    }
+
+    boolean isExpired() {
+        return hasDeadline && deadlineNanos - System.nanoTime() <= 0;
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    void checkActive() {
+        if (cancelled) {
+            throw new OperationCancelledException("Operation cancelled");
+        }
+        if (isExpired()) {
+            throw new QueryTimeoutException("Operation deadline exceeded");
+        }
+    }
+
+    void register(Statement statement) {
+        statements.add(statement);
+        if (cancelled) {
+            cancelStatement(statement);
+        }
+    }
+
+    void cancel() {
+        cancelled = true;
+        statements.forEach(OperationScope::cancelStatement);
+    }
+
+    private static void cancelStatement(Statement statement) {
+        try {
+            if (!statement.isClosed()) {
+                statement.cancel();
+            }
+        } catch (SQLException ignored) {
+        }
+    }
+}
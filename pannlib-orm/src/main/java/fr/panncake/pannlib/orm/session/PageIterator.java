@@ -0,0 +1,38 @@
+package fr.panncake.pannlib.orm.session;
+
+import fr.panncake.pannlib.orm.query.Page;
+import fr.panncake.pannlib.orm.query.PageKey;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+final class PageIterator<T> implements Iterator<T> {
+    private final Function<PageKey, Page<T>> fetcher;
+    private Iterator<T> current;
+    private PageKey nextKey;
+    private boolean exhausted;
+
+    PageIterator(Function<PageKey, Page<T>> fetcher) {
+        this.fetcher = fetcher;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while ((current == null || !current.hasNext()) && !exhausted) {
+            Page<T> page = fetcher.apply(nextKey);
+            current = page.items().iterator();
+            nextKey = page.nextKey();
+            exhausted = !page.hasNext();
+        }
+        return current != null && current.hasNext();
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+}
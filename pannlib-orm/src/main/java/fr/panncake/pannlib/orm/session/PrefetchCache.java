@@ -0,0 +1,117 @@
+package fr.panncake.pannlib.orm.session;
+
+import fr.panncake.pannlib.orm.event.EntityChangeEvent;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+final class PrefetchCache {
+    private final Map<EntityRef, Entry> entities = new ConcurrentHashMap<>();
+    private final Map<ListRef, Entry> lists = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    long generation(Class<?> entityClass) {
+        return generations.computeIfAbsent(entityClass.getName(), t -> new AtomicLong()).get();
+    }
+
+    void putEntity(Class<?> entityClass, Object id, Object entity, Object owner, long expiresAt, long generation) {
+        if (id != null && entity != null) {
+            put(entities, EntityRef.of(entityClass.getName(), id), new Entry(entity, owner, expiresAt), entityClass, generation);
+        }
+    }
+
+    void putList(Class<?> entityClass, String column, Object value, List<?> results, Object owner, long expiresAt, long generation) {
+        put(lists, new ListRef(entityClass.getName(), column, value), new Entry(List.copyOf(results), owner, expiresAt),
+                entityClass, generation);
+    }
+
+    private <K> void put(Map<K, Entry> map, K key, Entry entry, Class<?> entityClass, long generation) {
+        if (generation(entityClass) != generation) {
+            return;
+        }
+        map.put(key, entry);
+        if (generation(entityClass) != generation) {
+            map.remove(key, entry);
+        }
+    }
+
+    Object getEntity(Class<?> entityClass, Object id) {
+        if (entities.isEmpty() || id == null) {
+            return null;
+        }
+        return hitOrMiss(entities, EntityRef.of(entityClass.getName(), id));
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> List<T> getList(Class<T> entityClass, String column, Object value) {
+        if (lists.isEmpty()) {
+            return null;
+        }
+        return (List<T>) hitOrMiss(lists, new ListRef(entityClass.getName(), column, value));
+    }
+
+    private <K> Object hitOrMiss(Map<K, Entry> map, K key) {
+        Entry entry = map.get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (entry.expiresAt() < System.nanoTime()) {
+            map.remove(key, entry);
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.value();
+    }
+
+    void evict(EntityChangeEvent event) {
+        generations.computeIfAbsent(event.entityType(), t -> new AtomicLong()).incrementAndGet();
+        if (!entities.isEmpty()) {
+            if (event.id() == null) {
+                entities.keySet().removeIf(ref -> ref.entityType().equals(event.entityType()));
+            } else {
+                entities.remove(EntityRef.of(event.entityType(), event.id()));
+            }
+        }
+        if (!lists.isEmpty()) {
+            lists.keySet().removeIf(ref -> ref.entityType().equals(event.entityType()));
+        }
+    }
+
+    void evictOwner(Object owner) {
+        entities.values().removeIf(entry -> Objects.equals(entry.owner(), owner));
+        lists.values().removeIf(entry -> Objects.equals(entry.owner(), owner));
+    }
+
+    void purgeExpired() {
+        long now = System.nanoTime();
+        entities.values().removeIf(entry -> entry.expiresAt() < now);
+        lists.values().removeIf(entry -> entry.expiresAt() < now);
+    }
+
+    long hits() {
+        return hits.get();
+    }
+
+    long misses() {
+        return misses.get();
+    }
+
+    private record EntityRef(String entityType, String id) {
+        static EntityRef of(String entityType, Object id) {
+            return new EntityRef(entityType, String.valueOf(id));
+        }
+    }
+
+    private record ListRef(String entityType, String column, Object value) {
+    }
+
+    private record Entry(Object value, Object owner, long expiresAt) {
+    }
+}
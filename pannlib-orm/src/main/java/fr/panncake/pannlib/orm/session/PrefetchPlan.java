@@ -0,0 +1,74 @@
+package fr.panncake.pannlib.orm.session;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class PrefetchPlan {
+    private final List<Step> steps;
+    private final Duration ttl;
+
+    private PrefetchPlan(List<Step> steps, Duration ttl) {
+        this.steps = List.copyOf(steps);
+        this.ttl = ttl;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    List<Step> steps() {
+        return steps;
+    }
+
+    Duration ttl() {
+        return ttl;
+    }
+
+    sealed interface Step permits ById, ByColumn, Follow {
+    }
+
+    record ById(Class<?> entityClass) implements Step {
+    }
+
+    record ByColumn(Class<?> entityClass, String column) implements Step {
+    }
+
+    record Follow(Class<?> sourceClass, String field, Class<?> targetClass) implements Step {
+    }
+
+    public static final class Builder {
+        private final List<Step> steps = new ArrayList<>();
+        private Duration ttl = Duration.ofSeconds(10);
+
+        private Builder() {
+        }
+
+        public Builder byId(Class<?> entityClass) {
+            steps.add(new ById(entityClass));
+            return this;
+        }
+
+        public Builder byColumn(Class<?> entityClass, String column) {
+            steps.add(new ByColumn(entityClass, column));
+            return this;
+        }
+
+        public Builder follow(Class<?> sourceClass, String field, Class<?> targetClass) {
+            steps.add(new Follow(sourceClass, field, targetClass));
+            return this;
+        }
+
+        public Builder ttl(Duration ttl) {
+            this.ttl = ttl;
+            return this;
+        }
+
+        public PrefetchPlan build() {
+            if (steps.isEmpty()) {
+                throw new IllegalStateException("Prefetch plan has no steps");
+            }
+            return new PrefetchPlan(steps, ttl);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package fr.panncake.pannlib.orm.session;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+
+public record ProfileReport(Instant generatedAt, long scopes, long statements, List<RepeatedStatement> repeatedStatements,
+                            List<FullScan> fullScans, List<SlowShape> slowestShapes) {
+
+    public boolean hasFindings() {
+        return !repeatedStatements.isEmpty() || !fullScans.isEmpty();
+    }
+
+    public String render() {
+        StringBuilder out = new StringBuilder();
+        out.append("Query profile generated at ").append(generatedAt).append('\n');
+        out.append(scopes).append(" scopes, ").append(statements).append(" statements\n");
+
+        out.append("\nRepeated statements (possible N+1): ").append(repeatedStatements.size()).append('\n');
+        for (RepeatedStatement repeated : repeatedStatements) {
+            out.append("  ").append(repeated.maxRepeats()).append("x in scope '").append(repeated.exampleScope())
+                    .append("' (").append(repeated.scopes()).append(" scopes): ").append(repeated.shape()).append('\n');
+        }
+
+        out.append("\nFull table reads: ").append(fullScans.size()).append('\n');
+        for (FullScan scan : fullScans) {
+            out.append("  ").append(scan.maxRows()).append(" rows, ").append(scan.executions()).append(" executions: ")
+                    .append(scan.shape()).append('\n');
+        }
+
+        out.append("\nSlowest statement shapes:\n");
+        for (SlowShape slow : slowestShapes) {
+            out.append(String.format(Locale.ROOT, "  %.2f ms total, %.2f ms max, %d executions: %s%n",
+                    slow.totalNanos() / 1e6, slow.maxNanos() / 1e6, slow.executions(), slow.shape()));
+            for (String line : slow.plan()) {
+                out.append("      ").append(line).append('\n');
+            }
+        }
+        return out.toString();
+    }
+
+    public void writeTo(Path file) {
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Files.writeString(file, render());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public record RepeatedStatement(String shape, int maxRepeats, long scopes, String exampleScope) {
+    }
+
+    public record FullScan(String shape, long maxRows, long executions) {
+    }
+
+    public record SlowShape(String shape, long executions, long totalNanos, long maxNanos, List<String> plan) {
+    }
+}
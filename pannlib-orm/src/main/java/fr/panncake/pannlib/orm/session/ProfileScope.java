@@ -0,0 +1,70 @@
+package fr.panncake.pannlib.orm.session;
+
+import fr.panncake.pannlib.orm.transaction.Transaction;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public final class ProfileScope implements AutoCloseable {
+    static final ProfileScope DISABLED = new ProfileScope(null, "disabled", null, null);
+
+    private final QueryProfiler profiler;
+    private final String name;
+    private final Transaction transaction;
+    private final ProfileScope parent;
+    private final Map<String, Integer> executions = new HashMap<>();
+    private boolean closed;
+    private volatile long lastUsed;
+
+    ProfileScope(QueryProfiler profiler, String name, Transaction transaction, ProfileScope parent) {
+        this.profiler = profiler;
+        this.name = name;
+        this.transaction = transaction;
+        this.parent = parent;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    Transaction transaction() {
+        return transaction;
+    }
+
+    ProfileScope parent() {
+        return parent;
+    }
+
+    synchronized void add(String shape) {
+        if (!closed) {
+            executions.merge(shape, 1, Integer::sum);
+        }
+    }
+
+    synchronized boolean isClosed() {
+        return closed;
+    }
+
+    long lastUsed() {
+        return lastUsed;
+    }
+
+    void touch(long now) {
+        lastUsed = now;
+    }
+
+    synchronized Map<String, Integer> finish() {
+        if (closed) {
+            return null;
+        }
+        closed = true;
+        return executions;
+    }
+
+    @Override
+    public void close() {
+        if (profiler != null) {
+            profiler.close(this);
+        }
+    }
+}
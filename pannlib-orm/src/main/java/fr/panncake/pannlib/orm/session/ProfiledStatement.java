@@ -0,0 +1,132 @@
+package fr.panncake.pannlib.orm.session;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Arrays;
+
+final class ProfiledStatement implements InvocationHandler {
+    private final QueryProfiler profiler;
+    private final PreparedStatement target;
+    private final String sql;
+    private final ProfileScope scope;
+    private Object[] parameters = new Object[0];
+    private long nanos;
+    private long rows;
+    private boolean executed;
+    private boolean recorded;
+
+    private ProfiledStatement(QueryProfiler profiler, PreparedStatement target, String sql, ProfileScope scope) {
+        this.profiler = profiler;
+        this.target = target;
+        this.sql = sql;
+        this.scope = scope;
+    }
+
+    static PreparedStatement wrap(QueryProfiler profiler, PreparedStatement target, String sql, ProfileScope scope) {
+        return (PreparedStatement) Proxy.newProxyInstance(ProfiledStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, new ProfiledStatement(profiler, target, sql, scope));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        switch (name) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "close":
+                try {
+                    return call(target, method, args);
+                } finally {
+                    finish();
+                }
+            default:
+                break;
+        }
+        if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+            bind(index, name.equals("setNull") ? null : args[1]);
+        }
+        if (!name.startsWith("execute")) {
+            return call(target, method, args);
+        }
+        long start = System.nanoTime();
+        try {
+            Object result = call(target, method, args);
+            if (result instanceof ResultSet rs) {
+                return Proxy.newProxyInstance(ProfiledStatement.class.getClassLoader(),
+                        new Class<?>[]{ResultSet.class}, new ProfiledResultSet(rs));
+            }
+            if (result instanceof Integer count) {
+                rows += Math.max(0, count);
+            } else if (result instanceof int[] counts) {
+                for (int count : counts) {
+                    rows += Math.max(0, count);
+                }
+            }
+            return result;
+        } finally {
+            nanos += System.nanoTime() - start;
+            executed = true;
+        }
+    }
+
+    private void bind(int index, Object value) {
+        if (index > parameters.length) {
+            parameters = Arrays.copyOf(parameters, index);
+        }
+        parameters[index - 1] = value instanceof InputStream || value instanceof Reader ? null : value;
+    }
+
+    private void finish() {
+        if (executed && !recorded) {
+            recorded = true;
+            profiler.record(scope, sql, parameters, nanos, rows);
+        }
+    }
+
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private final class ProfiledResultSet implements InvocationHandler {
+        private final ResultSet target;
+
+        private ProfiledResultSet(ResultSet target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "next":
+                    long start = System.nanoTime();
+                    try {
+                        Object hasNext = call(target, method, args);
+                        if (Boolean.TRUE.equals(hasNext)) {
+                            rows++;
+                        }
+                        return hasNext;
+                    } finally {
+                        nanos += System.nanoTime() - start;
+                    }
+                default:
+                    return call(target, method, args);
+            }
+        }
+    }
+}
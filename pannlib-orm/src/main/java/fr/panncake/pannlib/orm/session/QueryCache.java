@@ -0,0 +1,116 @@
+package fr.panncake.pannlib.orm.session;
+
+import fr.panncake.pannlib.orm.config.QueryCacheConfig;
+import fr.panncake.pannlib.orm.query.BoundStatement;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+final class QueryCache {
+    static final Object MISS = new Object();
+    private final int maxEntries;
+    private final long maxRows;
+    private final long defaultTtlMillis;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private long rows;
+
+    QueryCache(QueryCacheConfig config) {
+        this.maxEntries = config.maxEntries();
+        this.maxRows = config.maxRows();
+        this.defaultTtlMillis = config.ttlMillis();
+    }
+
+    Object get(BoundStatement statement) {
+        Key key = Key.of(statement);
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt() - System.nanoTime() > 0) {
+                hits.incrementAndGet();
+                return entry.value();
+            }
+            if (entry != null) {
+                remove(key, entry);
+            }
+        }
+        misses.incrementAndGet();
+        return MISS;
+    }
+
+    long generation(String table) {
+        return generations.computeIfAbsent(table, t -> new AtomicLong()).get();
+    }
+
+    void put(String table, long generation, BoundStatement statement, Object value, long ttlMillis) {
+        int weight = value instanceof Collection<?> collection ? Math.max(1, collection.size())
+                : value instanceof Map<?, ?> map ? Math.max(1, map.size()) : 1;
+        if (weight > maxRows) {
+            return;
+        }
+        long ttl = TimeUnit.MILLISECONDS.toNanos(ttlMillis > 0 ? ttlMillis : defaultTtlMillis);
+        Key key = Key.of(statement);
+        synchronized (entries) {
+            if (generation(table) != generation) {
+                return;
+            }
+            Entry previous = entries.put(key, new Entry(table, value, weight, System.nanoTime() + ttl));
+            if (previous != null) {
+                rows -= previous.weight();
+            }
+            rows += weight;
+            Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+            while ((entries.size() > maxEntries || rows > maxRows) && eldest.hasNext()) {
+                rows -= eldest.next().getValue().weight();
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    void invalidate(String table) {
+        synchronized (entries) {
+            generations.computeIfAbsent(table, t -> new AtomicLong()).incrementAndGet();
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (entry.table().equals(table)) {
+                    rows -= entry.weight();
+                    iterator.remove();
+                    invalidations.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    QueryCacheStats stats() {
+        synchronized (entries) {
+            return new QueryCacheStats(hits.get(), misses.get(), evictions.get(), invalidations.get(), entries.size(), rows);
+        }
+    }
+
+    private void remove(Key key, Entry entry) {
+        entries.remove(key);
+        rows -= entry.weight();
+    }
+
+    private record Key(String sql, List<Object> parameters) {
+        static Key of(BoundStatement statement) {
+            Object[] parameters = statement.parameters();
+            List<Object> normalized = new ArrayList<>(parameters.length);
+            for (Object parameter : parameters) {
+                normalized.add(parameter instanceof byte[] bytes ? ByteBuffer.wrap(bytes.clone()) : parameter);
+            }
+            return new Key(statement.sql(), normalized);
+        }
+    }
+
+    private record Entry(String table, Object value, int weight, long expiresAt) {
+    }
+}
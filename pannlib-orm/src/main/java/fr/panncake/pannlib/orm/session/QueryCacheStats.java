@@ -0,0 +1,9 @@
+package fr.panncake.pannlib.orm.session;
+
+public record QueryCacheStats(long hits, long misses, long evictions, long invalidations, int entries, long rows) {
+
+    public double hitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+}
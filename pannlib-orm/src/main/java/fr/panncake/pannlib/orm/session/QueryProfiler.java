@@ -0,0 +1,281 @@
+package fr.panncake.pannlib.orm.session;
+
+import fr.panncake.pannlib.orm.config.ProfilerConfig;
+import fr.panncake.pannlib.orm.connection.ConnectionManager;
+import fr.panncake.pannlib.orm.query.QueryBuilder;
+import fr.panncake.pannlib.orm.transaction.Transaction;
+import fr.panncake.pannlib.orm.transaction.TransactionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+final class QueryProfiler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(QueryProfiler.class);
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bIN\\s*\\(\\s*\\?(\\s*,\\s*\\?)*\\s*\\)");
+
+    private final ConnectionManager connectionManager;
+    private final ProfilerConfig config;
+    private final ThreadLocal<ProfileScope> current = new ThreadLocal<>();
+    private final ThreadLocal<ProfileScope> transactionScope = new ThreadLocal<>();
+    private final ThreadLocal<ProfileScope> implicitScope = new ThreadLocal<>();
+    private final Set<ProfileScope> openTransactionScopes = ConcurrentHashMap.newKeySet();
+    private final Set<ProfileScope> openImplicitScopes = ConcurrentHashMap.newKeySet();
+    private final Map<String, ShapeStats> shapes = new ConcurrentHashMap<>();
+    private final Map<String, ProfileReport.RepeatedStatement> repeated = new ConcurrentHashMap<>();
+    private final AtomicLong scopes = new AtomicLong();
+    private final AtomicLong statements = new AtomicLong();
+
+    QueryProfiler(ConnectionManager connectionManager, ProfilerConfig config) {
+        this.connectionManager = connectionManager;
+        this.config = config;
+    }
+
+    ProfilerConfig config() {
+        return config;
+    }
+
+    ProfileScope open(String name) {
+        ProfileScope scope = new ProfileScope(this, name, null, current.get());
+        current.set(scope);
+        return scope;
+    }
+
+    ProfileScope capture() {
+        return resolveScope();
+    }
+
+    ProfileScope enter(ProfileScope scope) {
+        ProfileScope previous = current.get();
+        current.set(scope);
+        return previous;
+    }
+
+    void restore(ProfileScope previous) {
+        if (previous == null) {
+            current.remove();
+        } else {
+            current.set(previous);
+        }
+    }
+
+    PreparedStatement wrap(PreparedStatement stmt, String sql) {
+        return ProfiledStatement.wrap(this, stmt, sql, resolveScope());
+    }
+
+    void record(ProfileScope scope, String sql, Object[] parameters, long nanos, long rows) {
+        String shape = shape(sql);
+        statements.incrementAndGet();
+        shapes.computeIfAbsent(shape, ShapeStats::new).add(sql, parameters, nanos, rows);
+        if (scope != null) {
+            scope.add(shape);
+        }
+    }
+
+    void close(ProfileScope scope) {
+        Map<String, Integer> executions = scope.finish();
+        if (executions == null) {
+            return;
+        }
+        if (current.get() == scope) {
+            restore(scope.parent());
+        }
+        openTransactionScopes.remove(scope);
+        openImplicitScopes.remove(scope);
+        scopes.incrementAndGet();
+        executions.forEach((shape, count) -> {
+            if (count < config.repeatThreshold()) {
+                return;
+            }
+            ProfileReport.RepeatedStatement merged = repeated.merge(shape,
+                    new ProfileReport.RepeatedStatement(shape, count, 1, scope.getName()),
+                    (a, b) -> new ProfileReport.RepeatedStatement(shape, Math.max(a.maxRepeats(), b.maxRepeats()),
+                            a.scopes() + 1, a.exampleScope()));
+            if (merged.scopes() == 1) {
+                LOGGER.warn("Statement executed {} times in scope '{}' (possible N+1): {}", count, scope.getName(), shape);
+            }
+        });
+    }
+
+    ProfileReport report() {
+        for (ProfileScope scope : openTransactionScopes) {
+            if (!scope.transaction().isActive()) {
+                close(scope);
+            }
+        }
+        for (ProfileScope scope : openImplicitScopes) {
+            close(scope);
+        }
+        List<ShapeStats> snapshot = new ArrayList<>(shapes.values());
+
+        List<ProfileReport.RepeatedStatement> repeatedStatements = new ArrayList<>(repeated.values());
+        repeatedStatements.sort(Comparator.comparingInt(ProfileReport.RepeatedStatement::maxRepeats).reversed());
+
+        List<ProfileReport.FullScan> fullScans = new ArrayList<>();
+        for (ShapeStats stats : snapshot) {
+            ProfileReport.FullScan scan = stats.fullScan(config.largeTableRows());
+            if (scan != null) {
+                fullScans.add(scan);
+            }
+        }
+        fullScans.sort(Comparator.comparingLong(ProfileReport.FullScan::maxRows).reversed());
+
+        snapshot.sort(Comparator.comparingLong(ShapeStats::totalNanos).reversed());
+        List<ProfileReport.SlowShape> slowest = new ArrayList<>();
+        for (ShapeStats stats : snapshot.subList(0, Math.min(config.explainTopShapes(), snapshot.size()))) {
+            slowest.add(stats.slowShape(this::explain));
+        }
+        return new ProfileReport(Instant.now(), scopes.get(), statements.get(), repeatedStatements, fullScans, slowest);
+    }
+
+    private ProfileScope resolveScope() {
+        ProfileScope scope = current.get();
+        if (scope != null) {
+            return scope;
+        }
+        Transaction tx = TransactionManager.hasTransaction() ? TransactionManager.currentTransaction() : null;
+        ProfileScope txScope = transactionScope.get();
+        if (txScope != null && txScope.transaction() != tx) {
+            close(txScope);
+            transactionScope.remove();
+            txScope = null;
+        }
+        if (tx == null || tx.getConnectionManager() != connectionManager) {
+            return implicitScope();
+        }
+        if (txScope == null) {
+            txScope = new ProfileScope(this, "transaction@" + Thread.currentThread().getName(), tx, null);
+            transactionScope.set(txScope);
+            openTransactionScopes.add(txScope);
+            tx.onCommit(txScope::close);
+            tx.onRollback(txScope::close);
+        }
+        return txScope;
+    }
+
+    private ProfileScope implicitScope() {
+        long now = System.nanoTime();
+        ProfileScope scope = implicitScope.get();
+        if (scope != null && (scope.isClosed() || now - scope.lastUsed() > TimeUnit.MILLISECONDS.toNanos(config.implicitScopeMillis()))) {
+            close(scope);
+            scope = null;
+        }
+        if (scope == null) {
+            scope = new ProfileScope(this, "implicit@" + Thread.currentThread().getName(), null, null);
+            implicitScope.set(scope);
+            openImplicitScopes.add(scope);
+        }
+        scope.touch(now);
+        return scope;
+    }
+
+    private List<String> explain(String sql, Object[] parameters) {
+        String verb = verb(sql);
+        if (!verb.equals("SELECT") && !verb.equals("UPDATE") && !verb.equals("DELETE")) {
+            return List.of();
+        }
+        String explainSql = QueryBuilder.buildExplain(connectionManager.getConfig().type(), sql);
+        try (Connection conn = connectionManager.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(explainSql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                stmt.setObject(i + 1, parameters[i]);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                int columns = rs.getMetaData().getColumnCount();
+                List<String> plan = new ArrayList<>();
+                while (rs.next()) {
+                    StringJoiner line = new StringJoiner(" | ");
+                    for (int column = 1; column <= columns; column++) {
+                        line.add(String.valueOf(rs.getObject(column)));
+                    }
+                    plan.add(line.toString());
+                }
+                return plan;
+            }
+        } catch (SQLException e) {
+            LOGGER.debug("EXPLAIN failed for {}", sql, e);
+            return List.of("EXPLAIN failed: " + e.getMessage());
+        }
+    }
+
+    static String shape(String sql) {
+        return IN_LIST.matcher(sql).replaceAll("IN (?...)");
+    }
+
+    private static String verb(String sql) {
+        String trimmed = sql.stripLeading();
+        int end = 0;
+        while (end < trimmed.length() && Character.isLetter(trimmed.charAt(end))) {
+            end++;
+        }
+        return trimmed.substring(0, end).toUpperCase(Locale.ROOT);
+    }
+
+    private static boolean isFullScan(String sql) {
+        String upper = sql.toUpperCase(Locale.ROOT);
+        return verb(sql).equals("SELECT") && !upper.contains(" WHERE ") && !upper.contains(" LIMIT ");
+    }
+
+    @FunctionalInterface
+    private interface Explainer {
+        List<String> explain(String sql, Object[] parameters);
+    }
+
+    private static final class ShapeStats {
+        private final String shape;
+        private long executions;
+        private long totalNanos;
+        private long maxNanos;
+        private long maxRows;
+        private String sampleSql;
+        private Object[] sampleParameters;
+
+        private ShapeStats(String shape) {
+            this.shape = shape;
+        }
+
+        synchronized void add(String sql, Object[] parameters, long nanos, long rows) {
+            executions++;
+            totalNanos += nanos;
+            maxRows = Math.max(maxRows, rows);
+            if (sampleSql == null || nanos > maxNanos) {
+                maxNanos = nanos;
+                sampleSql = sql;
+                sampleParameters = parameters;
+            }
+        }
+
+        synchronized long totalNanos() {
+            return totalNanos;
+        }
+
+        synchronized ProfileReport.FullScan fullScan(long largeTableRows) {
+            return maxRows >= largeTableRows && isFullScan(shape) ? new ProfileReport.FullScan(shape, maxRows, executions) : null;
+        }
+
+        ProfileReport.SlowShape slowShape(Explainer explainer) {
+            String sql;
+            Object[] parameters;
+            long count;
+            long total;
+            long max;
+            synchronized (this) {
+                sql = sampleSql;
+                parameters = sampleParameters;
+                count = executions;
+                total = totalNanos;
+                max = maxNanos;
+            }
+            return new ProfileReport.SlowShape(shape, count, total, max, explainer.explain(sql, parameters));
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package fr.panncake.pannlib.orm.shard;
+
+import java.util.UUID;
+
+public final class HashShardFunction implements ShardFunction {
+
+    @Override
+    public int shardFor(Object key, int shardCount) {
+        if (key == null) {
+            throw new IllegalArgumentException("Shard key must not be null");
+        }
+        return (int) Math.floorMod(mix(stableHash(key)), (long) shardCount);
+    }
+
+    private static long stableHash(Object key) {
+        if (key instanceof UUID uuid) {
+            return uuid.getMostSignificantBits() ^ uuid.getLeastSignificantBits();
+        }
+        if (key instanceof Number number) {
+            return number.longValue();
+        }
+        if (key instanceof CharSequence || key instanceof Enum<?>) {
+            return key.toString().hashCode();
+        }
+        return key.hashCode();
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,34 @@
+package fr.panncake.pannlib.orm.shard;
+
+import java.util.List;
+
+public final class RangeShardFunction implements ShardFunction {
+    private final List<Comparable<?>> upperBounds;
+
+    private RangeShardFunction(List<Comparable<?>> upperBounds) {
+        this.upperBounds = upperBounds;
+    }
+
+    public static RangeShardFunction of(Comparable<?>... upperBounds) {
+        return new RangeShardFunction(List.of(upperBounds));
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public int shardFor(Object key, int shardCount) {
+        if (upperBounds.size() != shardCount - 1) {
+            throw new IllegalStateException("Range function defines " + (upperBounds.size() + 1)
+                    + " shards but " + shardCount + " are configured");
+        }
+        for (int i = 0; i < upperBounds.size(); i++) {
+            Comparable bound = upperBounds.get(i);
+            int comparison = key instanceof Number number && bound instanceof Number limit
+                    ? Long.compare(number.longValue(), limit.longValue())
+                    : ((Comparable) key).compareTo(bound);
+            if (comparison < 0) {
+                return i;
+            }
+        }
+        return upperBounds.size();
+    }
+}
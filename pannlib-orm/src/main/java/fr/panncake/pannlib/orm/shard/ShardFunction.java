@@ -0,0 +1,6 @@
+package fr.panncake.pannlib.orm.shard;
+
+@FunctionalInterface
+public interface ShardFunction {
+    int shardFor(Object key, int shardCount);
+}
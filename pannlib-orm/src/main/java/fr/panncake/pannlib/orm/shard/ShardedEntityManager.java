@@ -0,0 +1,198 @@
+package fr.panncake.pannlib.orm.shard;
+
+import fr.panncake.pannlib.orm.annotations.UuidStorage;
+import fr.panncake.pannlib.orm.config.DatabaseConfig;
+import fr.panncake.pannlib.orm.connection.ConnectionManager;
+import fr.panncake.pannlib.orm.exception.DatabaseException;
+import fr.panncake.pannlib.orm.mapping.EntityMetadata;
+import fr.panncake.pannlib.orm.query.Criteria;
+import fr.panncake.pannlib.orm.session.EntityManager;
+import fr.panncake.pannlib.orm.util.ReflectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+public class ShardedEntityManager {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ShardedEntityManager.class);
+    private final List<ConnectionManager> connectionManagers = new ArrayList<>();
+    private final List<EntityManager> shards = new ArrayList<>();
+    private final ShardFunction shardFunction;
+    private final UuidStorage uuidStorage;
+    private final ExecutorService fanOutExecutor;
+    private final Map<Class<?>, EntityMetadata> metadataCache = new ConcurrentHashMap<>();
+
+    public ShardedEntityManager(List<DatabaseConfig> shardConfigs, ShardFunction shardFunction) {
+        if (shardConfigs.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shardFunction = shardFunction;
+        this.uuidStorage = shardConfigs.get(0).uuidStorage();
+        for (DatabaseConfig config : shardConfigs) {
+            if (config.uuidStorage() != uuidStorage) {
+                throw new IllegalArgumentException("All shards must use the same uuidStorage, found "
+                        + uuidStorage + " and " + config.uuidStorage());
+            }
+        }
+        for (DatabaseConfig config : shardConfigs) {
+            ConnectionManager connectionManager = ConnectionManager.create(config);
+            connectionManagers.add(connectionManager);
+            shards.add(new EntityManager(connectionManager));
+        }
+        this.fanOutExecutor = Executors.newFixedThreadPool(Math.max(2, shards.size()));
+        LOGGER.info("Sharded entity manager initialized with {} shards", shards.size());
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    public EntityManager shardAt(int index) {
+        return shards.get(index);
+    }
+
+    public EntityManager shard(Object shardKey) {
+        int index = shardFunction.shardFor(shardKey, shards.size());
+        if (index < 0 || index >= shards.size()) {
+            throw new DatabaseException("Shard function returned " + index + " for key " + shardKey);
+        }
+        return shards.get(index);
+    }
+
+    public <T> void createTable(Class<T> entityClass) {
+        fanOut(shards, em -> {
+            em.createTable(entityClass);
+            return null;
+        });
+    }
+
+    public <T> T find(Class<T> entityClass, Object id) {
+        EntityMetadata metadata = getMetadata(entityClass);
+        if (metadata.getShardKeyField() != metadata.getIdField()) {
+            throw new DatabaseException(entityClass.getSimpleName() + " is sharded by "
+                    + metadata.getShardKeyColumnName() + ", use find(entityClass, id, shardKey)");
+        }
+        return shard(id).find(entityClass, id);
+    }
+
+    public <T> T find(Class<T> entityClass, Object id, Object shardKey) {
+        return shard(shardKey).find(entityClass, id);
+    }
+
+    public <T> void persist(T entity) {
+        shardOf(entity).persist(entity);
+    }
+
+    public <T> CompletableFuture<Void> persistAsync(T entity) {
+        return shardOf(entity).persistAsync(entity);
+    }
+
+    public <T> void update(T entity) {
+        shardOf(entity).update(entity);
+    }
+
+    public <T> CompletableFuture<Void> updateAsync(T entity) {
+        return shardOf(entity).updateAsync(entity);
+    }
+
+    public <T> void delete(T entity) {
+        shardOf(entity).delete(entity);
+    }
+
+    public <T> CompletableFuture<Void> deleteAsync(T entity) {
+        return shardOf(entity).deleteAsync(entity);
+    }
+
+    public <T> List<T> findAll(Class<T> entityClass) {
+        return merge(fanOut(shards, em -> em.findAll(entityClass)));
+    }
+
+    public <T> List<T> findAll(Class<T> entityClass, Criteria criteria) {
+        return merge(fanOut(targets(entityClass, criteria), em -> em.findAll(entityClass, criteria)));
+    }
+
+    public long count(Class<?> entityClass, Criteria criteria) {
+        return fanOut(targets(entityClass, criteria), em -> em.count(entityClass, criteria)).stream()
+                .mapToLong(Long::longValue)
+                .sum();
+    }
+
+    public boolean exists(Class<?> entityClass, Criteria criteria) {
+        return fanOut(targets(entityClass, criteria), em -> em.exists(entityClass, criteria)).contains(true);
+    }
+
+    public void shutdown() {
+        fanOutExecutor.shutdown();
+        shards.forEach(EntityManager::shutdown);
+        connectionManagers.forEach(ConnectionManager::shutdown);
+    }
+
+    private EntityManager shardOf(Object entity) {
+        EntityMetadata metadata = getMetadata(entity.getClass());
+        Object key = ReflectionUtils.getFieldValue(metadata.getShardKeyField(), entity);
+        if (key == null) {
+            throw new DatabaseException("Shard key " + metadata.getShardKeyColumnName() + " of "
+                    + entity.getClass().getSimpleName() + " is null");
+        }
+        return shard(key);
+    }
+
+    private List<EntityManager> targets(Class<?> entityClass, Criteria criteria) {
+        if (criteria == null) {
+            return shards;
+        }
+        EntityMetadata metadata = getMetadata(entityClass);
+        String shardColumn = metadata.getShardKeyColumnName();
+        for (Criteria.Condition condition : criteria.conditions()) {
+            if (!metadata.resolveColumn(condition.column()).equals(shardColumn)) {
+                continue;
+            }
+            if (condition.operator() == Criteria.Operator.EQ) {
+                return List.of(shard(condition.value()));
+            }
+            if (condition.operator() == Criteria.Operator.IN) {
+                Set<EntityManager> selected = new LinkedHashSet<>();
+                for (Object value : (Collection<?>) condition.value()) {
+                    selected.add(shard(value));
+                }
+                return new ArrayList<>(selected);
+            }
+        }
+        return shards;
+    }
+
+    private <R> List<R> fanOut(List<EntityManager> targets, Function<EntityManager, R> operation) {
+        if (targets.size() == 1) {
+            return Collections.singletonList(operation.apply(targets.get(0)));
+        }
+        List<CompletableFuture<R>> futures = new ArrayList<>(targets.size());
+        for (EntityManager target : targets) {
+            futures.add(CompletableFuture.supplyAsync(() -> operation.apply(target), fanOutExecutor));
+        }
+        List<R> results = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<R> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof DatabaseException de ? de : new DatabaseException("Shard query failed", e.getCause());
+        }
+        return results;
+    }
+
+    private static <T> List<T> merge(List<List<T>> parts) {
+        List<T> merged = new ArrayList<>(parts.stream().mapToInt(List::size).sum());
+        parts.forEach(merged::addAll);
+        return merged;
+    }
+
+    private EntityMetadata getMetadata(Class<?> entityClass) {
+        return metadataCache.computeIfAbsent(entityClass, c -> new EntityMetadata(c, uuidStorage));
+    }
+}
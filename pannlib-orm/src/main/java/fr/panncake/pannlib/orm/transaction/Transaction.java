@@ -6,17 +6,28 @@ import lombok.Getter;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 
 @Getter
 public class Transaction implements AutoCloseable {
     private final Connection connection;
+    private final ConnectionManager connectionManager;
     private boolean active;
     private boolean committed;
     private boolean rolledBack;
+    private final List<Runnable> commitCallbacks = new ArrayList<>();
+    private final List<Runnable> rollbackCallbacks = new ArrayList<>();
 
     public Transaction() {
+        this(ConnectionManager.getInstance());
+    }
+
+    public Transaction(ConnectionManager connectionManager) {
+        this.connectionManager = connectionManager;
+        connectionManager.fireTransactionStart();
         try {
-            this.connection = ConnectionManager.getInstance().getConnection();
+            this.connection = connectionManager.getConnection();
             this.connection.setAutoCommit(false);
             this.active = true;
         } catch (SQLException e) {
@@ -36,6 +47,11 @@ public class Transaction implements AutoCloseable {
         } finally {
             closeConnection();
         }
+        commitCallbacks.forEach(Runnable::run);
+    }
+
+    public void onCommit(Runnable callback) {
+        commitCallbacks.add(callback);
     }
 
     public void rollback() {
@@ -50,6 +66,11 @@ public class Transaction implements AutoCloseable {
         } finally {
             closeConnection();
         }
+        rollbackCallbacks.forEach(Runnable::run);
+    }
+
+    public void onRollback(Runnable callback) {
+        rollbackCallbacks.add(callback);
     }
 
     @Override
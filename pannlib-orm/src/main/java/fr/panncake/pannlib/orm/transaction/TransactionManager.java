@@ -59,6 +59,11 @@ public final class TransactionManager {
         }
     }
 
+    public static boolean hasTransaction() {
+        Transaction tx = CURRENT.get();
+        return tx != null && tx.isActive();
+    }
+
     public static Transaction currentTransaction() {
         Transaction tx = CURRENT.get();
         if (tx == null) {
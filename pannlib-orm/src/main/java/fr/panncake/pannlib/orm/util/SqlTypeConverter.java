@@ -54,35 +54,41 @@ public final class SqlTypeConverter {
         Object value = rs.getObject(columnName);
         if (value == null) return null;
 
-        if (targetType == String.class) return targetType.cast(value.toString());
-        if (targetType == Integer.class || targetType == int.class) return targetType.cast(((Number) value).intValue());
-        if (targetType == Long.class || targetType == long.class) return targetType.cast(((Number) value).longValue());
-        if (targetType == Boolean.class || targetType == boolean.class) return targetType.cast(value);
-        if (targetType == Double.class || targetType == double.class) return targetType.cast(((Number) value).doubleValue());
-        if (targetType == Float.class || targetType == float.class) return targetType.cast(((Number) value).floatValue());
-        if (targetType == BigDecimal.class) return targetType.cast(value);
+        if (targetType == String.class) return cast(targetType, value.toString());
+        if (targetType == Integer.class || targetType == int.class) return cast(targetType, ((Number) value).intValue());
+        if (targetType == Long.class || targetType == long.class) return cast(targetType, ((Number) value).longValue());
+        if (targetType == Boolean.class || targetType == boolean.class) return cast(targetType, value);
+        if (targetType == Double.class || targetType == double.class) return cast(targetType, ((Number) value).doubleValue());
+        if (targetType == Float.class || targetType == float.class) return cast(targetType, ((Number) value).floatValue());
+        if (targetType == BigDecimal.class) return cast(targetType, value);
         if (targetType == LocalDateTime.class) {
             Timestamp ts = rs.getTimestamp(columnName);
-            return ts == null ? null : targetType.cast(ts.toLocalDateTime());
+            return ts == null ? null : cast(targetType, ts.toLocalDateTime());
         }
         if (targetType == LocalDate.class) {
             java.sql.Date d = rs.getDate(columnName);
-            return d == null ? null : targetType.cast(d.toLocalDate());
+            return d == null ? null : cast(targetType, d.toLocalDate());
         }
         if (targetType == LocalTime.class) {
             Time t = rs.getTime(columnName);
-            return t == null ? null : targetType.cast(t.toLocalTime());
+            return t == null ? null : cast(targetType, t.toLocalTime());
         }
         if (targetType == Instant.class) {
             Timestamp ts = rs.getTimestamp(columnName);
-            return ts == null ? null : targetType.cast(ts.toInstant());
+            return ts == null ? null : cast(targetType, ts.toInstant());
         }
         if (targetType == UUID.class) {
-            String s = rs.getString(columnName);
-            return s == null ? null : targetType.cast(UUID.fromString(s));
+            if (value instanceof UUID uuid) return cast(targetType, uuid);
+            if (value instanceof byte[] bytes) return cast(targetType, UuidCodec.fromBytes(bytes));
+            return cast(targetType, UUID.fromString(value.toString()));
         }
-        if (targetType == byte[].class) return targetType.cast(value);
+        if (targetType == byte[].class) return cast(targetType, value);
 
         throw new DatabaseException("Type not supported for SQL conversion: " + targetType);
     }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Class<T> targetType, Object value) {
+        return targetType.isPrimitive() ? (T) value : targetType.cast(value);
+    }
 }
@@ -0,0 +1,43 @@
+package fr.panncake.pannlib.orm.util;
+
+import fr.panncake.pannlib.orm.annotations.UuidStorage;
+import fr.panncake.pannlib.orm.config.DatabaseType;
+import fr.panncake.pannlib.orm.exception.DatabaseException;
+
+import java.util.UUID;
+
+public final class UuidCodec {
+
+    private UuidCodec() {}
+
+    public static Object toSqlValue(UUID uuid, UuidStorage storage, DatabaseType databaseType) {
+        if (storage != UuidStorage.BINARY) {
+            return uuid.toString();
+        }
+        return databaseType == DatabaseType.POSTGRESQL ? uuid : toBytes(uuid);
+    }
+
+    public static byte[] toBytes(UUID uuid) {
+        byte[] bytes = new byte[16];
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        for (int i = 0; i < 8; i++) {
+            bytes[i] = (byte) (msb >>> (56 - (i << 3)));
+            bytes[i + 8] = (byte) (lsb >>> (56 - (i << 3)));
+        }
+        return bytes;
+    }
+
+    public static UUID fromBytes(byte[] bytes) {
+        if (bytes.length != 16) {
+            throw new DatabaseException("Invalid binary UUID length: " + bytes.length);
+        }
+        long msb = 0;
+        long lsb = 0;
+        for (int i = 0; i < 8; i++) {
+            msb = (msb << 8) | (bytes[i] & 0xFF);
+            lsb = (lsb << 8) | (bytes[i + 8] & 0xFF);
+        }
+        return new UUID(msb, lsb);
+    }
+}
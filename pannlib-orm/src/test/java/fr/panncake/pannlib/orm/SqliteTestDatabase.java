@@ -0,0 +1,53 @@
+package fr.panncake.pannlib.orm;
+
+import fr.panncake.pannlib.orm.config.DatabaseConfig;
+import fr.panncake.pannlib.orm.config.DatabaseType;
+import fr.panncake.pannlib.orm.config.ProfilerConfig;
+import fr.panncake.pannlib.orm.connection.ConnectionManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.UnaryOperator;
+
+public final class SqliteTestDatabase {
+    private static ConnectionManager global;
+
+    private SqliteTestDatabase() {}
+
+    public static ConnectionManager open(Path directory) {
+        return open(directory, UnaryOperator.identity());
+    }
+
+    public static ConnectionManager open(Path directory, UnaryOperator<DatabaseConfig.DatabaseConfigBuilder> customizer) {
+        return ConnectionManager.create(config(directory, customizer));
+    }
+
+    public static DatabaseConfig config(Path directory, UnaryOperator<DatabaseConfig.DatabaseConfigBuilder> customizer) {
+        return customizer.apply(builder(directory)).build();
+    }
+
+    public static synchronized ConnectionManager global() {
+        if (global == null) {
+            try {
+                Path directory = Files.createTempDirectory("pannorm-test");
+                directory.toFile().deleteOnExit();
+                ConnectionManager.initialize(builder(directory).profiler(ProfilerConfig.builder().build()).build());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            global = ConnectionManager.getInstance();
+        }
+        return global;
+    }
+
+    private static DatabaseConfig.DatabaseConfigBuilder builder(Path directory) {
+        return DatabaseConfig.builder()
+                .type(DatabaseType.SQLITE)
+                .database(directory.resolve("test.db").toString())
+                .maxPoolSize(4)
+                .connectionTimeout(5_000)
+                .autoCommit(true);
+    }
+}
@@ -0,0 +1,68 @@
+package fr.panncake.pannlib.orm.connection;
+
+import fr.panncake.pannlib.orm.SqliteTestDatabase;
+import fr.panncake.pannlib.orm.config.DatabaseConfig;
+import fr.panncake.pannlib.orm.config.DatabaseType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionManagerTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void sqliteReadersCannotWrite() throws SQLException {
+        ConnectionManager connectionManager = SqliteTestDatabase.open(directory);
+        try {
+            try (Connection conn = connectionManager.getConnection();
+                 Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("CREATE TABLE item (id INTEGER PRIMARY KEY)");
+            }
+            try (Connection conn = connectionManager.getReadConnection();
+                 Statement stmt = conn.createStatement()) {
+                assertThrows(SQLException.class, () -> stmt.executeUpdate("INSERT INTO item (id) VALUES (1)"));
+                try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM item")) {
+                    assertTrue(rs.next());
+                    assertEquals(0, rs.getInt(1));
+                }
+            }
+            assertNotSame(connectionManager.getDataSource(), connectionManager.getReadDataSource());
+        } finally {
+            connectionManager.shutdown();
+        }
+    }
+
+    @Test
+    void inMemorySqliteSharesOneDatabase() throws SQLException {
+        ConnectionManager connectionManager = ConnectionManager.create(DatabaseConfig.builder()
+                .type(DatabaseType.SQLITE)
+                .database(":memory:")
+                .connectionTimeout(5_000)
+                .autoCommit(true)
+                .build());
+        try {
+            try (Connection conn = connectionManager.getConnection();
+                 Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("CREATE TABLE item (id INTEGER PRIMARY KEY)");
+                stmt.executeUpdate("INSERT INTO item (id) VALUES (1)");
+            }
+            try (Connection conn = connectionManager.getReadConnection();
+                 Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM item")) {
+                assertTrue(rs.next());
+                assertEquals(1, rs.getInt(1));
+            }
+            assertSame(connectionManager.getDataSource(), connectionManager.getReadDataSource());
+        } finally {
+            connectionManager.shutdown();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package fr.panncake.pannlib.orm.converter;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactBinaryConverterTest {
+    private final CompactBinaryConverter codec = new CompactBinaryConverter();
+
+    private Object roundTrip(Object value) {
+        return codec.fromDatabase(codec.toDatabase(value));
+    }
+
+    @Test
+    void keepsScalarTypes() {
+        assertEquals(42, roundTrip(42));
+        assertEquals(-7L, roundTrip(-7L));
+        assertEquals((short) 300, roundTrip((short) 300));
+        assertEquals((byte) -3, roundTrip((byte) -3));
+        assertEquals(1.5d, roundTrip(1.5d));
+        assertEquals("héllo", roundTrip("héllo"));
+        assertEquals(new BigDecimal("-12.3400"), roundTrip(new BigDecimal("-12.3400")));
+        assertEquals(Instant.ofEpochSecond(-5, 17), roundTrip(Instant.ofEpochSecond(-5, 17)));
+        assertEquals(LocalDate.of(1969, 12, 31), roundTrip(LocalDate.of(1969, 12, 31)));
+        UUID uuid = UUID.randomUUID();
+        assertEquals(uuid, roundTrip(uuid));
+    }
+
+    @Test
+    void keepsNestedCollections() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("list", List.of(1, 2L, "three"));
+        map.put("set", Set.of((short) 1));
+        map.put("none", null);
+        assertEquals(map, roundTrip(map));
+    }
+
+    @Test
+    void decodesIntoDeclaredType() {
+        assertEquals((short) 12, new CompactBinaryConverter(short.class).fromDatabase(codec.toDatabase(12)));
+        assertEquals((byte) 4, new CompactBinaryConverter(Byte.class).fromDatabase(codec.toDatabase(4)));
+
+        Object sorted = new CompactBinaryConverter(SortedSet.class).fromDatabase(codec.toDatabase(new TreeSet<>(List.of(3, 1, 2))));
+        assertInstanceOf(TreeSet.class, sorted);
+        assertEquals(List.of(1, 2, 3), new ArrayList<>((TreeSet<?>) sorted));
+
+        Object navigable = new CompactBinaryConverter(NavigableMap.class).fromDatabase(codec.toDatabase(Map.of("b", 2, "a", 1)));
+        assertInstanceOf(TreeMap.class, navigable);
+        assertEquals("a", ((TreeMap<?, ?>) navigable).firstKey());
+
+        assertInstanceOf(LinkedList.class, new CompactBinaryConverter(LinkedList.class).fromDatabase(codec.toDatabase(List.of(1))));
+    }
+
+    @Test
+    void rejectsCorruptInput() {
+        byte[] bytes = codec.toDatabase("abc");
+        assertThrows(RuntimeException.class, () -> codec.fromDatabase(Arrays.copyOf(bytes, bytes.length - 1)));
+        assertThrows(RuntimeException.class, () -> codec.fromDatabase(Arrays.copyOf(bytes, bytes.length + 1)));
+    }
+}
@@ -0,0 +1,81 @@
+package fr.panncake.pannlib.orm.converter;
+
+import fr.panncake.pannlib.orm.annotations.Convert;
+import fr.panncake.pannlib.orm.annotations.EnumStorage;
+import fr.panncake.pannlib.orm.annotations.Enumerated;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConverterRegistryTest {
+
+    interface Shape {
+    }
+
+    interface Polygon extends Shape {
+    }
+
+    static class Square implements Polygon {
+    }
+
+    enum Color {RED, GREEN}
+
+    static class Holder {
+        Square square;
+        @Convert(CompactBinaryConverter.class)
+        short compact;
+        @Enumerated(EnumStorage.ORDINAL)
+        Color color;
+        String plain;
+    }
+
+    static final AttributeConverter<Shape, String> SHAPE_CONVERTER = new AttributeConverter<>() {
+        @Override
+        public String toDatabase(Shape value) {
+            return "shape";
+        }
+
+        @Override
+        public Shape fromDatabase(String value) {
+            return new Square();
+        }
+
+        @Override
+        public Class<String> databaseType() {
+            return String.class;
+        }
+    };
+
+    private static Field field(String name) throws NoSuchFieldException {
+        return Holder.class.getDeclaredField(name);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ConverterRegistry.unregister(Shape.class);
+    }
+
+    @Test
+    void findsConvertersRegisteredForSuperinterfaces() throws Exception {
+        ConverterRegistry.register(Shape.class, SHAPE_CONVERTER);
+        assertSame(SHAPE_CONVERTER, ConverterRegistry.resolve(field("square")));
+    }
+
+    @Test
+    void explicitConverterReceivesTheField() throws Exception {
+        AttributeConverter<Object, Object> converter = ConverterRegistry.resolve(field("compact"));
+        assertInstanceOf(CompactBinaryConverter.class, converter);
+        assertEquals((short) 9, converter.fromDatabase(converter.toDatabase((short) 9)));
+    }
+
+    @Test
+    void enumsUseTheirStorageMode() throws Exception {
+        AttributeConverter<Object, Object> converter = ConverterRegistry.resolve(field("color"));
+        assertEquals(1, converter.toDatabase(Color.GREEN));
+        assertEquals(Color.RED, converter.fromDatabase(0));
+        assertNull(ConverterRegistry.resolve(field("plain")));
+    }
+}
@@ -0,0 +1,77 @@
+package fr.panncake.pannlib.orm.event;
+
+import fr.panncake.pannlib.orm.SqliteTestDatabase;
+import fr.panncake.pannlib.orm.annotations.Column;
+import fr.panncake.pannlib.orm.annotations.Entity;
+import fr.panncake.pannlib.orm.annotations.Id;
+import fr.panncake.pannlib.orm.connection.ConnectionManager;
+import fr.panncake.pannlib.orm.session.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityChangeEventTest {
+    @TempDir
+    Path directory;
+    private ConnectionManager connectionManager;
+    private EntityManager em;
+    private final List<EntityChangeEvent> events = new CopyOnWriteArrayList<>();
+
+    @Entity(tableName = "event_item")
+    public static class Item {
+        @Id
+        long id;
+        @Column
+        String name;
+    }
+
+    @BeforeEach
+    void setUp() {
+        connectionManager = SqliteTestDatabase.open(directory);
+        em = new EntityManager(connectionManager);
+        em.createTable(Item.class);
+        em.addChangeListener(events::add);
+    }
+
+    @AfterEach
+    void tearDown() {
+        em.shutdown();
+        connectionManager.shutdown();
+    }
+
+    @Test
+    void writesPublishEventsWithTheGeneratedId() {
+        Item item = new Item();
+        item.name = "sword";
+        em.persist(item);
+        item.name = "axe";
+        em.update(item);
+        em.delete(item);
+
+        assertEquals(List.of(EntityChangeType.PERSIST, EntityChangeType.UPDATE, EntityChangeType.DELETE),
+                events.stream().map(EntityChangeEvent::type).toList());
+        for (EntityChangeEvent event : events) {
+            assertEquals(Item.class.getName(), event.entityType());
+            assertEquals("event_item", event.table());
+            assertEquals(item.id, event.id());
+        }
+    }
+
+    @Test
+    void asyncWritesPublishAfterCommit() {
+        Item item = new Item();
+        item.name = "shield";
+        em.persistAsync(item).join();
+
+        assertEquals(1, events.size());
+        assertEquals(EntityChangeType.PERSIST, events.get(0).type());
+        assertEquals(item.id, events.get(0).id());
+    }
+}
@@ -0,0 +1,119 @@
+package fr.panncake.pannlib.orm.event;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvalidationBusTest {
+    private final List<AutoCloseable> closeables = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (AutoCloseable closeable : closeables) {
+            closeable.close();
+        }
+    }
+
+    @Test
+    void remoteNodesReceiveExactKeys() {
+        LoopbackTransport transport = new LoopbackTransport();
+        InvalidationBus local = bus(transport, Integer.MAX_VALUE);
+        InvalidationBus remote = bus(transport, Integer.MAX_VALUE);
+        List<EntityChangeEvent> localReceived = new CopyOnWriteArrayList<>();
+        List<EntityChangeEvent> remoteReceived = new CopyOnWriteArrayList<>();
+        local.addRemoteListener(localReceived::add);
+        remote.addRemoteListener(remoteReceived::add);
+
+        EntityChangeEvent event = new EntityChangeEvent("game.Player", "players", 42L, EntityChangeType.UPDATE);
+        local.onChange(event);
+        local.onChange(event);
+        local.flush();
+
+        assertEquals(List.of(event), remoteReceived);
+        assertTrue(localReceived.isEmpty());
+        assertEquals(2, local.getPublishedCount());
+        assertEquals(1, local.getMessagesSent());
+    }
+
+    @Test
+    void oversizedBatchesAreSplit() {
+        LoopbackTransport loopback = new LoopbackTransport();
+        InvalidationTransport transport = new InvalidationTransport() {
+            @Override
+            public void publish(byte[] message) {
+                assertTrue(message.length <= maxMessageSize());
+                loopback.publish(message);
+            }
+
+            @Override
+            public Closeable subscribe(Consumer<byte[]> receiver) {
+                return loopback.subscribe(receiver);
+            }
+
+            @Override
+            public int maxMessageSize() {
+                return 128;
+            }
+        };
+        InvalidationBus local = bus(transport, Integer.MAX_VALUE);
+        InvalidationBus remote = bus(transport, Integer.MAX_VALUE);
+        List<EntityChangeEvent> received = new CopyOnWriteArrayList<>();
+        remote.addRemoteListener(received::add);
+
+        for (long id = 0; id < 20; id++) {
+            local.onChange(new EntityChangeEvent("game.Player", "players", id, EntityChangeType.DELETE));
+        }
+        local.flush();
+
+        assertEquals(20, received.size());
+        assertTrue(local.getMessagesSent() > 1);
+        assertEquals(19L, received.get(19).id());
+    }
+
+    @Test
+    void closingABusLeavesOtherBusesOnTheTransportSubscribed() throws Exception {
+        LoopbackTransport transport = new LoopbackTransport();
+        InvalidationBus local = bus(transport, Integer.MAX_VALUE);
+        InvalidationBus closed = bus(transport, Integer.MAX_VALUE);
+        InvalidationBus remote = bus(transport, Integer.MAX_VALUE);
+        List<EntityChangeEvent> closedReceived = new CopyOnWriteArrayList<>();
+        List<EntityChangeEvent> remoteReceived = new CopyOnWriteArrayList<>();
+        closed.addRemoteListener(closedReceived::add);
+        remote.addRemoteListener(remoteReceived::add);
+
+        closed.close();
+        EntityChangeEvent event = new EntityChangeEvent("game.Player", "players", 7L, EntityChangeType.DELETE);
+        local.onChange(event);
+        local.flush();
+
+        assertEquals(List.of(event), remoteReceived);
+        assertTrue(closedReceived.isEmpty());
+    }
+
+    @Test
+    void nonScalarIdsAreSentAsStrings() {
+        LoopbackTransport transport = new LoopbackTransport();
+        InvalidationBus local = bus(transport, Integer.MAX_VALUE);
+        InvalidationBus remote = bus(transport, Integer.MAX_VALUE);
+        List<EntityChangeEvent> received = new CopyOnWriteArrayList<>();
+        remote.addRemoteListener(received::add);
+
+        local.onChange(new EntityChangeEvent("game.Guild", "guilds", List.of(1, 2), EntityChangeType.PERSIST));
+        local.flush();
+
+        assertEquals("[1, 2]", received.get(0).id());
+    }
+
+    private InvalidationBus bus(InvalidationTransport transport, int maxBatchSize) {
+        InvalidationBus bus = new InvalidationBus(transport, 60_000, maxBatchSize);
+        closeables.add(bus);
+        return bus;
+    }
+}
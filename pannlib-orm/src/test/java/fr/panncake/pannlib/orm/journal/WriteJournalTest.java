@@ -0,0 +1,162 @@
+package fr.panncake.pannlib.orm.journal;
+
+import fr.panncake.pannlib.orm.SqliteTestDatabase;
+import fr.panncake.pannlib.orm.annotations.Column;
+import fr.panncake.pannlib.orm.annotations.Entity;
+import fr.panncake.pannlib.orm.annotations.Id;
+import fr.panncake.pannlib.orm.annotations.Version;
+import fr.panncake.pannlib.orm.config.JournalConfig;
+import fr.panncake.pannlib.orm.connection.ConnectionManager;
+import fr.panncake.pannlib.orm.query.BoundStatement;
+import fr.panncake.pannlib.orm.session.EntityManager;
+import fr.panncake.pannlib.orm.transaction.Transaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteJournalTest {
+    @TempDir
+    Path directory;
+    private ConnectionManager connectionManager;
+    private EntityManager em;
+
+    @Entity(tableName = "journal_item")
+    public static class Item {
+        @Id(autoIncrement = false)
+        long id;
+        @Column
+        String name;
+        @Version
+        Long version;
+
+        Item() {
+        }
+
+        Item(long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    @Entity(tableName = "journal_legacy")
+    public static class Legacy {
+        @Id(autoIncrement = false)
+        long id;
+        @Column
+        Date created;
+    }
+
+    @BeforeEach
+    void setUp() {
+        connectionManager = SqliteTestDatabase.open(directory, b -> b.journal(JournalConfig.builder()
+                .directory(directory.resolve("journal"))
+                .replayIntervalMillis(60_000)
+                .build()));
+        em = new EntityManager(connectionManager);
+        em.createTable(Item.class);
+        em.createTable(Legacy.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        em.shutdown();
+        connectionManager.shutdown();
+    }
+
+    @Test
+    void journaledWritesAreVisibleAfterFlush() {
+        for (int i = 1; i <= 50; i++) {
+            em.persist(new Item(i, "item-" + i));
+        }
+        assertEquals(50, em.getJournalStats().pendingEntries());
+        assertEquals(0, rows("journal_item"));
+
+        em.flushJournal();
+        assertEquals(0, em.getJournalStats().pendingEntries());
+        assertEquals(50, rows("journal_item"));
+    }
+
+    @Test
+    void versionedUpdateWaitsForEarlierJournaledInsert() {
+        Item item = new Item(1, "first");
+        em.persist(item);
+        item.name = "second";
+        em.update(item);
+
+        assertEquals("second", em.find(Item.class, 1L).name);
+        assertEquals(1L, item.version);
+    }
+
+    @Test
+    void unsupportedParametersBypassTheJournal() {
+        Legacy legacy = new Legacy();
+        legacy.id = 1;
+        legacy.created = new Date();
+        em.persist(legacy);
+
+        assertEquals(1, rows("journal_legacy"));
+        assertEquals(0, em.getJournalStats().pendingEntries());
+    }
+
+    @Test
+    void supportsOnlyTypesTheCodecRoundTrips() {
+        WriteJournal journal = new WriteJournal(connectionManager, JournalConfig.builder()
+                .directory(directory.resolve("direct"))
+                .replayIntervalMillis(60_000)
+                .build());
+        try {
+            assertTrue(journal.supports(new BoundStatement("UPDATE t SET a = ?, b = ?, c = ?",
+                    new Object[]{1L, "x", Instant.now()})));
+            assertFalse(journal.supports(new BoundStatement("UPDATE t SET a = ?", new Object[]{new Date()})));
+            assertFalse(journal.supports(new BoundStatement("UPDATE t SET a = ?", new Object[]{'c'})));
+        } finally {
+            journal.close();
+        }
+    }
+
+    @Test
+    void transactionsStartAfterPendingWritesAreReplayed() throws SQLException {
+        em.persist(new Item(1, "first"));
+        assertEquals(1, em.getJournalStats().pendingEntries());
+
+        long start = System.nanoTime();
+        try (Transaction tx = new Transaction(connectionManager);
+             var stmt = tx.getConnection().createStatement();
+             var rs = stmt.executeQuery("SELECT COUNT(*) FROM journal_item")) {
+            rs.next();
+            assertEquals(1, rs.getInt(1));
+            tx.commit();
+        }
+
+        assertEquals(0, em.getJournalStats().pendingEntries());
+        assertTrue(System.nanoTime() - start < 2_000_000_000L);
+    }
+
+    @Test
+    void shutdownReplaysPendingWrites() {
+        for (int i = 1; i <= 10; i++) {
+            em.persist(new Item(i, "item-" + i));
+        }
+        em.shutdown();
+        assertEquals(10, rows("journal_item"));
+    }
+
+    private int rows(String table) {
+        try (var conn = connectionManager.getReadConnection();
+             var stmt = conn.createStatement();
+             var rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            rs.next();
+            return rs.getInt(1);
+        } catch (SQLException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
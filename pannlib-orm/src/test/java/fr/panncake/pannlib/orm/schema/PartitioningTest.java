@@ -0,0 +1,125 @@
+package fr.panncake.pannlib.orm.schema;
+
+import fr.panncake.pannlib.orm.SqliteTestDatabase;
+import fr.panncake.pannlib.orm.annotations.Column;
+import fr.panncake.pannlib.orm.annotations.Entity;
+import fr.panncake.pannlib.orm.annotations.Id;
+import fr.panncake.pannlib.orm.annotations.PartitionInterval;
+import fr.panncake.pannlib.orm.annotations.TimePartitioned;
+import fr.panncake.pannlib.orm.connection.ConnectionManager;
+import fr.panncake.pannlib.orm.exception.DatabaseException;
+import fr.panncake.pannlib.orm.session.EntityManager;
+import fr.panncake.pannlib.orm.transaction.TransactionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitioningTest {
+    @TempDir
+    Path directory;
+
+    private ConnectionManager cm;
+    private EntityManager em;
+
+    @BeforeEach
+    void setUp() {
+        cm = SqliteTestDatabase.open(directory);
+        em = new EntityManager(cm);
+        em.createTable(Event.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        em.shutdown();
+        cm.shutdown();
+    }
+
+    @Test
+    void rowsAreWrittenToTheirPartition() {
+        Instant now = Instant.now();
+        em.persist(new Event(1, now));
+        em.persist(new Event(2, now.minus(20, ChronoUnit.DAYS)));
+
+        assertEquals(2, em.count(Event.class));
+        assertEquals(2, em.find(Event.class, 2).id);
+        assertTrue(new SchemaManager(cm).listPartitions(Event.class).stream()
+                .anyMatch(p -> p.name().endsWith(PartitionInterval.DAY.suffix(PartitionInterval.DAY.floor(now.minus(20, ChronoUnit.DAYS))))));
+    }
+
+    @Test
+    void droppedPartitionsAreRecreatedOnTheNextWrite() {
+        Instant old = Instant.now().minus(20, ChronoUnit.DAYS);
+        em.persist(new Event(1, old));
+
+        PurgeResult result = new RetentionPurgeJob(cm, null).register(Event.class, Duration.ofDays(5)).runOnce();
+        assertEquals(1, result.droppedPartitions());
+        assertEquals(0, em.count(Event.class));
+
+        em.persist(new Event(2, old));
+        assertEquals(1, em.count(Event.class));
+    }
+
+    @Test
+    void creatingAPartitionInsideATransactionDoesNotCommitIt() {
+        ConnectionManager global = SqliteTestDatabase.global();
+        EntityManager txEm = new EntityManager(global);
+        try {
+            txEm.createTable(TxEvent.class);
+            Instant now = Instant.now();
+            DatabaseException e = assertThrows(DatabaseException.class, () -> TransactionManager.requireTransaction(() -> {
+                txEm.persist(new TxEvent(1, now));
+                txEm.persist(new TxEvent(2, now.minus(30, ChronoUnit.DAYS)));
+                throw new IllegalStateException("rollback");
+            }));
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+
+            assertEquals(0, txEm.count(TxEvent.class));
+            txEm.persist(new TxEvent(3, now.minus(30, ChronoUnit.DAYS)));
+            assertEquals(1, txEm.count(TxEvent.class));
+        } finally {
+            txEm.shutdown();
+        }
+    }
+
+    @Entity(tableName = "part_events")
+    @TimePartitioned(column = "createdAt", interval = PartitionInterval.DAY, precreate = 1)
+    public static class Event {
+        @Id(autoIncrement = false)
+        public long id;
+        @Column
+        public Instant createdAt;
+
+        public Event() {
+        }
+
+        Event(long id, Instant createdAt) {
+            this.id = id;
+            this.createdAt = createdAt;
+        }
+    }
+
+    @Entity(tableName = "part_tx_events")
+    @TimePartitioned(column = "createdAt", interval = PartitionInterval.DAY, precreate = 1)
+    public static class TxEvent {
+        @Id(autoIncrement = false)
+        public long id;
+        @Column
+        public Instant createdAt;
+
+        public TxEvent() {
+        }
+
+        TxEvent(long id, Instant createdAt) {
+            this.id = id;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package fr.panncake.pannlib.orm.session;
+
+import fr.panncake.pannlib.orm.SqliteTestDatabase;
+import fr.panncake.pannlib.orm.annotations.Column;
+import fr.panncake.pannlib.orm.annotations.Entity;
+import fr.panncake.pannlib.orm.annotations.Id;
+import fr.panncake.pannlib.orm.connection.ConnectionManager;
+import fr.panncake.pannlib.orm.query.AggregateFunction;
+import fr.panncake.pannlib.orm.query.Criteria;
+import fr.panncake.pannlib.orm.query.Criteria.Operator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AggregateQueryTest {
+    @TempDir
+    Path directory;
+    private ConnectionManager connectionManager;
+    private EntityManager em;
+
+    @Entity(tableName = "agg_player")
+    public static class Player {
+        @Id
+        long id;
+        @Column
+        String name;
+        @Column
+        String guild;
+        @Column
+        int level;
+    }
+
+    @BeforeEach
+    void setUp() {
+        connectionManager = SqliteTestDatabase.open(directory);
+        em = new EntityManager(connectionManager);
+        em.createTable(Player.class);
+        player("alice", "red", 10);
+        player("bob", "red", 20);
+        player("carol", "blue", 30);
+        player("dave", null, 5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        em.shutdown();
+        connectionManager.shutdown();
+    }
+
+    @Test
+    void countsAndExistence() {
+        assertEquals(4, em.count(Player.class));
+        assertEquals(2, em.count(Player.class, Criteria.where("guild", "red")));
+        assertEquals(2, em.count(Player.class, Criteria.where("level", Operator.GTE, 10).and("level", Operator.LT, 30)));
+        assertTrue(em.exists(Player.class, Criteria.where("name", Operator.LIKE, "car%")));
+        assertFalse(em.exists(Player.class, Criteria.where("guild", "green")));
+        assertTrue(em.existsById(Player.class, 1L));
+        assertFalse(em.existsById(Player.class, 99L));
+    }
+
+    @Test
+    void aggregates() {
+        assertEquals(65L, em.sum(Player.class, "level", null).longValue());
+        assertEquals(15.0, em.avg(Player.class, "level", Criteria.where("guild", "red")));
+        assertEquals(5, (int) em.<Integer>min(Player.class, "level", null));
+        assertEquals(30, (int) em.<Integer>max(Player.class, "level", Criteria.where("guild", Operator.IS_NOT_NULL, null)));
+        assertNull(em.max(Player.class, "level", Criteria.where("guild", "green")));
+    }
+
+    @Test
+    void aggregatesOtherThanCountRequireAColumn() {
+        assertThrows(IllegalArgumentException.class, () -> em.avg(Player.class, null, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> em.aggregateBy(Player.class, AggregateFunction.SUM, null, "guild", null));
+        assertEquals(4L, (long) em.<Long>aggregate(Player.class, AggregateFunction.COUNT, null, null));
+    }
+
+    @Test
+    void groupedAggregates() {
+        Map<String, Long> counts = em.countBy(Player.class, "guild", Criteria.where("guild", Operator.IS_NOT_NULL, null));
+        assertEquals(Map.of("red", 2L, "blue", 1L), counts);
+
+        Map<String, Integer> maxLevels = em.aggregateBy(Player.class, AggregateFunction.MAX, "level", "guild",
+                Criteria.where("guild", Operator.IN, List.of("red", "blue")));
+        assertEquals(Map.of("red", 20, "blue", 30), maxLevels);
+    }
+
+    @Test
+    void findAllWithCriteria() {
+        List<Player> unguilded = em.findAll(Player.class, Criteria.where("guild", Operator.IS_NULL, null));
+        assertEquals(List.of("dave"), unguilded.stream().map(p -> p.name).toList());
+
+        List<Player> named = em.findAll(Player.class, Criteria.where("name", Operator.IN, List.of("alice", "carol")));
+        assertEquals(2, named.size());
+    }
+
+    @Test
+    void inRequiresValues() {
+        assertThrows(IllegalArgumentException.class, () -> Criteria.where("name", Operator.IN, List.of()));
+    }
+
+    private void player(String name, String guild, int level) {
+        Player player = new Player();
+        player.name = name;
+        player.guild = guild;
+        player.level = level;
+        em.persist(player);
+    }
+}
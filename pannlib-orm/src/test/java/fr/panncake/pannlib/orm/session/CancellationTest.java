@@ -0,0 +1,98 @@
+package fr.panncake.pannlib.orm.session;
+
+import fr.panncake.pannlib.orm.SqliteTestDatabase;
+import fr.panncake.pannlib.orm.annotations.Column;
+import fr.panncake.pannlib.orm.annotations.Entity;
+import fr.panncake.pannlib.orm.annotations.Id;
+import fr.panncake.pannlib.orm.config.GroupCommitConfig;
+import fr.panncake.pannlib.orm.connection.ConnectionManager;
+import fr.panncake.pannlib.orm.exception.QueryTimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CancellationTest {
+    @TempDir
+    Path directory;
+    private ConnectionManager connectionManager;
+    private EntityManager em;
+
+    @Entity(tableName = "cancel_item")
+    public static class Item {
+        @Id(autoIncrement = false)
+        long id;
+        @Column
+        String name;
+
+        Item() {
+        }
+
+        Item(long id) {
+            this.id = id;
+            this.name = "item-" + id;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        connectionManager = SqliteTestDatabase.open(directory,
+                b -> b.groupCommit(GroupCommitConfig.builder().windowMillis(300).build()));
+        em = new EntityManager(connectionManager);
+        em.createTable(Item.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        em.shutdown();
+        connectionManager.shutdown();
+    }
+
+    @Test
+    void cancellingADependentStageCancelsTheOperation() {
+        OperationScope scope = OperationScope.open(null);
+        AtomicInteger cancelled = new AtomicInteger();
+        CancellableFuture<String> root = new CancellableFuture<>(scope, cancelled::incrementAndGet);
+        CompletableFuture<Integer> dependent = root.thenApply(String::length).thenApply(length -> length * 2);
+
+        assertTrue(dependent.cancel(true));
+
+        assertTrue(root.isCancelled());
+        assertTrue(scope.isCancelled());
+        assertEquals(1, cancelled.get());
+    }
+
+    @Test
+    void cancelledGroupCommitWriteIsNotApplied() {
+        CompletableFuture<Void> first = em.persistAsync(new Item(1));
+        CompletableFuture<Void> cancelled = em.persistAsync(new Item(2));
+        CompletableFuture<Void> last = em.persistAsync(new Item(3));
+
+        assertTrue(cancelled.thenRun(() -> {}).cancel(true));
+        first.join();
+        last.join();
+
+        assertTrue(cancelled.isCompletedExceptionally());
+        assertNull(em.find(Item.class, 2L));
+        assertEquals(2, em.count(Item.class));
+        assertEquals(1, em.getCancelledCount());
+    }
+
+    @Test
+    void groupCommitWriteHonoursTheCallerDeadline() {
+        CompletableFuture<Void> future = em.withTimeout(Duration.ofMillis(20), () -> em.persistAsync(new Item(1)));
+
+        CompletionException failure = assertThrows(CompletionException.class, future::join);
+        assertInstanceOf(QueryTimeoutException.class, failure.getCause());
+        assertNull(em.find(Item.class, 1L));
+        assertTrue(em.getTimedOutCount() >= 1);
+    }
+}
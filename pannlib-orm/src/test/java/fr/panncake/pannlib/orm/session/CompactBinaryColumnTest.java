@@ -0,0 +1,72 @@
+package fr.panncake.pannlib.orm.session;
+
+import fr.panncake.pannlib.orm.SqliteTestDatabase;
+import fr.panncake.pannlib.orm.annotations.Column;
+import fr.panncake.pannlib.orm.annotations.Convert;
+import fr.panncake.pannlib.orm.annotations.Entity;
+import fr.panncake.pannlib.orm.annotations.Id;
+import fr.panncake.pannlib.orm.connection.ConnectionManager;
+import fr.panncake.pannlib.orm.converter.CompactBinaryConverter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactBinaryColumnTest {
+    @TempDir
+    Path directory;
+    private ConnectionManager connectionManager;
+    private EntityManager em;
+
+    @Entity(tableName = "compact_holder")
+    public static class Holder {
+        @Id
+        long id;
+        @Column
+        @Convert(CompactBinaryConverter.class)
+        short level;
+        @Column
+        @Convert(CompactBinaryConverter.class)
+        TreeSet<String> tags;
+        @Column
+        @Convert(CompactBinaryConverter.class)
+        SortedMap<String, Integer> scores;
+    }
+
+    @BeforeEach
+    void setUp() {
+        connectionManager = SqliteTestDatabase.open(directory);
+        em = new EntityManager(connectionManager);
+        em.createTable(Holder.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        em.shutdown();
+        connectionManager.shutdown();
+    }
+
+    @Test
+    void loadsDeclaredFieldTypes() {
+        Holder holder = new Holder();
+        holder.id = 1;
+        holder.level = 7;
+        holder.tags = new TreeSet<>(List.of("b", "a"));
+        holder.scores = new TreeMap<>(Map.of("z", 1, "y", 2));
+        em.persist(holder);
+
+        Holder loaded = em.find(Holder.class, 1L);
+        assertEquals(7, loaded.level);
+        assertEquals("a", loaded.tags.first());
+        assertEquals("y", loaded.scores.firstKey());
+    }
+}
@@ -0,0 +1,148 @@
+package fr.panncake.pannlib.orm.session;
+
+import fr.panncake.pannlib.orm.SqliteTestDatabase;
+import fr.panncake.pannlib.orm.annotations.Column;
+import fr.panncake.pannlib.orm.annotations.Entity;
+import fr.panncake.pannlib.orm.annotations.Id;
+import fr.panncake.pannlib.orm.config.GroupCommitConfig;
+import fr.panncake.pannlib.orm.connection.ConnectionManager;
+import fr.panncake.pannlib.orm.exception.DatabaseException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GroupCommitterTest {
+    @TempDir
+    Path directory;
+    private ConnectionManager connectionManager;
+    private EntityManager em;
+
+    @Entity(tableName = "gc_item")
+    public static class Item {
+        @Id(autoIncrement = false)
+        long id;
+        @Column
+        String name;
+
+        Item() {
+        }
+
+        Item(long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        connectionManager = SqliteTestDatabase.open(directory,
+                b -> b.groupCommit(GroupCommitConfig.builder().windowMillis(20).maxBatchSize(64).build()));
+        em = new EntityManager(connectionManager);
+        em.createTable(Item.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        em.shutdown();
+        connectionManager.shutdown();
+    }
+
+    @Test
+    void concurrentWritesAllCommit() {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 1; i <= 500; i++) {
+            futures.add(em.persistAsync(new Item(i, "item-" + i)));
+        }
+        futures.forEach(CompletableFuture::join);
+        assertEquals(500, em.count(Item.class));
+        assertEquals("item-42", em.find(Item.class, 42L).name);
+    }
+
+    @Test
+    void synchronousWritesAreGroupedToo() {
+        List<CompletableFuture<Void>> callers = new ArrayList<>();
+        for (int i = 1; i <= 50; i++) {
+            long id = i;
+            callers.add(CompletableFuture.runAsync(() -> em.persist(new Item(id, "sync-" + id))));
+        }
+        callers.forEach(CompletableFuture::join);
+        assertEquals(50, em.count(Item.class));
+        assertThrows(DatabaseException.class, () -> em.persist(new Item(7, "duplicate")));
+        assertEquals("sync-7", em.find(Item.class, 7L).name);
+    }
+
+    @Test
+    void failingWriteOnlyFailsItsOwnCaller() {
+        em.persist(new Item(10, "existing"));
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            futures.add(em.persistAsync(new Item(i, "new-" + i)));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            CompletableFuture<Void> future = futures.get(i);
+            if (i == 9) {
+                assertThrows(CompletionException.class, future::join);
+            } else {
+                assertDoesNotThrow(future::join);
+            }
+        }
+        assertEquals(20, em.count(Item.class));
+        assertEquals("existing", em.find(Item.class, 10L).name);
+    }
+
+    @Test
+    void isolatingFailuresStaysLinear() {
+        GroupCommitter committer = new GroupCommitter(connectionManager,
+                GroupCommitConfig.builder().windowMillis(200).maxBatchSize(64).build());
+        AtomicInteger executions = new AtomicInteger();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            boolean fails = i % 2 == 1;
+            futures.add(committer.submit(conn -> {
+                executions.incrementAndGet();
+                if (fails) {
+                    throw new SQLException("boom");
+                }
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.executeUpdate("INSERT INTO gc_item (id, name) VALUES (" + (1000 + executions.get()) + ", 'x')");
+                }
+            }, new CompletableFuture<>()));
+        }
+        committer.shutdown();
+
+        long failed = futures.stream().filter(CompletableFuture::isCompletedExceptionally).count();
+        assertEquals(32, failed);
+        assertTrue(futures.stream().allMatch(CompletableFuture::isDone));
+        assertTrue(executions.get() <= 64 * 3, "executed " + executions.get() + " operations");
+    }
+
+    @Test
+    void shutdownDrainsPendingWrites() {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 1; i <= 200; i++) {
+            futures.add(em.persistAsync(new Item(i, "drain")));
+        }
+        em.shutdown();
+        futures.forEach(f -> assertDoesNotThrow(f::join));
+        try (var conn = connectionManager.getReadConnection();
+             var stmt = conn.createStatement();
+             var rs = stmt.executeQuery("SELECT COUNT(*) FROM gc_item")) {
+            assertTrue(rs.next());
+            assertEquals(200, rs.getInt(1));
+        } catch (SQLException e) {
+            fail(e);
+        }
+    }
+}
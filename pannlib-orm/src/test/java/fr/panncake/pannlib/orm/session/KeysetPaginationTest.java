@@ -0,0 +1,101 @@
+package fr.panncake.pannlib.orm.session;
+
+import fr.panncake.pannlib.orm.SqliteTestDatabase;
+import fr.panncake.pannlib.orm.annotations.Column;
+import fr.panncake.pannlib.orm.annotations.Entity;
+import fr.panncake.pannlib.orm.annotations.Id;
+import fr.panncake.pannlib.orm.annotations.Index;
+import fr.panncake.pannlib.orm.connection.ConnectionManager;
+import fr.panncake.pannlib.orm.exception.DatabaseException;
+import fr.panncake.pannlib.orm.query.Page;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetPaginationTest {
+    @TempDir
+    Path directory;
+    private ConnectionManager connectionManager;
+    private EntityManager em;
+
+    @Entity(tableName = "page_item")
+    public static class Item {
+        @Id
+        long id;
+        @Index
+        @Column(nullable = false)
+        int score;
+        @Index(name = "idx_page_item_label")
+        @Column
+        String label;
+    }
+
+    @BeforeEach
+    void setUp() {
+        connectionManager = SqliteTestDatabase.open(directory);
+        em = new EntityManager(connectionManager);
+        em.createTable(Item.class);
+        for (int i = 0; i < 95; i++) {
+            Item item = new Item();
+            item.score = i % 7;
+            item.label = i % 3 == 0 ? null : "label-" + i;
+            em.persist(item);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        em.shutdown();
+        connectionManager.shutdown();
+    }
+
+    @Test
+    void indexAnnotationsCreateIndexes() throws SQLException {
+        em.createTable(Item.class);
+        Set<String> indexes = new HashSet<>();
+        try (Connection conn = connectionManager.getConnection();
+             ResultSet rs = conn.getMetaData().getIndexInfo(null, null, "page_item", false, false)) {
+            while (rs.next()) {
+                indexes.add(rs.getString("INDEX_NAME"));
+            }
+        }
+        assertTrue(indexes.contains("idx_page_item_score"), indexes.toString());
+        assertTrue(indexes.contains("idx_page_item_label"), indexes.toString());
+    }
+
+    @Test
+    void pagesThroughTiesWithoutGapsOrDuplicates() {
+        for (boolean descending : new boolean[]{false, true}) {
+            List<Item> seen = new ArrayList<>();
+            Page<Item> page = em.findPage(Item.class, null, 10, "score", descending);
+            seen.addAll(page.items());
+            while (page.hasNext()) {
+                page = em.findPage(Item.class, page.nextKey(), 10, "score", descending);
+                seen.addAll(page.items());
+            }
+            assertEquals(95, seen.size());
+            assertEquals(95, seen.stream().map(item -> item.id).distinct().count());
+            for (int i = 1; i < seen.size(); i++) {
+                int order = Integer.compare(seen.get(i - 1).score, seen.get(i).score);
+                assertTrue(descending ? order >= 0 : order <= 0);
+            }
+        }
+    }
+
+    @Test
+    void nullableColumnsAreRejected() {
+        assertThrows(DatabaseException.class, () -> em.findPage(Item.class, null, 10, "label", false));
+    }
+}
@@ -0,0 +1,156 @@
+package fr.panncake.pannlib.orm.session;
+
+import fr.panncake.pannlib.orm.SqliteTestDatabase;
+import fr.panncake.pannlib.orm.annotations.Column;
+import fr.panncake.pannlib.orm.annotations.Entity;
+import fr.panncake.pannlib.orm.annotations.Id;
+import fr.panncake.pannlib.orm.connection.ConnectionManager;
+import fr.panncake.pannlib.orm.entity.LazyBlob;
+import fr.panncake.pannlib.orm.transaction.TransactionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LazyBlobTest {
+    @TempDir
+    Path directory;
+    private ConnectionManager connectionManager;
+    private EntityManager em;
+
+    @Entity(tableName = "lob_schematic")
+    public static class Schematic {
+        @Id
+        long id;
+        @Column
+        String name;
+        @Column
+        LazyBlob data;
+    }
+
+    @BeforeEach
+    void setUp() {
+        connectionManager = SqliteTestDatabase.open(directory);
+        em = new EntityManager(connectionManager);
+        em.createTable(Schematic.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        em.shutdown();
+        connectionManager.shutdown();
+    }
+
+    @Test
+    void loadsContentOnlyWhenAsked() throws IOException {
+        byte[] content = content(64 * 1024);
+        long id = persist(content);
+
+        Schematic loaded = em.find(Schematic.class, id);
+        assertFalse(loaded.data.isLoaded());
+        try (InputStream in = loaded.data.openStream()) {
+            assertArrayEquals(Arrays.copyOf(content, 10), in.readNBytes(10));
+        }
+        assertEquals(0, connectionManager.getReadPoolStats().activeConnections());
+        assertArrayEquals(content, loaded.data.getBytes());
+        assertTrue(loaded.data.isLoaded());
+    }
+
+    @Test
+    void unchangedBlobIsNotRewritten() {
+        byte[] content = content(1024);
+        long id = persist(content);
+
+        Schematic loaded = em.find(Schematic.class, id);
+        loaded.name = "renamed";
+        em.update(loaded);
+
+        Schematic reloaded = em.find(Schematic.class, id);
+        assertEquals("renamed", reloaded.name);
+        assertArrayEquals(content, reloaded.data.getBytes());
+    }
+
+    @Test
+    void sqlNullIsDistinctFromAnEmptyBlob() throws IOException {
+        Schematic missing = new Schematic();
+        missing.name = "missing";
+        em.persist(missing);
+        long emptyId = persist(new byte[0]);
+
+        Schematic loaded = em.find(Schematic.class, missing.id);
+        assertTrue(loaded.data.isNull());
+        assertNull(loaded.data.getBytes());
+        try (InputStream in = loaded.data.openStream()) {
+            assertEquals(-1, in.read());
+        }
+        assertEquals(0, connectionManager.getReadPoolStats().activeConnections());
+
+        Schematic empty = em.find(Schematic.class, emptyId);
+        assertFalse(empty.data.isNull());
+        assertArrayEquals(new byte[0], empty.data.getBytes());
+    }
+
+    @Test
+    void abandonedStreamReturnsItsConnection() throws InterruptedException {
+        long id = persist(content(1024));
+        openAndForget(id);
+        assertEquals(1, connectionManager.getReadPoolStats().activeConnections());
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (connectionManager.getReadPoolStats().activeConnections() > 0 && System.currentTimeMillis() < deadline) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        assertEquals(0, connectionManager.getReadPoolStats().activeConnections());
+    }
+
+    @Test
+    void readsThroughTheActiveTransaction() {
+        ConnectionManager global = SqliteTestDatabase.global();
+        EntityManager txEm = new EntityManager(global);
+        try {
+            txEm.createTable(Schematic.class);
+            byte[] content = content(512);
+            TransactionManager.requireTransaction(() -> {
+                Schematic schematic = new Schematic();
+                schematic.name = "uncommitted";
+                schematic.data = LazyBlob.of(content);
+                txEm.persist(schematic);
+
+                Schematic loaded = txEm.find(Schematic.class, schematic.id);
+                assertArrayEquals(content, loaded.data.getBytes());
+                assertEquals(0, global.getReadPoolStats().activeConnections());
+            });
+        } finally {
+            txEm.shutdown();
+        }
+    }
+
+    private void openAndForget(long id) {
+        Schematic loaded = em.find(Schematic.class, id);
+        loaded.data.openStream();
+    }
+
+    private long persist(byte[] content) {
+        Schematic schematic = new Schematic();
+        schematic.name = "castle";
+        schematic.data = LazyBlob.of(content);
+        em.persist(schematic);
+        return schematic.id;
+    }
+
+    private static byte[] content(int size) {
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) (i * 31);
+        }
+        return content;
+    }
+}
@@ -0,0 +1,129 @@
+package fr.panncake.pannlib.orm.session;
+
+import fr.panncake.pannlib.orm.SqliteTestDatabase;
+import fr.panncake.pannlib.orm.annotations.Column;
+import fr.panncake.pannlib.orm.annotations.Entity;
+import fr.panncake.pannlib.orm.annotations.Id;
+import fr.panncake.pannlib.orm.annotations.Version;
+import fr.panncake.pannlib.orm.connection.ConnectionManager;
+import fr.panncake.pannlib.orm.exception.OptimisticLockException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimisticLockTest {
+    @TempDir
+    Path directory;
+
+    private ConnectionManager cm;
+    private EntityManager em;
+
+    @BeforeEach
+    void setUp() {
+        cm = SqliteTestDatabase.open(directory);
+        em = new EntityManager(cm);
+        em.createTable(Wallet.class);
+        em.createTable(Note.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        em.shutdown();
+        cm.shutdown();
+    }
+
+    @Test
+    void updateIncrementsTheVersion() {
+        Wallet wallet = new Wallet(1, 10);
+        em.persist(wallet);
+        wallet.coins = 20;
+        em.update(wallet);
+
+        assertEquals(1, wallet.version);
+        Wallet loaded = em.find(Wallet.class, 1);
+        assertEquals(20, loaded.coins);
+        assertEquals(1, loaded.version);
+    }
+
+    @Test
+    void staleUpdateThrowsAndKeepsTheVersion() {
+        em.persist(new Wallet(1, 10));
+        Wallet first = em.find(Wallet.class, 1);
+        Wallet second = em.find(Wallet.class, 1);
+        first.coins = 20;
+        em.update(first);
+
+        second.coins = 30;
+        OptimisticLockException e = assertThrows(OptimisticLockException.class, () -> em.update(second));
+        assertEquals(0, e.getExpectedVersion());
+        assertEquals(0, second.version);
+        assertEquals(20, em.find(Wallet.class, 1).coins);
+    }
+
+    @Test
+    void updateAllReportsConflictsForVersionedEntitiesOnly() {
+        em.persist(new Wallet(1, 10));
+        em.persist(new Wallet(2, 10));
+        Wallet fresh = em.find(Wallet.class, 1);
+        Wallet stale = em.find(Wallet.class, 2);
+        Wallet concurrent = em.find(Wallet.class, 2);
+        concurrent.coins = 99;
+        em.update(concurrent);
+
+        Note missing = new Note(7, "never persisted");
+        Note present = new Note(8, "before");
+        em.persist(present);
+        present.text = "after";
+        fresh.coins = 11;
+        stale.coins = 12;
+
+        BatchUpdateResult<Object> result = em.updateAll(List.of(fresh, stale, missing, present));
+
+        assertEquals(List.of(stale), result.conflicts());
+        assertEquals(List.of(fresh, missing, present), result.updated());
+        assertEquals(1, fresh.version);
+        assertEquals(0, stale.version);
+        assertEquals(99, em.find(Wallet.class, 2).coins);
+        assertEquals("after", em.find(Note.class, 8).text);
+    }
+
+    @Entity(tableName = "lock_wallets")
+    public static class Wallet {
+        @Id(autoIncrement = false)
+        public int id;
+        @Column
+        public int coins;
+        @Version
+        public int version;
+
+        public Wallet() {
+        }
+
+        Wallet(int id, int coins) {
+            this.id = id;
+            this.coins = coins;
+        }
+    }
+
+    @Entity(tableName = "lock_notes")
+    public static class Note {
+        @Id(autoIncrement = false)
+        public int id;
+        @Column
+        public String text;
+
+        public Note() {
+        }
+
+        Note(int id, String text) {
+            this.id = id;
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package fr.panncake.pannlib.orm.session;
+
+import fr.panncake.pannlib.orm.SqliteTestDatabase;
+import fr.panncake.pannlib.orm.annotations.Column;
+import fr.panncake.pannlib.orm.annotations.Entity;
+import fr.panncake.pannlib.orm.annotations.Id;
+import fr.panncake.pannlib.orm.config.ProfilerConfig;
+import fr.panncake.pannlib.orm.connection.ConnectionManager;
+import fr.panncake.pannlib.orm.event.EntityChangeEvent;
+import fr.panncake.pannlib.orm.event.EntityChangeType;
+import fr.panncake.pannlib.orm.event.InvalidationBus;
+import fr.panncake.pannlib.orm.event.LoopbackTransport;
+import fr.panncake.pannlib.orm.query.Criteria;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrefetchTest {
+    private static final PrefetchPlan PLAN = PrefetchPlan.builder()
+            .byId(Hero.class)
+            .byColumn(Item.class, "ownerId")
+            .follow(Item.class, "templateId", Template.class)
+            .build();
+
+    @TempDir
+    Path directory;
+
+    private ConnectionManager cm;
+    private EntityManager em;
+
+    @BeforeEach
+    void setUp() {
+        cm = SqliteTestDatabase.open(directory, b -> b.profiler(ProfilerConfig.builder().build()));
+        em = new EntityManager(cm);
+        em.createTable(Hero.class);
+        em.createTable(Item.class);
+        em.createTable(Template.class);
+
+        em.persist(new Hero(1, "Ayla"));
+        for (int i = 1; i <= 3; i++) {
+            em.persist(new Template(i, "template-" + i));
+            em.persist(new Item(i, 1, i));
+        }
+        em.persist(new Item(4, 1, 1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        em.shutdown();
+        cm.shutdown();
+    }
+
+    @Test
+    void followStepsLoadTargetsInOneQuery() {
+        long before = em.getProfileReport().statements();
+        em.prefetch(1, PLAN).join();
+
+        assertEquals(3, em.getProfileReport().statements() - before);
+        for (int i = 1; i <= 3; i++) {
+            assertEquals("template-" + i, em.find(Template.class, i).name);
+        }
+        assertEquals(4, em.findAll(Item.class, Criteria.where("ownerId", 1)).size());
+        assertEquals(3, em.getProfileReport().statements() - before);
+        assertEquals(4, em.getPrefetchHits());
+    }
+
+    @Test
+    void hitsReturnCopies() {
+        em.prefetch(1, PLAN).join();
+
+        Hero hero = em.find(Hero.class, 1);
+        hero.name = "changed";
+        em.findAll(Item.class, Criteria.where("ownerId", 1)).get(0).templateId = 99;
+
+        assertNotSame(hero, em.find(Hero.class, 1));
+        assertEquals("Ayla", em.find(Hero.class, 1).name);
+        List<Item> items = em.findAll(Item.class, Criteria.where("ownerId", 1));
+        assertTrue(items.stream().noneMatch(item -> item.templateId == 99));
+    }
+
+    @Test
+    void writesEvictPrefetchedEntities() {
+        em.prefetch(1, PLAN).join();
+        Hero hero = em.find(Hero.class, 1);
+        hero.name = "Lucca";
+        em.update(hero);
+
+        long misses = em.getPrefetchMisses();
+        assertEquals("Lucca", em.find(Hero.class, 1).name);
+        assertEquals(misses + 1, em.getPrefetchMisses());
+    }
+
+    @Test
+    void loadsStartedBeforeAnEvictionAreNotCached() {
+        PrefetchCache cache = new PrefetchCache();
+        long generation = cache.generation(Hero.class);
+        cache.evict(new EntityChangeEvent(Hero.class.getName(), "prefetch_heroes", 1L, EntityChangeType.UPDATE));
+        cache.putEntity(Hero.class, 1L, new Hero(1, "stale"), "owner", Long.MAX_VALUE, generation);
+
+        assertNull(cache.getEntity(Hero.class, 1L));
+
+        cache.putEntity(Hero.class, 1L, new Hero(1, "fresh"), "owner", Long.MAX_VALUE, cache.generation(Hero.class));
+        assertNotNull(cache.getEntity(Hero.class, 1));
+    }
+
+    @Test
+    void remoteInvalidationsEvictPrefetchedEntities() {
+        LoopbackTransport transport = new LoopbackTransport();
+        try (InvalidationBus local = new InvalidationBus(transport, 60_000, Integer.MAX_VALUE);
+             InvalidationBus remote = new InvalidationBus(transport, 60_000, Integer.MAX_VALUE)) {
+            em.attach(local);
+            em.prefetch(1, PLAN).join();
+            assertNotNull(em.find(Hero.class, 1));
+            long hits = em.getPrefetchHits();
+
+            remote.onChange(new EntityChangeEvent(Hero.class.getName(), "prefetch_heroes", 1, EntityChangeType.UPDATE));
+            remote.flush();
+
+            assertNotNull(em.find(Hero.class, 1));
+            assertEquals(hits, em.getPrefetchHits());
+            em.detach(local);
+        }
+    }
+
+    @Entity(tableName = "prefetch_heroes")
+    public static class Hero {
+        @Id(autoIncrement = false)
+        public int id;
+        @Column
+        public String name;
+
+        public Hero() {
+        }
+
+        Hero(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    @Entity(tableName = "prefetch_items")
+    public static class Item {
+        @Id(autoIncrement = false)
+        public int id;
+        @Column
+        public int ownerId;
+        @Column
+        public int templateId;
+
+        public Item() {
+        }
+
+        Item(int id, int ownerId, int templateId) {
+            this.id = id;
+            this.ownerId = ownerId;
+            this.templateId = templateId;
+        }
+    }
+
+    @Entity(tableName = "prefetch_templates")
+    public static class Template {
+        @Id(autoIncrement = false)
+        public int id;
+        @Column
+        public String name;
+
+        public Template() {
+        }
+
+        Template(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package fr.panncake.pannlib.orm.session;
+
+import fr.panncake.pannlib.orm.SqliteTestDatabase;
+import fr.panncake.pannlib.orm.annotations.Cacheable;
+import fr.panncake.pannlib.orm.annotations.Column;
+import fr.panncake.pannlib.orm.annotations.Convert;
+import fr.panncake.pannlib.orm.annotations.Entity;
+import fr.panncake.pannlib.orm.annotations.Id;
+import fr.panncake.pannlib.orm.config.QueryCacheConfig;
+import fr.panncake.pannlib.orm.connection.ConnectionManager;
+import fr.panncake.pannlib.orm.converter.CompactBinaryConverter;
+import fr.panncake.pannlib.orm.converter.JsonConverter;
+import fr.panncake.pannlib.orm.event.EntityChangeEvent;
+import fr.panncake.pannlib.orm.event.EntityChangeType;
+import fr.panncake.pannlib.orm.event.InvalidationBus;
+import fr.panncake.pannlib.orm.event.LoopbackTransport;
+import fr.panncake.pannlib.orm.query.Criteria;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryCacheTest {
+    @TempDir
+    Path directory;
+
+    private ConnectionManager cm;
+    private EntityManager em;
+
+    @BeforeEach
+    void setUp() {
+        cm = SqliteTestDatabase.open(directory, b -> b.queryCache(QueryCacheConfig.builder().build()));
+        em = new EntityManager(cm);
+        em.createTable(Hero.class);
+        em.persist(new Hero(1, "Ayla", new byte[]{1, 2}));
+        em.persist(new Hero(2, "Brom", new byte[]{3}));
+    }
+
+    @AfterEach
+    void tearDown() {
+        em.shutdown();
+        cm.shutdown();
+    }
+
+    @Test
+    void repeatedQueriesAreServedFromTheCache() {
+        assertEquals(2, em.findAll(Hero.class).size());
+        assertEquals(2, em.findAll(Hero.class).size());
+        assertEquals(2, em.count(Hero.class));
+        assertEquals(2, em.count(Hero.class));
+
+        QueryCacheStats stats = em.getQueryCacheStats();
+        assertEquals(2, stats.hits());
+        assertEquals(2, stats.misses());
+    }
+
+    @Test
+    void cachedEntitiesAreCopiedOnEveryRead() {
+        Hero first = em.find(Hero.class, 1);
+        first.name = "changed";
+        first.avatar[0] = 9;
+        List<Hero> all = em.findAll(Hero.class, Criteria.where("id", 1));
+        all.get(0).name = "changed";
+
+        Hero again = em.find(Hero.class, 1);
+        assertEquals("Ayla", again.name);
+        assertArrayEquals(new byte[]{1, 2}, again.avatar);
+        assertNotSame(first, again);
+        assertEquals("Ayla", em.findAll(Hero.class, Criteria.where("id", 1)).get(0).name);
+        assertTrue(em.getQueryCacheStats().hits() >= 2);
+    }
+
+    @Test
+    void nestedValuesOfAHitAreNotShared() {
+        Hero hero = new Hero(3, "Cora", new byte[0]);
+        hero.stats = new Stats();
+        hero.stats.kills = 1;
+        hero.stats.titles = new ArrayList<>(List.of("rookie"));
+        hero.scores = new LinkedHashMap<>(Map.of("arena", new ArrayList<>(List.of(10))));
+        em.persist(hero);
+
+        Hero hit = em.find(Hero.class, 3);
+        hit.stats.kills++;
+        hit.stats.titles.add("veteran");
+        hit.scores.get("arena").add(20);
+        em.findAll(Hero.class).forEach(h -> {
+            if (h.stats != null) h.stats.kills = 99;
+        });
+
+        Hero again = em.find(Hero.class, 3);
+        assertEquals(1, again.stats.kills);
+        assertEquals(List.of("rookie"), again.stats.titles);
+        assertEquals(List.of(10), again.scores.get("arena"));
+        assertEquals(1, em.findAll(Hero.class, Criteria.where("id", 3)).get(0).stats.kills);
+        assertTrue(em.getQueryCacheStats().hits() >= 2);
+    }
+
+    @Test
+    void writesInvalidateCachedQueries() {
+        assertEquals(2, em.count(Hero.class));
+
+        em.persist(new Hero(3, "Cora", new byte[0]));
+
+        assertEquals(3, em.count(Hero.class));
+        assertTrue(em.getQueryCacheStats().invalidations() > 0);
+    }
+
+    @Test
+    void remoteInvalidationsClearCachedQueries() {
+        LoopbackTransport transport = new LoopbackTransport();
+        try (InvalidationBus local = new InvalidationBus(transport, 60_000, Integer.MAX_VALUE);
+             InvalidationBus remote = new InvalidationBus(transport, 60_000, Integer.MAX_VALUE)) {
+            em.attach(local);
+            assertEquals("Ayla", em.find(Hero.class, 1).name);
+
+            ConnectionManager other = SqliteTestDatabase.open(directory);
+            EntityManager otherEm = new EntityManager(other);
+            Hero hero = otherEm.find(Hero.class, 1);
+            hero.name = "Renamed";
+            otherEm.update(hero);
+            otherEm.shutdown();
+            other.shutdown();
+            assertEquals("Ayla", em.find(Hero.class, 1).name);
+
+            remote.onChange(new EntityChangeEvent(Hero.class.getName(), "cache_heroes", 1, EntityChangeType.UPDATE));
+            remote.flush();
+
+            assertEquals("Renamed", em.find(Hero.class, 1).name);
+            em.detach(local);
+        }
+    }
+
+    @Entity(tableName = "cache_heroes")
+    @Cacheable
+    public static class Hero {
+        @Id(autoIncrement = false)
+        public int id;
+        @Column
+        public String name;
+        @Column
+        public byte[] avatar;
+        @Column
+        @Convert(JsonConverter.class)
+        public Stats stats;
+        @Column
+        @Convert(CompactBinaryConverter.class)
+        public Map<String, List<Integer>> scores;
+
+        public Hero() {
+        }
+
+        Hero(int id, String name, byte[] avatar) {
+            this.id = id;
+            this.name = name;
+            this.avatar = avatar;
+        }
+    }
+
+    public static class Stats {
+        public int kills;
+        public List<String> titles;
+    }
+}
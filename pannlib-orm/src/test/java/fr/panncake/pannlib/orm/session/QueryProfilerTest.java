@@ -0,0 +1,201 @@
+package fr.panncake.pannlib.orm.session;
+
+import fr.panncake.pannlib.orm.SqliteTestDatabase;
+import fr.panncake.pannlib.orm.annotations.Column;
+import fr.panncake.pannlib.orm.annotations.Entity;
+import fr.panncake.pannlib.orm.annotations.Id;
+import fr.panncake.pannlib.orm.config.GroupCommitConfig;
+import fr.panncake.pannlib.orm.config.ProfilerConfig;
+import fr.panncake.pannlib.orm.connection.ConnectionManager;
+import fr.panncake.pannlib.orm.exception.DatabaseException;
+import fr.panncake.pannlib.orm.transaction.TransactionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryProfilerTest {
+    @TempDir
+    Path directory;
+
+    private ConnectionManager cm;
+    private EntityManager em;
+
+    @BeforeEach
+    void setUp() {
+        cm = SqliteTestDatabase.open(directory, b -> b.profiler(ProfilerConfig.builder()
+                .repeatThreshold(3)
+                .implicitScopeMillis(200)
+                .largeTableRows(3)
+                .build()));
+        em = new EntityManager(cm);
+        em.createTable(Hero.class);
+        for (int i = 1; i <= 5; i++) {
+            em.persist(new Hero(i, "hero-" + i));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        em.shutdown();
+        cm.shutdown();
+    }
+
+    private static Optional<ProfileReport.RepeatedStatement> repeatedSelect(ProfileReport report, String table) {
+        return report.repeatedStatements().stream()
+                .filter(r -> r.shape().startsWith("SELECT") && r.shape().contains(table))
+                .findFirst();
+    }
+
+    @Test
+    void explicitScopesReportRepeatedStatements() {
+        try (ProfileScope ignored = em.profile("load-heroes")) {
+            for (int i = 1; i <= 5; i++) {
+                em.find(Hero.class, i);
+            }
+        }
+
+        ProfileReport.RepeatedStatement repeated = repeatedSelect(em.getProfileReport(), "profiler_heroes").orElseThrow();
+        assertEquals(5, repeated.maxRepeats());
+        assertEquals("load-heroes", repeated.exampleScope());
+    }
+
+    @Test
+    void loopsOutsideAnyScopeAreGroupedPerThread() {
+        for (int i = 1; i <= 5; i++) {
+            em.find(Hero.class, i);
+        }
+
+        ProfileReport.RepeatedStatement repeated = repeatedSelect(em.getProfileReport(), "profiler_heroes").orElseThrow();
+        assertEquals(5, repeated.maxRepeats());
+        assertTrue(repeated.exampleScope().startsWith("implicit@"), repeated.exampleScope());
+    }
+
+    @Test
+    void idleGapsStartANewImplicitScope() throws InterruptedException {
+        Thread.sleep(300);
+        em.find(Hero.class, 1);
+        em.find(Hero.class, 2);
+        Thread.sleep(300);
+        em.find(Hero.class, 3);
+        em.find(Hero.class, 4);
+
+        assertTrue(repeatedSelect(em.getProfileReport(), "profiler_heroes").isEmpty());
+    }
+
+    @Test
+    void largeFullReadsAreReported() {
+        em.findAll(Hero.class);
+
+        ProfileReport report = em.getProfileReport();
+        assertTrue(report.fullScans().stream().anyMatch(scan -> scan.shape().contains("profiler_heroes") && scan.maxRows() == 5));
+        assertFalse(report.slowestShapes().isEmpty());
+        assertTrue(report.hasFindings());
+    }
+
+    @Test
+    void rolledBackTransactionsAreProfiledAsOneScope() {
+        ConnectionManager global = SqliteTestDatabase.global();
+        EntityManager txEm = new EntityManager(global);
+        try {
+            txEm.createTable(TxHero.class);
+            for (int i = 1; i <= 6; i++) {
+                txEm.persist(new TxHero(i));
+            }
+            assertThrows(DatabaseException.class, () -> TransactionManager.requireTransaction(() -> {
+                for (int i = 1; i <= 6; i++) {
+                    txEm.find(TxHero.class, i);
+                }
+                throw new IllegalStateException("rollback");
+            }));
+
+            ProfileReport.RepeatedStatement repeated = repeatedSelect(txEm.getProfileReport(), "profiler_tx_heroes").orElseThrow();
+            assertEquals(6, repeated.maxRepeats());
+            assertTrue(repeated.exampleScope().startsWith("transaction@"), repeated.exampleScope());
+        } finally {
+            txEm.shutdown();
+        }
+    }
+
+    @Test
+    void deferredWritesAreProfiledInTheCallersScope() throws Exception {
+        ConnectionManager grouped = SqliteTestDatabase.open(Files.createDirectories(directory.resolve("grouped")), b -> b
+                .groupCommit(GroupCommitConfig.builder().windowMillis(50).build())
+                .profiler(ProfilerConfig.builder().repeatThreshold(3).implicitScopeMillis(1_000).build()));
+        EntityManager groupedEm = new EntityManager(grouped);
+        try {
+            groupedEm.createTable(Hero.class);
+            Thread[] callers = new Thread[2];
+            for (int t = 0; t < callers.length; t++) {
+                int base = 10 * (t + 1);
+                callers[t] = new Thread(() -> {
+                    groupedEm.persistAsync(new Hero(base, "a")).join();
+                    groupedEm.persistAsync(new Hero(base + 1, "b")).join();
+                }, "caller-" + t);
+                callers[t].start();
+            }
+            for (Thread caller : callers) {
+                caller.join();
+            }
+            for (int i = 1; i <= 3; i++) {
+                groupedEm.persistAsync(new Hero(i, "main")).join();
+            }
+
+            List<ProfileReport.RepeatedStatement> inserts = groupedEm.getProfileReport().repeatedStatements().stream()
+                    .filter(r -> r.shape().startsWith("INSERT"))
+                    .toList();
+            assertEquals(1, inserts.size(), inserts.toString());
+            assertEquals(1, inserts.get(0).scopes());
+            assertEquals("implicit@" + Thread.currentThread().getName(), inserts.get(0).exampleScope());
+        } finally {
+            groupedEm.shutdown();
+            grouped.shutdown();
+        }
+    }
+
+    @Test
+    void reportsCanBeWrittenToAFile() throws Exception {
+        em.findAll(Hero.class);
+        Path file = directory.resolve("profile.txt");
+
+        em.writeProfileReport(file);
+
+        assertTrue(Files.readString(file).contains("profiler_heroes"));
+    }
+
+    @Entity(tableName = "profiler_heroes")
+    public static class Hero {
+        @Id(autoIncrement = false)
+        public int id;
+        @Column
+        public String name;
+
+        public Hero() {
+        }
+
+        Hero(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    @Entity(tableName = "profiler_tx_heroes")
+    public static class TxHero {
+        @Id(autoIncrement = false)
+        public int id;
+
+        public TxHero() {
+        }
+
+        TxHero(int id) {
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package fr.panncake.pannlib.orm.session;
+
+import fr.panncake.pannlib.orm.SqliteTestDatabase;
+import fr.panncake.pannlib.orm.annotations.Column;
+import fr.panncake.pannlib.orm.annotations.Entity;
+import fr.panncake.pannlib.orm.annotations.Id;
+import fr.panncake.pannlib.orm.annotations.UuidStorage;
+import fr.panncake.pannlib.orm.connection.ConnectionManager;
+import fr.panncake.pannlib.orm.query.Criteria;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UuidStorageTest {
+    @TempDir
+    Path directory;
+    private ConnectionManager connectionManager;
+    private EntityManager em;
+
+    @Entity(tableName = "uuid_owner")
+    public static class Owner {
+        @Id
+        long id;
+        @Column(uuidStorage = UuidStorage.BINARY)
+        UUID binaryId;
+        @Column
+        UUID textId;
+    }
+
+    @BeforeEach
+    void setUp() {
+        connectionManager = SqliteTestDatabase.open(directory);
+        em = new EntityManager(connectionManager);
+        em.createTable(Owner.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        em.shutdown();
+        connectionManager.shutdown();
+    }
+
+    @Test
+    void storesEachColumnInItsConfiguredForm() throws Exception {
+        Owner owner = new Owner();
+        owner.id = 1;
+        owner.binaryId = UUID.randomUUID();
+        owner.textId = UUID.randomUUID();
+        em.persist(owner);
+
+        try (Connection conn = connectionManager.getReadConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT typeof(binaryId), length(binaryId), typeof(textId) FROM uuid_owner")) {
+            assertTrue(rs.next());
+            assertEquals("blob", rs.getString(1));
+            assertEquals(16, rs.getInt(2));
+            assertEquals("text", rs.getString(3));
+        }
+
+        Owner loaded = em.find(Owner.class, 1L);
+        assertEquals(owner.binaryId, loaded.binaryId);
+        assertEquals(owner.textId, loaded.textId);
+    }
+
+    @Test
+    void criteriaOnBinaryColumnBindsBytes() {
+        Owner owner = new Owner();
+        owner.id = 2;
+        owner.binaryId = UUID.randomUUID();
+        em.persist(owner);
+
+        assertTrue(em.exists(Owner.class, Criteria.where("binaryId", owner.binaryId)));
+        assertFalse(em.exists(Owner.class, Criteria.where("binaryId", UUID.randomUUID())));
+    }
+}
@@ -0,0 +1,123 @@
+package fr.panncake.pannlib.orm.shard;
+
+import fr.panncake.pannlib.orm.SqliteTestDatabase;
+import fr.panncake.pannlib.orm.annotations.Column;
+import fr.panncake.pannlib.orm.annotations.Entity;
+import fr.panncake.pannlib.orm.annotations.Id;
+import fr.panncake.pannlib.orm.annotations.ShardKey;
+import fr.panncake.pannlib.orm.annotations.UuidStorage;
+import fr.panncake.pannlib.orm.config.DatabaseConfig;
+import fr.panncake.pannlib.orm.exception.DatabaseException;
+import fr.panncake.pannlib.orm.query.Criteria;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedEntityManagerTest {
+    @TempDir
+    Path directory;
+
+    private ShardedEntityManager sharded;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        for (String name : List.of("a", "b", "c", "d")) {
+            Files.createDirectories(directory.resolve(name));
+        }
+        sharded = new ShardedEntityManager(List.of(
+                SqliteTestDatabase.config(directory.resolve("a"), UnaryOperator.identity()),
+                SqliteTestDatabase.config(directory.resolve("b"), UnaryOperator.identity())),
+                RangeShardFunction.of(100));
+        sharded.createTable(Account.class);
+        sharded.createTable(Score.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        sharded.shutdown();
+    }
+
+    @Test
+    void entitiesAreRoutedByTheirId() {
+        sharded.persist(new Account(5, "low"));
+        sharded.persist(new Account(500, "high"));
+
+        assertEquals("low", sharded.find(Account.class, 5).name);
+        assertEquals("high", sharded.find(Account.class, 500).name);
+        assertEquals(1, sharded.shardAt(0).count(Account.class));
+        assertEquals(1, sharded.shardAt(1).count(Account.class));
+        assertEquals(2, sharded.findAll(Account.class).size());
+    }
+
+    @Test
+    void entitiesAreRoutedByTheirShardKey() {
+        sharded.persist(new Score(1, 5, 10));
+        sharded.persist(new Score(1, 500, 20));
+
+        assertEquals(10, sharded.find(Score.class, 1, 5).points);
+        assertEquals(20, sharded.find(Score.class, 1, 500).points);
+        assertEquals(1, sharded.count(Score.class, Criteria.where("accountId", 500)));
+        assertEquals(2, sharded.count(Score.class, Criteria.where("id", 1)));
+    }
+
+    @Test
+    void findByIdRequiresTheShardKeyWhenItIsNotTheId() {
+        sharded.persist(new Score(1, 5, 10));
+
+        assertThrows(DatabaseException.class, () -> sharded.find(Score.class, 1));
+    }
+
+    @Test
+    void shardsMustAgreeOnUuidStorage() {
+        List<DatabaseConfig> configs = List.of(
+                SqliteTestDatabase.config(directory.resolve("c"), b -> b.uuidStorage(UuidStorage.STRING)),
+                SqliteTestDatabase.config(directory.resolve("d"), b -> b.uuidStorage(UuidStorage.BINARY)));
+
+        assertThrows(IllegalArgumentException.class, () -> new ShardedEntityManager(configs, new HashShardFunction()));
+    }
+
+    @Entity(tableName = "shard_accounts")
+    public static class Account {
+        @Id(autoIncrement = false)
+        public long id;
+        @Column
+        public String name;
+
+        public Account() {
+        }
+
+        Account(long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    @Entity(tableName = "shard_scores")
+    public static class Score {
+        @Id(autoIncrement = false)
+        public long id;
+        @ShardKey
+        @Column
+        public long accountId;
+        @Column
+        public int points;
+
+        public Score() {
+        }
+
+        Score(long id, long accountId, int points) {
+            this.id = id;
+            this.accountId = accountId;
+            this.points = points;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package fr.panncake.pannlib.orm.transaction;
+
+import fr.panncake.pannlib.orm.SqliteTestDatabase;
+import fr.panncake.pannlib.orm.connection.ConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionTest {
+    @TempDir
+    Path directory;
+
+    private ConnectionManager cm;
+
+    @BeforeEach
+    void setUp() {
+        cm = SqliteTestDatabase.open(directory);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cm.shutdown();
+    }
+
+    @Test
+    void commitRunsOnlyCommitCallbacks() {
+        List<String> calls = new CopyOnWriteArrayList<>();
+        try (Transaction tx = new Transaction(cm)) {
+            tx.onCommit(() -> calls.add("commit"));
+            tx.onRollback(() -> calls.add("rollback"));
+            tx.commit();
+        }
+
+        assertEquals(List.of("commit"), calls);
+    }
+
+    @Test
+    void rollbackRunsOnlyRollbackCallbacks() {
+        List<String> calls = new CopyOnWriteArrayList<>();
+        Transaction tx = new Transaction(cm);
+        tx.onCommit(() -> calls.add("commit"));
+        tx.onRollback(() -> calls.add("rollback"));
+
+        tx.rollback();
+        tx.rollback();
+
+        assertEquals(List.of("rollback"), calls);
+        assertFalse(tx.isActive());
+    }
+
+    @Test
+    void closingAnOpenTransactionRollsItBack() {
+        List<String> calls = new CopyOnWriteArrayList<>();
+        try (Transaction tx = new Transaction(cm)) {
+            tx.onRollback(() -> calls.add("rollback"));
+        }
+
+        assertEquals(List.of("rollback"), calls);
+    }
+}
@@ -0,0 +1,36 @@
+package fr.panncake.pannlib.orm.util;
+
+import fr.panncake.pannlib.orm.annotations.UuidStorage;
+import fr.panncake.pannlib.orm.config.DatabaseType;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UuidCodecTest {
+
+    @Test
+    void bytesRoundTrip() {
+        UUID uuid = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+        byte[] bytes = UuidCodec.toBytes(uuid);
+        assertEquals(16, bytes.length);
+        assertEquals(0x12, bytes[0]);
+        assertEquals(0x00, bytes[15]);
+        assertEquals(uuid, UuidCodec.fromBytes(bytes));
+    }
+
+    @Test
+    void rejectsWrongLength() {
+        assertThrows(RuntimeException.class, () -> UuidCodec.fromBytes(new byte[15]));
+    }
+
+    @Test
+    void sqlValueFollowsStorageAndDialect() {
+        UUID uuid = UUID.randomUUID();
+        assertEquals(uuid.toString(), UuidCodec.toSqlValue(uuid, UuidStorage.STRING, DatabaseType.MYSQL));
+        assertEquals(uuid.toString(), UuidCodec.toSqlValue(uuid, UuidStorage.DEFAULT, DatabaseType.SQLITE));
+        assertArrayEquals(UuidCodec.toBytes(uuid), (byte[]) UuidCodec.toSqlValue(uuid, UuidStorage.BINARY, DatabaseType.SQLITE));
+        assertSame(uuid, UuidCodec.toSqlValue(uuid, UuidStorage.BINARY, DatabaseType.POSTGRESQL));
+    }
+}
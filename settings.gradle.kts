@@ -1,3 +1,3 @@
 rootProject.name = "PannLib"
 
-include("pannlib-orm", "pannlib-config")
\ No newline at end of file
+include("pannlib-orm", "pannlib-config", "pannlib-loadtest")
\ No newline at end of file